@@ -5,8 +5,12 @@ import Scheduler.Event;
 import Hardware.MMU.AccessViolation;
 import MemoryManagement.ProcessManager;
 import MainBoot.BootLoader;
+import MainBoot.Histogram;
+import MainBoot.Metrics;
+import MainBoot.StripedCounter;
 import MainBoot.SysLogger;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * 
@@ -15,21 +19,43 @@ import java.util.*;
  */
 public class CPU extends Thread {
 
+  /* Metriken, gemeinsam fuer alle CPUs */
+  private static final StripedCounter INSTRUCTIONS = Metrics.counter("cpu", "instructions");
+  private static final Histogram IDLE_MICROS = Metrics.histogram("cpu", "idleMicros");
+  private static final StripedCounter CONTEXT_SWITCHES = Metrics.counter("scheduler", "contextSwitches");
+
   private int timer;
   private RegisterSet regSet;
   private MMU mmu;
+  private VirtualAddressFormat addressFormat;
   private IO io;
+  private InterruptController interrupts = new InterruptController();
   private SchedulerIF scheduler;
   private ProcessManager processManager;
   private int blocked = 0;
   private Random random = new Random();
+  private volatile boolean halted = false;
+  private CountDownLatch shutdownLatch;
+  private long instructionCount;     //ausgefuehrte Befehle, ohne den Idle-Prozess
+  private long contextSwitches;      //Aufrufe von restoreRegisters
 
   /** Creates a new instance of CPU */
   public CPU(MMU mmu) {
+    this(mmu, new IO());
+  }
+
+  /**
+   * Erzeugt eine CPU, die sich die Ein-/Ausgabe mit anderen CPUs teilt.
+   * Jede CPU braucht ihre eigene MMU (mit eigenem TLB).
+   * @param mmu die MMU dieser CPU
+   * @param io die gemeinsame Ein-/Ausgabe
+   */
+  public CPU(MMU mmu, IO io) {
     this.mmu = mmu;
+    this.addressFormat = mmu.getAddressFormat();
     regSet = new RegisterSet();
     mmu.setRegisterSet(regSet);
-    io = new IO();
+    this.io = io;
   }
 
   public void setScheduler(SchedulerIF scheduler) {
@@ -40,6 +66,46 @@ public class CPU extends Thread {
     this.processManager = processManager;
   }
 
+  /**
+   * Setzt den Zaehler, der beim Herunterfahren (ShutdownException in {@link #run()})
+   * heruntergezaehlt wird. Darauf wartet der BootLoader, wenn mehrere CPUs laufen.
+   */
+  public void setShutdownLatch(CountDownLatch shutdownLatch) {
+    this.shutdownLatch = shutdownLatch;
+  }
+
+  /**
+   * @return der Interrupt-Controller dieser CPU
+   */
+  public InterruptController getInterruptController() {
+    return interrupts;
+  }
+
+  /**
+   * Haelt die CPU nach der laufenden Zeitscheibe an. {@link #operate()} kehrt dann zurueck.
+   */
+  public void halt() {
+    halted = true;
+    interrupts.wakeUp();
+  }
+
+  /**
+   * Laesst die CPU als eigenen Thread laufen, wenn mehrere CPUs simuliert werden.
+   * Endet die CPU, weil ein Prozess das System herunterfaehrt oder wegen eines Fehlers,
+   * wird der Shutdown-Zaehler heruntergezaehlt.
+   */
+  public void run() {
+    try {
+      operate();
+    } catch (BootLoader.ShutdownException x) {
+      SysLogger.writeLog(SysLogger.CPU, SysLogger.INFO, "CPU.run: " + getName() + " received shutdown");
+    } finally {
+      if (shutdownLatch != null) {
+        shutdownLatch.countDown();
+      }
+    }
+  }
+
   /**
    * Hier findet die eigentliche Prozessabarbeitung in Zeitscheiben statt.
    * Jeder Prozess laeuft immer fr eine gewisse Zeit.
@@ -54,21 +120,71 @@ public class CPU extends Thread {
    * wird, der nicht in dem InstructionSet gelistet ist.
    */
   public void operate() throws BootLoader.ShutdownException {
-    while (true) {
-      int numInstructions = 9;// + random.nextInt(3);
+    while (!halted) {
+      runTimeslice();
+    }
+  }
+
+  /**
+   * Wie {@link #operate()}, kehrt aber nach der Zeitscheibe zurueck, in der die CPU
+   * insgesamt <code>limit</code> Befehle ausgefuehrt hat, oder sobald sie nichts mehr zu
+   * tun hat: Es laeuft der Idle-Prozess, kein Prozess ist rechenbereit und kein
+   * Interrupt liegt vor. Der Idle-Prozess wartet dann also nicht.
+   * Damit steuert der BatchRunner, wann neue Prozesse ankommen.
+   * @param limit so viele Befehle insgesamt (siehe {@link #getInstructionCount()})
+   * @return true, wenn die CPU nichts mehr zu tun hat
+   * @throws BootLoader.ShutdownException wie bei <code>operate()</code>
+   */
+  public boolean operate(long limit) throws BootLoader.ShutdownException {
+    while (!halted && instructionCount < limit) {
+      if (regSet.getProgramCounter() == RegisterSet.NO_PROGRAM_COUNTER && !interrupts.hasPending()) {
+        scheduler.timesliceOver(); //evtl. ist inzwischen ein Prozess dazugekommen
+        if (regSet.getProgramCounter() == RegisterSet.NO_PROGRAM_COUNTER) {
+          return true;
+        }
+      }
+      runTimeslice();
+    }
+    return false;
+  }
+
+  /**
+   * Fuehrt eine Zeitscheibe des laufenden Prozesses aus. Die ausgefuehrten Befehle
+   * werden erst danach in die Metriken uebernommen, damit nicht jeder Befehl den
+   * gemeinsamen Zaehler anfasst.
+   */
+  private void runTimeslice() throws BootLoader.ShutdownException {
+    long start = instructionCount;
+    try {
+      int numInstructions = scheduler.getTimeslice();
       if (executeTimeslice(numInstructions) != blocked) {
         scheduler.timesliceOver(); //Falls der Prozess nicht schon blockiert wurde...
       }
+    } finally {
+      INSTRUCTIONS.add(instructionCount - start);
     }
   }
 
+  /**
+   * @return Anzahl der ausgefuehrten Befehle seit dem Start
+   */
+  public long getInstructionCount() {
+    return instructionCount;
+  }
+
+  /**
+   * @return Anzahl der Prozesswechsel (auch zum und vom Idle-Prozess)
+   */
+  public long getContextSwitchCount() {
+    return contextSwitches;
+  }
+
   public void saveRegisters(RegisterSet regSet) {
     // Die CPU gewährt keinen Zugriff auf ihre Register. Es wird zwar dieselbe
     // Klasse verwendet wie im PCB, die Inhalte werden aber kopiert.
 
     regSet.setProgramCounter(this.regSet.getProgramCounter());
-    regSet.setRegister1(this.regSet.getRegister1());
-    regSet.setRegister2(this.regSet.getRegister2());
+    regSet.copyRegisters(this.regSet);
     regSet.setConsole(this.regSet.getConsole());
   }
 
@@ -77,17 +193,20 @@ public class CPU extends Thread {
    * wenn ein neuer Prozess nach dem Scheduling von der CPU ausgefuehrt wird.
    * Die CPU gewaehrt keinen Zugriff auf ihre Register. Es wird zwar dieselbe
      Klasse verwendet wie im PCB, die Inhalte werden aber kopiert.
+   * Der TLB der MMU muss dabei nicht geleert werden: seine Eintraege sind mit der
+   * Seitentabellenadresse des Prozesses markiert.
    * @param regSet das neue RegisterSet.
    */
   public void restoreRegisters(RegisterSet regSet) {
 	  
 
     this.regSet.setProgramCounter(regSet.getProgramCounter());
-    this.regSet.setRegister1(regSet.getRegister1());
-    this.regSet.setRegister2(regSet.getRegister2());
+    this.regSet.copyRegisters(regSet);
     this.regSet.setConsole(regSet.getConsole());
     
     this.mmu.setRegisterSet(regSet); //Register der mmu aktualisieren
+    contextSwitches++;
+    CONTEXT_SWITCHES.increment();
   }
 
   /**
@@ -107,13 +226,13 @@ public class CPU extends Thread {
 	  
     for (int i = 0; i < numInstructions; i++) { //Fuer jeden Befehl..
     	
-      String pc = regSet.getProgramCounter(); //TODO
-      if (null != pc) { 
+      int pc = regSet.getProgramCounter();
+      if (RegisterSet.NO_PROGRAM_COUNTER != pc) { 
     	  
-        String instruction;
+        Instruction instruction;
         try {
         	
-          instruction = mmu.getMemoryCell(regSet.getProgramCounter()); //hole die Seite auf die der PC zeigt
+          instruction = mmu.getInstruction(pc); //hole den dekodierten Befehl auf den der PC zeigt
           
         } catch (MMU.AccessViolation ex) {
           
@@ -121,29 +240,37 @@ public class CPU extends Thread {
           return blocked;
         }
         
-        SysLogger.writeLog(0, "CPU.executeTimeslice: pc: " + regSet.getProgramCounter() + ", command: " + instruction);
+        if (SysLogger.isTraceEnabled(SysLogger.CPU, SysLogger.INFO)) {
+          final int tracePc = pc;
+          final Instruction traceInstruction = instruction;
+          SysLogger.writeLog(SysLogger.CPU, SysLogger.INFO, new SysLogger.Message() {
+            public String text() {
+              return "CPU.executeTimeslice: pc: " + addressFormat.toString(tracePc) + ", command: " + traceInstruction;
+            }
+          });
+        }
         
+        instructionCount++;
         if (executeCommand(instruction) == blocked) {
         	
           return blocked; //Wenn der akt. Befehl zur Blockade fuhrt, stoppe den akt. Prozess
         }
         
-      } else { //Falls der PC null zurueckliefert -> run the idle process
+      } else { //Falls der PC auf keinen Befehl zeigt -> run the idle process
     	  
-        try {
-          sleep(20);
-        } catch (InterruptedException ex) {
-          ex.printStackTrace();
-        }
+        // Der Idle-Prozess wartet, bis ein Interrupt vorliegt oder die CPU geweckt wird
+        // (hoechstens idleTimeout ms). Danach ist seine Zeitscheibe vorbei und der
+        // Scheduler waehlt neu.
+        long idleStart = System.nanoTime();
+        interrupts.await(BootLoader.idleTimeout);
+        IDLE_MICROS.record((System.nanoTime() - idleStart) / 1000);
+        handleInterrupts();
+        return blocked + 1;
       }
       
-      // Nachschauen, ob ein Interrupt vorliegt, und ggf. behandeln
-      Event event = io.getNextEvent();
-      if (event != null && event.getType() == Event.read) {
-    	  
-        SysLogger.writeLog(0, "CPU.executeTimeslice: interrupt for event " + event.toString());
-        mmu.setAbsoluteAddress(event.getAddress(), event.getContent());
-        scheduler.unblock(event);
+      // Nachschauen, ob Interrupts vorliegen, und ggf. alle behandeln
+      if (interrupts.hasPending()) {
+        handleInterrupts();
       }
       
     } //for(..
@@ -152,291 +279,320 @@ public class CPU extends Thread {
   }
 
   /**
-   * Holt ein bestimmtes Register aus dem RegisterSet.
-   * @param num Wenn "1", dann gibts auch Register1 zurueck, ansonsten immer Register2
-   * @return das Register
+   * Behandelt alle anliegenden Interrupts, die mit der hoechsten Prioritaet zuerst.
+   * Bei einer Eingabe wird sie an die DMA-Adresse geschrieben und der wartende
+   * Prozess aufgeweckt.
    */
-  private String getRegister(String num) {
-    if (num.equals("1")) {
-      return regSet.getRegister1();
-    } else {
-      return regSet.getRegister2();
+  private void handleInterrupts() {
+    Event event;
+    while ((event = interrupts.poll()) != null) {
+      if (event.getType() == Event.read) {
+    	  
+        SysLogger.writeLog(SysLogger.CPU, SysLogger.INFO, "CPU.executeTimeslice: interrupt for event " + event.toString());
+        mmu.setAbsoluteAddress(event.getAddress(), event.getContent());
+        scheduler.unblock(event);
+      }
     }
   }
 
-  /***
-   * Setzt einen double Wert in ein bestimmtes Register des RegisterSet-Objektes
-   * der CPU.
-   * @param num Wenn "1" dann Register1, ansonsten immer Register2
-   * @param value der Wert als String, der in das Register gesetzt werden soll
+  /**
+   * Fuehrt eine arithmetische Operation (+, -, /, *) mit dem Inhalt zweier
+   * Register aus dem aktuellen RegisterSet aus.
+   * @param num Zielregister: Wenn 1 dann Register1, ansonsten immer Register2
+   * @param op Welche Operation? zulaessig sind die Opcodes ADD, SUB, MUL und DIV
+   * @param sourceNum das Register mit dem zweiten Operanden
    */
-  private void setRegister(String num, double value) {
-    if (value == Math.floor(value)) {
-      setRegister(num, Integer.toString((int) value));
+  private void mathOpRegisters(int num, int op, int sourceNum) {
+    if (regSet.getTag(sourceNum) == RegisterSet.LONG) {
+      long value = regSet.getLong(sourceNum);
+      if (op != Instruction.DIV && regSet.getTag(num) == RegisterSet.LONG && mathOpLong(num, op, value)) {
+        // beide ganzzahlig: ohne den Umweg ueber double, der ab 2^53 Stellen verliert
+        if (SysLogger.isTraceEnabled(SysLogger.ALU, SysLogger.TRACE)) {
+          SysLogger.writeLog(SysLogger.ALU, SysLogger.TRACE, "CPU.mathOpRegisters: register " + num + " = " + regSet.getLong(num));
+        }
+        return;
+      }
+      mathOpRegister(num, op, (double) value);
     } else {
-      setRegister(num, Double.toString(value));
+      mathOpRegister(num, op, regSet.getDouble(sourceNum));
     }
   }
 
-  /***
-   * Setzt einen int Wert in ein bestimmtes Register des RegisterSet-Objektes
-   * der CPU.
-   * @param num Wenn "1" dann Register1, ansonsten immer Register2
-   * @param value der Wert als String, der in das Register gesetzt werden soll
-   */
-  private void setRegister(String num, int value) {
-    setRegister(num, Integer.toString(value));
-  }
-
-  /***
-   * Setzt einen Wert in ein bestimmtes Register des RegisterSet-Objektes
-   * der CPU.
-   * @param num Wenn "1" dann Register1, ansonsten immer Register2
-   * @param value der Wert als String, der in das Register gesetzt werden soll
-   */
-  private void setRegister(String num, String value) {
-    if (num.equals("1")) {
-      regSet.setRegister1(value);
-    } else {
-      regSet.setRegister2(value);
-    } 
-  }
-
-  /**
-   * Fuehrt eine arithmetische Operation (+, -, /, *) mit dem Inhalt eines
-   * Registers aus dem aktuellen RegisterSet und einem dieser Methode uebergebenen Wert aus.
-   * @param num Wenn "1", dann gibts auch Register1 zurueck, ansonsten immer Register2
-   * @param op Welche Operation? zulaessig sind: "add" , "sub" , "mul" und "div"
-   * @param value der zusaetzliche Operand als String
-   */
-  private void mathOpRegister(String num, String op, String value) {
-    mathOpRegister(num, op, Double.parseDouble(value));
-  }
-
   /**
    * Fuehrt eine arithmetische Operation (+, -, /, *) mit dem Inhalt eines
    * Registers aus dem aktuellen RegisterSet und einem dieser Methode uebergebenen Wert aus.
    * Danach wird das entsprechende Register mit dem Ergebnis neu gesetzt.
-   * @param num Wenn "1", dann gibts auch Register1 zurueck, ansonsten immer Register2
-   * @param op Welche Operation? zulaessig sind: "add" , "sub" , "mul" und "div"
+   * <p>
+   * Sind beide Operanden ganzzahlig, wird mit long gerechnet. Nur bei einer
+   * Division oder einem Ueberlauf wird auf double ausgewichen.
+   * </p>
+   * @param num Wenn 1, dann gibts auch Register1 zurueck, ansonsten immer Register2
+   * @param op Welche Operation? zulaessig sind die Opcodes ADD, SUB, MUL und DIV
    * @param value der zusaetzliche Operand in double
    */
-  private void mathOpRegister(String num, String op, double value) {
+  private void mathOpRegister(int num, int op, double value) {
 	  
-    System.out.println("DEBUG: " + num + " " + op + " " + value);
-    double arg1;
+    boolean trace = SysLogger.isTraceEnabled(SysLogger.ALU, SysLogger.TRACE);
+    if (trace) {
+      SysLogger.writeLog(SysLogger.ALU, SysLogger.TRACE, "CPU.mathOpRegister: register " + num + " op " + op + " operand " + value);
+    }
+    long longValue = (long) value;
+    if (op != Instruction.DIV && longValue == value
+        && regSet.getTag(num) == RegisterSet.LONG
+        && mathOpLong(num, op, longValue)) {
+      if (trace) {
+        SysLogger.writeLog(SysLogger.ALU, SysLogger.TRACE, "CPU.mathOpRegister: register " + num + " = " + regSet.getLong(num));
+      }
+      return;
+    }
+    double arg1 = regSet.getDouble(num);
     double arg2 = value;
     double result = 0;
-    arg1 = Double.parseDouble(getRegister(num));
     
-    if (op.equals("add")) {
-      result = arg1 + arg2;
-    } else if (op.equals("sub")) {
-      result = arg1 - arg2;
-    } else if (op.equals("mul")) {
-      result = arg1 * arg2;
-    } else if (op.equals("div")) {
-      result = arg1 / arg2;
+    switch (op) {
+      case Instruction.ADD: result = arg1 + arg2; break;
+      case Instruction.SUB: result = arg1 - arg2; break;
+      case Instruction.MUL: result = arg1 * arg2; break;
+      case Instruction.DIV: result = arg1 / arg2; break;
+    }
+    if (trace) {
+      SysLogger.writeLog(SysLogger.ALU, SysLogger.TRACE, "CPU.mathOpRegister: register " + num + " = " + result);
     }
-    System.out.println("DEBUG: " + num + " " + result);
-    setRegister(num, result);
+    regSet.setDouble(num, result);
   }
 
+  /**
+   * Ganzzahlige Variante von mathOpRegister fuer ADD, SUB und MUL.
+   * @return false, wenn das Ergebnis nicht in einen long passt. Das Register
+   * bleibt dann unveraendert.
+   */
+  private boolean mathOpLong(int num, int op, long value) {
+    long arg1 = regSet.getLong(num);
+    long result;
+    switch (op) {
+      case Instruction.ADD:
+        result = arg1 + value;
+        if (((arg1 ^ result) & (value ^ result)) < 0) {
+          return false;
+        }
+        break;
+      case Instruction.SUB:
+        result = arg1 - value;
+        if (((arg1 ^ value) & (arg1 ^ result)) < 0) {
+          return false;
+        }
+        break;
+      case Instruction.MUL:
+        result = arg1 * value;
+        if (arg1 != 0 && (result / arg1 != value || (arg1 == -1 && value == Long.MIN_VALUE))) {
+          return false;
+        }
+        break;
+      default:
+        return false;
+    }
+    regSet.setLong(num, result);
+    return true;
+  }
+
+  /**
+   * Vergleicht Register1 mit Register2 numerisch (fuer jlt und jgt).
+   * @return kleiner 0, 0 oder groesser 0 wie bei <code>compareTo</code>
+   * @throws NumberFormatException falls ein Register keine Zahl enthaelt
+   */
+  private int compareRegisters() {
+    if (regSet.getTag(1) == RegisterSet.LONG && regSet.getTag(2) == RegisterSet.LONG) {
+      long a = regSet.getLong(1);
+      long b = regSet.getLong(2);
+      return a < b ? -1 : (a == b ? 0 : 1);
+    }
+    double a = regSet.getDouble(1);
+    double b = regSet.getDouble(2);
+    return a < b ? -1 : (a > b ? 1 : 0);
+  }
   
-  public String incVirtualAddress(String virtualAddr) {
-	  
-	  int vAddrLen = virtualAddr.length();
-	  int pageSize = BootLoader.pageSize;
-	  int offsetLen = new Integer(pageSize).toString().length();
-	  
-	  
-	  String offsetStr = virtualAddr.substring(vAddrLen - offsetLen); //pageSizeStellenAnz entspricht der maximalen Laenge des Offsets
-	  int offset = new Integer(offsetStr);
-	  
-	  String pageNrStr = virtualAddr.substring(0, vAddrLen - offsetLen);
-	  
-	  int pageNr = new Integer(pageNrStr);
-	  
-	 if(offset < pageSize-1) {
-		 offset++;
-	 }
-	 else {
-		 offset = 0;
-		 pageNr++;
-	 }
-	 
-	 return new Integer(pageNr).toString().concat(new Integer(offset).toString());
-	 
-	  
+  /**
+   * Liefert die virtuelle Adresse der naechsten Speicherzelle.
+   * @param virtualAddr die aktuelle virtuelle Adresse
+   * @return die virtuelle Adresse der naechsten Speicherzelle
+   * @see VirtualAddressFormat#increment(int)
+   */
+  public int incVirtualAddress(int virtualAddr) {
 	  
+	  return this.addressFormat.increment(virtualAddr);
   }
   
   
   
   /**
-   * Erzeugt eine virtuelle Adresse als String, die auf die angegebene Befehlnummer verweist.
-   * Die Adresse passt sich dynamisch an der Seitengroesze und dem Adressraum eines
-   * jeden Prozesses an.
-   * @return Die neue virtuelle Adresse
+   * Liefert die virtuelle Adresse, auf die der Adressoperand (Befehlnummer) des
+   * Befehls verweist.
+   * Die Adresse wird nur beim ersten Ausfuehren des Befehls berechnet und dann
+   * im dekodierten Befehl gemerkt.
+   * @param instruction der dekodierte Befehl mit dem Adressoperanden
+   * @return Die virtuelle Adresse
+   * @see VirtualAddressFormat#fromCommandNr(int)
    */
-  private String jumpToCommand(int commandNr) {
+  private int jumpToCommand(Instruction instruction) {
 	  
-	  int offsetLen = new Integer(BootLoader.pageSize).toString().length();
-	  int pageNrLen = new Integer(BootLoader.addressSpace).toString().length();
-	  
-	  String virtualAddr = "";
-	  for(int i = 0; i < offsetLen + pageNrLen; i++) {
-		  virtualAddr = virtualAddr + "0";
-	  }
-	  
-	  
-	  for(int i = 0; i < commandNr; i++) {
-		  virtualAddr = this.incVirtualAddress(virtualAddr);
+	  int target = instruction.target;
+	  if (target == Instruction.UNRESOLVED) {
+		  target = this.addressFormat.fromCommandNr(instruction.commandNr);
+		  instruction.target = target;
 	  }
-	 
-	  return virtualAddr;
+	  return target;
   }
   
   /**
    * Fuehrt eine Instruktion aus, die man dieser Methode als Parameter uebergibt.
    * Hier werden alle Befehle, die im InstructionSet auftauchen, realisiert.
+   * Der Befehl liegt bereits dekodiert vor, verzweigt wird ueber seinen Opcode.
    * 
-   * @param instruction der Befehl, der von der CPU ausgefuehrt werden soll.
+   * @param instruction der dekodierte Befehl, der von der CPU ausgefuehrt werden soll.
    * @return blocked ( = 0 ) wenn der aktuelle Prozess blockiert werden soll (einige
    * Befehle erfordern dies) oder 1 (blocked + 1) wenn der aktuelle Prozess nicht
    * blockiert werden soll.
    * @throws BootLoader.ShutdownException Falls der Befehl "quit" ausgefuehrt werden soll oder
    * ein nicht existierender Befehl der Methode uebergeben wird
+   * <p>
+   * Oeffentlich, damit die Benchmarks und Tests einzelne Befehle ausfuehren koennen.
+   * </p>
    */
-  private int executeCommand(String instruction) throws BootLoader.ShutdownException {
+  public int executeCommand(Instruction instruction) throws BootLoader.ShutdownException {
 	  
     regSet.setProgramCounter(this.incVirtualAddress(regSet.getProgramCounter()));
-    String[] cmd = instruction.split("\\s+");
-    if (cmd.length > 0) {
+    
+    switch (instruction.opcode) {
       //--------- Arithmetik ----------
-      // inc
-      if (cmd[0].equals("inc")) {
-        mathOpRegister(cmd[1], "add", 1);
+      case Instruction.INC:
+        mathOpRegister(instruction.register, Instruction.ADD, 1);
+        break;
         
-      } else if (cmd[0].equals("dec")) {
-        mathOpRegister(cmd[1], "sub", 1);
+      case Instruction.DEC:
+        mathOpRegister(instruction.register, Instruction.SUB, 1);
+        break;
         
-      } else if (cmd[0].equals("add") || cmd[0].equals("sub") || cmd[0].equals("mul") || cmd[0].equals("div")) {
-          if (cmd[2].startsWith("#")) {
-            mathOpRegister(cmd[1], cmd[0], cmd[2].substring(1)); //der letze String ist eine Konstante
-          
-          } else {
-            mathOpRegister(cmd[1], cmd[0], getRegister(cmd[2])); //der letze String ist eine Speicheradresse
-          }
-      } else if (cmd[0].equals("rand")) {
-          int lb = Integer.parseInt(cmd[1]);
-          int ub = Integer.parseInt(cmd[2]);
-          int r = lb + random.nextInt(ub - lb + 1);
-          setRegister("1", r);
+      case Instruction.ADD:
+      case Instruction.SUB:
+      case Instruction.MUL:
+      case Instruction.DIV:
+        if (instruction.immediate) {
+          mathOpRegister(instruction.register, instruction.opcode, instruction.value); //der letze Operand ist eine Konstante
+        } else {
+          mathOpRegisters(instruction.register, instruction.opcode, instruction.sourceRegister); //der letze Operand ist ein Register
+        }
+        break;
+        
+      case Instruction.RAND:
+        int lb = instruction.lowerBound;
+        int ub = instruction.upperBound;
+        int r = lb + random.nextInt(ub - lb + 1);
+        regSet.setLong(1, r);
+        break;
 
       //--------- Register, Speicher ----------
-      } else if (cmd[0].equals("store")) {
+      case Instruction.STORE:
         try {
-          if (cmd[1].startsWith("#")) {
-            mmu.setMemoryCell(this.jumpToCommand(new Integer(cmd[2])), cmd[1].substring(1));
+          if (instruction.immediate) {
+            mmu.setMemoryCell(this.jumpToCommand(instruction), instruction.text);
           } else {
-            mmu.setMemoryCell(this.jumpToCommand(new Integer(cmd[2])), getRegister(cmd[1]));
+            mmu.setMemoryCell(this.jumpToCommand(instruction), regSet.getString(instruction.register));
           }
         } catch (MMU.AccessViolation ex) {
           io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
           scheduler.endProcess();
           return blocked;
         }
+        break;
 
-      } else if (cmd[0].equals("load")) {
-        if (cmd[2].startsWith("#")) {
-          setRegister(cmd[1], cmd[2].substring(1));
+      case Instruction.LOAD:
+        if (instruction.immediate) {
+          regSet.setString(instruction.register, instruction.text);
         } else {
           try {
-            setRegister(cmd[1], mmu.getMemoryCell(this.jumpToCommand(new Integer(cmd[2]))));
+            regSet.setString(instruction.register, mmu.getMemoryCell(this.jumpToCommand(instruction)));
           } catch (MMU.AccessViolation ex) {
             io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
             scheduler.endProcess();
             return blocked;
           }
         }
-
-        
+        break;
         
       //--------- Spruenge ----------
-      } else if (cmd[0].equals("jmp")) {
-    	  regSet.setProgramCounter(this.jumpToCommand(new Integer(cmd[1])));
+      case Instruction.JMP:
+        regSet.setProgramCounter(this.jumpToCommand(instruction));
+        break;
 
-      } else if (cmd[0].equals("jeq")) {
-        if (getRegister("1").equals(getRegister("2"))) {
-        	regSet.setProgramCounter(this.jumpToCommand(new Integer(cmd[1])));
+      case Instruction.JEQ:
+        if (regSet.registersEqual()) {
+          regSet.setProgramCounter(this.jumpToCommand(instruction));
         }
+        break;
 
-      } else if (cmd[0].equals("jne")) {
-        if (!getRegister("1").equals(getRegister("2"))) {
-        	regSet.setProgramCounter(this.jumpToCommand(new Integer(cmd[1])));
+      case Instruction.JNE:
+        if (!regSet.registersEqual()) {
+          regSet.setProgramCounter(this.jumpToCommand(instruction));
         }
+        break;
 
-      } else if (cmd[0].equals("jlt")) {
-        if (Double.parseDouble(getRegister("1")) < Double.parseDouble(getRegister("2"))) {
-        	regSet.setProgramCounter(this.jumpToCommand(new Integer(cmd[1])));
+      case Instruction.JLT:
+        if (compareRegisters() < 0) {
+          regSet.setProgramCounter(this.jumpToCommand(instruction));
         }
+        break;
 
-      } else if (cmd[0].equals("jgt")) {
-        if (Double.parseDouble(getRegister("1")) > Double.parseDouble(getRegister("2"))) {
-        	regSet.setProgramCounter(this.jumpToCommand(new Integer(cmd[1])));
+      case Instruction.JGT:
+        if (compareRegisters() > 0) {
+          regSet.setProgramCounter(this.jumpToCommand(instruction));
         }
+        break;
 
       //--------- Systemaufrufe für Prozesssteuerung ----------
-      } else if (cmd[0].equals("create_process")) {
+      case Instruction.CREATE_PROCESS:
         String address;
-        if (cmd[1].startsWith("[")) {
-          // create_process [<address>]
-          // Indirekte Adressierung
-          cmd[1] = cmd[1].substring(1, cmd[1].length() - 1);
-          try {
-            String indAddress = mmu.getMemoryCell(this.jumpToCommand(new Integer(cmd[1])));
+        try {
+          if (instruction.indirect) {
+            // create_process [<address>]
+            // Indirekte Adressierung
+            String indAddress = mmu.getMemoryCell(this.jumpToCommand(instruction));
             address = mmu.getMemoryCell(indAddress);
-          } catch (MMU.AccessViolation ex) {
-            io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
-            scheduler.endProcess();
-            return blocked;
-          }
-        } else {
-          try {
+          } else {
             // create_process <address>
             // Die Adresse gibt die Speicherzelle an, in der der Dateiname steht
-            address = mmu.getMemoryCell(this.jumpToCommand(new Integer(cmd[1])));
-          } catch (MMU.AccessViolation ex) {
-            io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
-            scheduler.endProcess();
-            return blocked;
+            address = mmu.getMemoryCell(this.jumpToCommand(instruction));
           }
+        } catch (MMU.AccessViolation ex) {
+          io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
+          scheduler.endProcess();
+          return blocked;
         }
         int pid = processManager.createProcess(address);
-        setRegister("1", pid);  // Schreibt die PID des laufenden Prozesses in das angegebene Register
-      
+        regSet.setLong(1, pid);  // Schreibt die PID des laufenden Prozesses in das angegebene Register
+        break;
 
-      } else if (cmd[0].equals("get_pid")) {
-        setRegister(cmd[1], scheduler.getRunningPid());
+      case Instruction.GET_PID:
+        regSet.setLong(instruction.register, scheduler.getRunningPid());
+        break;
+        
       // wait <pid>
-
-      } else if (cmd[0].equals("wait")) {
+      case Instruction.WAIT:
         // Ein wait-Event mit der id PID wird erstellt.
         Event event;
-        if (cmd[1].startsWith("#")) {
-          event = new Event(Event.wait, Integer.parseInt(cmd[1].substring(1)));
+        if (instruction.immediate) {
+          event = new Event(Event.wait, (int) instruction.value);
         } else {
-          event = new Event(Event.wait, Integer.parseInt(getRegister(cmd[1])));
+          event = new Event(Event.wait, (int) regSet.getLong(instruction.register));
+        }
+        // Der Aufrufer wird blockiert, ausser der Prozess ist schon beendet:
+        // dann wuerde ihn niemand wieder wecken
+        if (!scheduler.waitFor(event)) {
+          break;
         }
-        // Der Aufrufer wird blockiert
-        scheduler.block(event);
         return blocked; // Etwas hölzern. Eine Execption wäre wohl ganz angebracht.
-//      } else if( cmd[0].equals("kill") ) {
-      //TBD
+        
       // quit
-
-      } else if (cmd[0].equals("quit")) {
+      case Instruction.QUIT:
         if (scheduler.getRunningPid() == 1) {
           // Der init-Prozess endet. Das System wird heruntergefahren
           throw new BootLoader.ShutdownException();
@@ -446,63 +602,71 @@ public class CPU extends Thread {
 
       //--------- Systemaufrufe für Ein/Ausgabe ----------
       // create_console
-      } else if (cmd[0].equals("create_console")) {
+      case Instruction.CREATE_CONSOLE:
         if (regSet.getConsole() != null) {
           // Der Prozess hatte schon eine Konsole
           regSet.getConsole().decRefcount();
         }
         regSet.setConsole(io.createConsole("Prozess " + scheduler.getRunningPid()));
+        break;
 
-      } else if (cmd[0].equals("read")) {
+      case Instruction.READ:
         // read <DMA address>
         // Die Adresse gibt an, wohin die empfangene Eingabe geschrieben wird.
-        Event event;
+        Event readEvent;
         try {
           
-          event = new Event(Event.read, scheduler.getRunningPid(), mmu.resolveAddress(this.jumpToCommand(new Integer(cmd[1]))));
+          readEvent = new Event(Event.read, scheduler.getRunningPid(), mmu.resolveAddress(this.jumpToCommand(instruction)));
           
         } catch (MMU.AccessViolation ex) {
             io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
             scheduler.endProcess();
             return blocked;
         }
-        event.setConsole(regSet.getConsole());
+        readEvent.setConsole(regSet.getConsole());
         
-        io.read(event);    // Der Gerätetreiber wird informiert
+        // Erst blockieren, dann den Treiber informieren. Sonst koennte eine andere
+        // CPU die Eingabe melden, bevor der Prozess in der Blockliste steht.
+        scheduler.block(readEvent);  // Der Aufrufer wird blockiert
         
-        scheduler.block(event);  // Der Aufrufer wird blockiert
+        io.read(readEvent, interrupts);    // Der Gerätetreiber wird informiert
         return blocked; // Etwas hölzern. Eine Execption wäre wohl ganz angebracht.
-      // read_console <DMA address>
+        
       // write
+      case Instruction.WRITE_REG:
+        io.write(regSet.getConsole(), regSet.getString(instruction.register));
+        break;
 
-      } else if (cmd[0].equals("write_reg")) {
-        io.write(regSet.getConsole(), getRegister(cmd[1]));
-
-      } else if (cmd[0].equals("write_mem")) {
+      case Instruction.WRITE_MEM:
         try {
-          io.write(regSet.getConsole(), mmu.getMemoryCell(cmd[1]));
+          io.write(regSet.getConsole(), mmu.getMemoryCell(instruction.text));
         } catch (MMU.AccessViolation ex) {
           io.write(regSet.getConsole(), "\nACCESS VIOLATION\n");
           scheduler.endProcess();
           return blocked;
         }
+        break;
 
-      } else if (cmd[0].equals("write_val")) {
-        io.write(regSet.getConsole(), cmd[1].replaceAll("\\u005c0020", " ")); // Geht "\u0020" auch anders?
+      case Instruction.WRITE_VAL:
+        io.write(regSet.getConsole(), instruction.text);
+        break;
 
-      } else if (cmd[0].equals("write_nl")) {
+      case Instruction.WRITE_NL:
         io.writeln(regSet.getConsole());
+        break;
+        
+      case Instruction.NOP:
+        break;
 
       //--------- Ungueltige Instruktion ----------
-      } else {
-        SysLogger.writeLog(0, "CPU.executeCommand: Syntax Error");
+      default:
+        SysLogger.writeLog(SysLogger.CPU, SysLogger.INFO, "CPU.executeCommand: Syntax Error");
         if (scheduler.getRunningPid() == 1) {
           // Der init-Prozess endet. Das System wird heruntergefahren
           throw new BootLoader.ShutdownException();
         }
         scheduler.endProcess();
         return blocked;
-      }
     }
     return blocked + 1;
   }
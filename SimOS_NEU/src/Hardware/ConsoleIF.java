@@ -0,0 +1,40 @@
+package Hardware;
+
+/**
+ * <b>Aufgabe:</b> Eine Konsole, ueber die der User mit einem Prozess kommuniziert.
+ * <p>
+ * Konsolen werden von {@link IO#createConsole(String)} erzeugt und im RegisterSet des
+ * Prozesses gemerkt. Kindprozesse erben die Konsole ihres Vaters, deshalb zaehlt die
+ * Konsole mit, wie viele Prozesse sie benutzen. Eingaben meldet die Konsole mit
+ * <code>IO.receiveReadContent</code>.
+ * </p>
+ * <p>
+ * {@link SysConsole} ist ein Swing-Fenster, {@link StreamConsole} schreibt ohne Bildschirm
+ * in eine Datei oder auf die Standardausgabe.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public interface ConsoleIF {
+
+  /**
+   * Schreibt eine Nachricht auf die Konsole.
+   */
+  public void write( String message );
+
+  public int getId();
+
+  public void incRefCount();
+
+  public void decRefcount();
+
+  /**
+   * @return true, wenn kein Prozess mehr die Konsole benutzt.
+   */
+  public boolean zeroRefCount();
+
+  /**
+   * Schlieszt die Konsole. Danach darf nicht mehr auf sie geschrieben werden.
+   */
+  public void dispose();
+}
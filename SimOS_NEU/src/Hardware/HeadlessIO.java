@@ -0,0 +1,199 @@
+package Hardware;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import MainBoot.SysLogger;
+import Scheduler.Event;
+
+/**
+ * <b>Aufgabe:</b> Ein-/Ausgabe ohne Bildschirm, z.B. fuer Build-Server und Stapellaeufe.
+ * <p>
+ * Jede Konsole ist eine {@link StreamConsole}. Ist ein Verzeichnis angegeben, schreibt jede
+ * Konsole gepuffert in ihre eigene Datei <code>console-&lt;id&gt;.txt</code>, sonst schreiben
+ * alle Konsolen gemeinsam auf die Standardausgabe. Es gibt kein Fenster und keinen
+ * Event-Dispatch-Thread, ein <code>write_val</code> kostet nur noch das Kopieren in den Puffer.
+ * </p>
+ * <p>
+ * Eingaben kommen aus einem Skript (Datei oder Standardeingabe). Jede Zeile ist eine Eingabe
+ * der Form <code>&lt;Konsolen-id&gt;:&lt;Text&gt;</code>, Zeilen ohne id gehen an Konsole 1
+ * (die erste Konsole, normalerweise die des init-Prozesses). Die Eingaben fuer eine Konsole
+ * werden der Reihe nach den read-Befehlen auf dieser Konsole zugestellt. Liest gerade kein
+ * Prozess, wird die Eingabe aufgehoben, bis der naechste read-Befehl kommt.
+ * </p>
+ * <p>
+ * Fuer Stapellaeufe lassen sich die Eingaben auch einem Prozess statt einer Konsole
+ * zuordnen ({@link #setProcessInput(int, String[])}), der Prozess braucht dann nicht
+ * einmal eine Konsole.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class HeadlessIO extends IO {
+
+  private final File outputDir;                                   //null = Standardausgabe
+  private final Writer stdout;
+  private final ArrayList<StreamConsole> consoles;
+  private final HashMap<Integer, ArrayDeque<String>> pendingInput;  //Konsolen-id -> Eingaben
+  private final HashMap<Integer, String[]> processInput;           //pid -> Eingaben
+  private final HashMap<Integer, Integer> processInputPos;         //pid -> naechste Eingabe
+
+  /**
+   * @param outputDir Verzeichnis fuer die Ausgabedateien der Konsolen, wird bei Bedarf
+   * angelegt. Bei null gehen alle Ausgaben auf die Standardausgabe.
+   * @throws IOException falls das Verzeichnis nicht angelegt werden kann
+   */
+  public HeadlessIO( File outputDir ) throws IOException {
+    if( outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs() ) {
+      throw new IOException( "cannot create " + outputDir );
+    }
+    this.outputDir = outputDir;
+    this.stdout = new BufferedWriter( new OutputStreamWriter(System.out) );
+    this.consoles = new ArrayList<StreamConsole>();
+    this.pendingInput = new HashMap<Integer, ArrayDeque<String>>();
+    this.processInput = new HashMap<Integer, String[]>();
+    this.processInputPos = new HashMap<Integer, Integer>();
+  }
+
+  /**
+   * Erzeugt eine Konsole, die in ihre Datei (oder auf die Standardausgabe) schreibt.
+   * Laesst sich die Datei nicht anlegen, geht die Ausgabe auf die Standardausgabe.
+   */
+  protected synchronized ConsoleIF newConsole( int id, String title ) {
+    StreamConsole console = null;
+    if( outputDir != null ) {
+      File file = new File( outputDir, "console-" + id + ".txt" );
+      try {
+        console = new StreamConsole( id, title, new BufferedWriter(new FileWriter(file)), true );
+      } catch( IOException e ) {
+        SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "HeadlessIO.newConsole: " + e + ", writing to stdout" );
+      }
+    }
+    if( console == null ) {
+      console = new StreamConsole( id, title, stdout, false );
+    }
+    consoles.add( console );
+    return console;
+  }
+
+  /**
+   * Meldet den read-Befehl an und stellt sofort eine schon vorhandene Eingabe zu.
+   * Eingaben fuer den Prozess gehen vor Eingaben fuer seine Konsole.
+   */
+  public synchronized void read( Event event, InterruptController target ) {
+    super.read( event, target );
+    String[] inputs = processInput.get( event.getID() );
+    if( inputs != null ) {
+      int pos = processInputPos.get( event.getID() );
+      processInputPos.put( event.getID(), (pos + 1) % inputs.length );
+      complete( event, inputs[pos] );
+    } else if( event.getConsole() != null ) {
+      deliver( event.getConsole().getId() );
+    }
+  }
+
+  /**
+   * Legt die Eingaben fuer einen Prozess fest. Jeder read-Befehl des Prozesses bekommt
+   * sofort die naechste Eingabe, nach der letzten geht es wieder mit der ersten los.
+   * Ein Prozess im Stapellauf wartet also nie auf Eingaben.
+   * @param pid der Prozess
+   * @param inputs die Eingaben, mindestens eine
+   */
+  public synchronized void setProcessInput( int pid, String[] inputs ) {
+    processInput.put( pid, inputs.clone() );
+    processInputPos.put( pid, 0 );
+  }
+
+  /**
+   * Nimmt eine Zeile aus dem Eingabeskript an.
+   * @param line <code>&lt;Konsolen-id&gt;:&lt;Text&gt;</code> oder nur der Text fuer Konsole 1
+   */
+  public synchronized void addInput( String line ) {
+    int consoleId = 1;
+    String text = line;
+    int colon = line.indexOf( ':' );
+    if( colon > 0 && isNumber(line.substring(0, colon)) ) {
+      consoleId = Integer.parseInt( line.substring(0, colon) );
+      text = line.substring( colon + 1 );
+    }
+    ArrayDeque<String> queue = pendingInput.get( consoleId );
+    if( queue == null ) {
+      queue = new ArrayDeque<String>();
+      pendingInput.put( consoleId, queue );
+    }
+    queue.add( text );
+    deliver( consoleId );
+  }
+
+  /**
+   * Liest das ganze Eingabeskript ein, z.B. aus einer Datei.
+   */
+  public void readInput( Reader in ) throws IOException {
+    BufferedReader reader = new BufferedReader( in );
+    String line;
+    while( (line = reader.readLine()) != null ) {
+      addInput( line );
+    }
+  }
+
+  /**
+   * Liest das Eingabeskript in einem eigenen Thread, z.B. von der Standardeingabe,
+   * die erst nach und nach Zeilen liefert.
+   */
+  public void readInputAsync( final Reader in ) {
+    Thread reader = new Thread( "console-input" ) {
+      public void run() {
+        try {
+          readInput( in );
+        } catch( IOException e ) {
+          SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "HeadlessIO: input stopped, " + e );
+        }
+      }
+    };
+    reader.setDaemon( true );
+    reader.start();
+  }
+
+  /**
+   * Stellt die aufgehobenen Eingaben zu, solange ein Prozess auf der Konsole liest.
+   */
+  private void deliver( int consoleId ) {
+    ArrayDeque<String> queue = pendingInput.get( consoleId );
+    while( queue != null && !queue.isEmpty() && isReadPending(consoleId) ) {
+      receiveReadContent( consoleId, queue.poll() );
+    }
+  }
+
+  private static boolean isNumber( String s ) {
+    for( int i = 0; i < s.length(); i++ ) {
+      if( !Character.isDigit(s.charAt(i)) ) {
+        return false;
+      }
+    }
+    return s.length() > 0 && s.length() < 10;
+  }
+
+  /**
+   * Schreibt alle Puffer und schlieszt die Konsolen, die noch offen sind.
+   */
+  public synchronized void close() {
+    for( int i = 0; i < consoles.size(); i++ ) {
+      consoles.get(i).dispose();
+    }
+    consoles.clear();
+    try {
+      stdout.flush();
+    } catch( IOException e ) {
+      //die Standardausgabe ist weg, dann eben nicht
+    }
+  }
+}
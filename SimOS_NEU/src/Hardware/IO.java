@@ -14,20 +14,28 @@ import java.util.*;
  * Prozesse koennen auf eine Eingabe in der Konsole warten.
  * In diesem Fall gibt es einen Event vom Typ read in der ReadList.
  * Sobald eine Kommunikation stattfindet, wird das entsprechende Event
- * aus der readList geholt, und als fertig markiert, in der resultQueue
- * verschoben.
+ * aus der readList geholt, als fertig markiert und dem {@link InterruptController}
+ * der CPU gemeldet, die den read-Befehl ausgefuehrt hat.
+ * <p>
+ * Bei mehreren CPUs teilen sich alle CPUs ein IO-Objekt. Die readList wird deshalb
+ * nur in synchronisierten Methoden veraendert.
+ * </p>
+ * <p>
+ * Die Konsolen sind Swing-Fenster ({@link SysConsole}). Fuer Laeufe ohne Bildschirm
+ * ersetzt {@link HeadlessIO} sie durch {@link StreamConsole}s.
+ * </p>
  *
  */
 public class IO {
 	
 	
   ArrayList<Event> readList;
-  ArrayList<Event> resultQueue;
+  ArrayList<InterruptController> readTargets;   //parallel zur readList: wer den Interrupt bekommt
   int consoleId;
   
   public IO() {
     readList = new ArrayList<Event>();
-    resultQueue = new ArrayList<Event>();
+    readTargets = new ArrayList<InterruptController>();
     consoleId = 0;
   }
   
@@ -35,12 +43,21 @@ public class IO {
   /**
    * Erzeugt eine Konsole mit dem angegebenem Titel.
    * @param title der Titel, der in der Leiste angezeigt werden soll.
-   * @return Liefert eine Referenz auf das SysConsole-Objekt zurueck.
+   * @return Liefert eine Referenz auf die Konsole zurueck.
    */
-  public SysConsole createConsole( String title ) {
+  public synchronized ConsoleIF createConsole( String title ) {
     consoleId++;
-    SysLogger.writeLog( 0, "IO.createConsole: new console [id: " + consoleId + ", title: " + title + "]" );
-    SysConsole frame = new SysConsole( this, consoleId, title );
+    SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "IO.createConsole: new console [id: " + consoleId + ", title: " + title + "]" );
+    return newConsole( consoleId, title );
+  }
+  
+  /**
+   * Erzeugt die Konsole fuer <code>createConsole</code>, hier ein Swing-Fenster.
+   * @param id die id der neuen Konsole
+   * @param title der Titel, der in der Leiste angezeigt werden soll.
+   */
+  protected ConsoleIF newConsole( int id, String title ) {
+    SysConsole frame = new SysConsole( this, id, title );
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     frame.setSize( 475, 400 );
     frame.setVisible(true);
@@ -50,10 +67,10 @@ public class IO {
   
   /**
    * Schreibt den text auf eine bestimmte Konsole.
-   * @param console Die SysConsole, auf die der text soll.
+   * @param console Die Konsole, auf die der text soll.
    * @param text der Text, der geschrieben werden soll.
    */
-  public void write( SysConsole console, String text ) {
+  public void write( ConsoleIF console, String text ) {
     console.write( text );
   }
   
@@ -61,7 +78,7 @@ public class IO {
    * Schreibt einen Zeilenumbruch auf die Konsole.
    * @param console Die Konsole
    */
-  public void writeln( SysConsole console ) {
+  public void writeln( ConsoleIF console ) {
     console.write( "\n" );
   }
   
@@ -71,11 +88,13 @@ public class IO {
    * ein Event erzeugt und dann diese Methode mit dem Event aufgerufen.
    * 
    * @param event das Event.
+   * @param target der Interrupt-Controller, dem die Eingabe gemeldet wird
    */
   
-  public void read( Event event ) {
-    SysLogger.writeLog( 0, "IO.read: adding event to read queue " + event.toString() );
+  public synchronized void read( Event event, InterruptController target ) {
+    SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "IO.read: adding event to read queue " + event.toString() );
     readList.add( event );
+    readTargets.add( target );
   }
   
   
@@ -86,52 +105,71 @@ public class IO {
    * <p>
    * Da die Eingabe zum Event, das zuletzt erzeugt wurde und auf der selben Konsole ist,
    * gehoeren muss, wird unter allen Events fuer dieselbe Konsole das juengste ausgewaehlt.
-   * Diesem ausgewaehlten Event wird der Text entsprechend gesetzt und dann aus der readList in
-   * die resultQueue eingetragen.
+   * Diesem ausgewaehlten Event wird der Text entsprechend gesetzt, dann wird es aus der
+   * readList genommen und als Interrupt gemeldet.
    * </p>
    * @param consoleId die Konsolen ID von der Konsole auf der die Eingabe erfolgt ist
    * @param text
    */
-  public void receiveReadContent( int consoleId, String text ) {
-    SysLogger.writeLog( 0, "IO.receiveReadContent: received: '" + text + "' from console " + consoleId );
-    Event event = null;
+  public synchronized void receiveReadContent( int consoleId, String text ) {
+    SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "IO.receiveReadContent: received: '" + text + "' from console " + consoleId );
     // Die empfangene Zeichenfolge wird in ein zugehöriges Event eingetragen.
     // Unter allen Events für dieselbe Konsole wird das jüngste ausgewählt.
     for( int i = readList.size()-1; i >= 0;  i-- ) {
-    	
-      if( readList.get(i).getConsole().getId() == consoleId ) {
-	    event = readList.remove(i);
-	    break;
+      ConsoleIF console = readList.get(i).getConsole();
+      //reads ohne Konsole bekommen ihre Eingabe nur ueber complete(Event, String)
+      if( console != null && console.getId() == consoleId ) {
+        complete( i, text );
+        break;
       }
     }
-    if( event != null ) {
-      event.setContent( text );
-      SysLogger.writeLog( 0, "IO.receiveReadContent: adding event to result queue " + event.toString() );
-      resultQueue.add( event );
+  }
+  
+  /**
+   * Beendet einen bestimmten read-Befehl mit der Eingabe, unabhaengig von der Konsole.
+   * @param event das Event des read-Befehls
+   * @param text die Eingabe
+   * @return false, wenn das Event nicht (mehr) in der readList steht
+   */
+  synchronized boolean complete( Event event, String text ) {
+    for( int i = 0; i < readList.size(); i++ ) {
+      if( readList.get(i) == event ) {
+        complete( i, text );
+        return true;
+      }
     }
+    return false;
   }
   
+  /**
+   * Nimmt das Event aus der readList, setzt die Eingabe und meldet es als Interrupt.
+   */
+  private void complete( int index, String text ) {
+    Event event = readList.remove( index );
+    InterruptController target = readTargets.remove( index );
+    event.setContent( text );
+    SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "IO.complete: posting interrupt for event " + event.toString() );
+    target.post( InterruptController.NORMAL, event );
+  }
   
   /**
-   * Holt das naechste Event aus der resultQueue.
-   * 
-   * Die resultQueue enthaelt alle Events vom typ read die abgearbeitet wurden.
-   * Das heiszt bei diesen Events, wurde schon die entprechende Eingabe in der Konsole
-   * getaetigt.
-   * <p>
-   * Z.B. Wenn die CPU von einem Prozess den read-Befehl abarbeitet, wird dieser
-   * Prozess blockiert.
-   * read bedeutet das der Prozess auf eine Eingabe in der Konsole wartet.
-   * Es wird ein Event vom Typ read erzeugt und in der readList gespeichert.
-   * Wenn nun der User in der Konsole die entsprechende Eingabe macht, wird das
-   * Event aus der readList geholt, der Eingabetext im Event gesetzt und das Event in
-   * die resultQueue hinverschoben.
-   * </p>
-   * @return das naechste Event aus der resultQueue.
+   * Prueft, ob ein Prozess auf eine Eingabe von der Konsole wartet.
    */
-  public Event getNextEvent() {
-    return resultQueue.size() > 0 ? resultQueue.remove(0) : null;
+  synchronized boolean isReadPending( int consoleId ) {
+    for( int i = 0; i < readList.size(); i++ ) {
+      ConsoleIF console = readList.get(i).getConsole();
+      if( console != null && console.getId() == consoleId ) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Wird beim Herunterfahren aufgerufen. Die Swing-Konsolen bleiben offen,
+   * damit der User die Ausgaben noch lesen kann.
+   */
+  public void close() {
   }
   
 }
-
@@ -0,0 +1,325 @@
+package Hardware;
+
+/**
+ * <b>Aufgabe:</b> Repraesentiert einen vordekodierten Befehl aus dem InstructionSet.
+ * <p>
+ * Eine Speicherzelle wird beim ersten Ausfuehren einmalig dekodiert, d.H. der
+ * Befehlstext wird in einen int-Opcode und seine Operanden zerlegt. Die CPU muss
+ * dadurch pro Befehl weder den String zerlegen noch den Befehlsnamen vergleichen,
+ * sondern verzweigt direkt ueber den Opcode.
+ * </p>
+ * <p>
+ * Der dekodierte Befehl liegt im Hauptspeicher parallel zur Speicherzelle. Wird die
+ * Speicherzelle ueberschrieben (z.B. durch <code>store</code>) oder ihre Seite
+ * verdraengt, wird auch der dekodierte Befehl verworfen und erst beim naechsten
+ * Ausfuehren neu dekodiert. Ausgelagerte Seiten belegen so keinen Platz auf dem Heap.
+ * Den Befehlstext merkt sich der Befehl nicht, {@link #toString()} setzt ihn aus den
+ * Operanden wieder zusammen.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class Instruction {
+
+  /* Opcodes */
+  public static final int INVALID = 0;
+  public static final int INC = 1;
+  public static final int DEC = 2;
+  public static final int ADD = 3;
+  public static final int SUB = 4;
+  public static final int MUL = 5;
+  public static final int DIV = 6;
+  public static final int RAND = 7;
+  public static final int STORE = 8;
+  public static final int LOAD = 9;
+  public static final int JMP = 10;
+  public static final int JEQ = 11;
+  public static final int JNE = 12;
+  public static final int JLT = 13;
+  public static final int JGT = 14;
+  public static final int CREATE_PROCESS = 15;
+  public static final int GET_PID = 16;
+  public static final int WAIT = 17;
+  public static final int QUIT = 18;
+  public static final int CREATE_CONSOLE = 19;
+  public static final int READ = 20;
+  public static final int WRITE_REG = 21;
+  public static final int WRITE_MEM = 22;
+  public static final int WRITE_VAL = 23;
+  public static final int WRITE_NL = 24;
+  public static final int NOP = 25;       //Zeile ohne Befehl, z.B. nur Leerzeichen
+
+  /**
+   * Markiert ein noch nicht berechnetes Sprungziel.
+   */
+  static final int UNRESOLVED = -1;
+
+  /**
+   * Die Befehlsnamen, Index ist der Opcode.
+   */
+  private static final String[] NAMES = { "invalid", "inc", "dec", "add", "sub", "mul", "div", "rand",
+    "store", "load", "jmp", "jeq", "jne", "jlt", "jgt", "create_process", "get_pid", "wait", "quit",
+    "create_console", "read", "write_reg", "write_mem", "write_val", "write_nl", "nop" };
+
+  final int opcode;
+  int register;           //Zielregister (1|2)
+  int sourceRegister;     //Quellregister (1|2), falls der 2. Operand ein Register ist
+  boolean immediate;      //true, wenn der Operand eine Konstante (#<value>) ist
+  boolean indirect;       //true bei indirekter Adressierung: create_process [<address>]
+  String text;            //Konstante als String, z.B. bei load, store, write_val
+  double value;           //Konstante als double, bei add, sub, mul, div und wait
+  int commandNr;          //Adressoperand als Befehlsnummer
+  int target = UNRESOLVED; //virtuelle Adresse zu commandNr, wird beim ersten Ausfuehren berechnet
+  int lowerBound;         //Grenzen fuer rand
+  int upperBound;
+
+  private Instruction( int opcode ) {
+    this.opcode = opcode;
+  }
+
+  /**
+   * Dekodiert eine Zeile Programmtext.
+   * <p>
+   * Die Methode wirft keine Exception: Unbekannte Befehle, fehlende Operanden
+   * oder Operanden, die keine Zahl sind, ergeben einen Befehl mit dem Opcode
+   * <code>INVALID</code>. Das gilt auch fuer Datenzellen, die nie ausgefuehrt werden.
+   * </p>
+   * @param line die Zeile aus dem Hauptspeicher, darf auch null sein
+   * @return der dekodierte Befehl
+   */
+  public static Instruction decode( String line ) {
+    if( line == null ) {
+      return new Instruction( INVALID );
+    }
+    String[] cmd = line.split("\\s+");
+    if( cmd.length == 0 ) {
+      return new Instruction( NOP );
+    }
+    try {
+      return decode( cmd );
+    } catch( NumberFormatException e ) {
+      return new Instruction( INVALID );
+    } catch( ArrayIndexOutOfBoundsException e ) {
+      return new Instruction( INVALID );
+    }
+  }
+
+  private static Instruction decode( String[] cmd ) {
+    Instruction instr = new Instruction( opcodeOf(cmd[0]) );
+
+    switch( instr.opcode ) {
+      case INC:
+      case DEC:
+      case GET_PID:
+      case WRITE_REG:
+        instr.register = registerOf( cmd[1] );
+        break;
+
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+        instr.register = registerOf( cmd[1] );
+        if( cmd[2].startsWith("#") ) {
+          instr.immediate = true;
+          instr.value = Double.parseDouble( cmd[2].substring(1) );
+        } else {
+          instr.sourceRegister = registerOf( cmd[2] );
+        }
+        break;
+
+      case RAND:
+        instr.lowerBound = Integer.parseInt( cmd[1] );
+        instr.upperBound = Integer.parseInt( cmd[2] );
+        break;
+
+      case STORE:
+        if( cmd[1].startsWith("#") ) {
+          instr.immediate = true;
+          instr.text = cmd[1].substring(1);
+        } else {
+          instr.register = registerOf( cmd[1] );
+        }
+        instr.commandNr = Integer.parseInt( cmd[2] );
+        break;
+
+      case LOAD:
+        instr.register = registerOf( cmd[1] );
+        if( cmd[2].startsWith("#") ) {
+          instr.immediate = true;
+          instr.text = cmd[2].substring(1);
+        } else {
+          instr.commandNr = Integer.parseInt( cmd[2] );
+        }
+        break;
+
+      case JMP:
+      case JEQ:
+      case JNE:
+      case JLT:
+      case JGT:
+      case READ:
+        instr.commandNr = Integer.parseInt( cmd[1] );
+        break;
+
+      case CREATE_PROCESS:
+        if( cmd[1].startsWith("[") ) {
+          instr.indirect = true;
+          instr.commandNr = Integer.parseInt( cmd[1].substring(1, cmd[1].length() - 1) );
+        } else {
+          instr.commandNr = Integer.parseInt( cmd[1] );
+        }
+        break;
+
+      case WAIT:
+        if( cmd[1].startsWith("#") ) {
+          instr.immediate = true;
+          instr.value = Integer.parseInt( cmd[1].substring(1) );
+        } else {
+          instr.register = registerOf( cmd[1] );
+        }
+        break;
+
+      case WRITE_MEM:
+        instr.text = cmd[1];    //virtuelle Adresse in der Darstellung mit fuehrenden Nullen
+        break;
+
+      case WRITE_VAL:
+        instr.text = cmd[1].replaceAll("\\u005c0020", " "); // Geht "\u0020" auch anders?
+        break;
+
+      default:
+        break;
+    }
+    return instr;
+  }
+
+  /**
+   * Bildet den Befehlsnamen auf seinen Opcode ab.
+   * @param name der Befehlsname aus dem InstructionSet
+   * @return der Opcode oder <code>INVALID</code>
+   */
+  private static int opcodeOf( String name ) {
+    if( name.equals("inc") ) return INC;
+    if( name.equals("dec") ) return DEC;
+    if( name.equals("add") ) return ADD;
+    if( name.equals("sub") ) return SUB;
+    if( name.equals("mul") ) return MUL;
+    if( name.equals("div") ) return DIV;
+    if( name.equals("rand") ) return RAND;
+    if( name.equals("store") ) return STORE;
+    if( name.equals("load") ) return LOAD;
+    if( name.equals("jmp") ) return JMP;
+    if( name.equals("jeq") ) return JEQ;
+    if( name.equals("jne") ) return JNE;
+    if( name.equals("jlt") ) return JLT;
+    if( name.equals("jgt") ) return JGT;
+    if( name.equals("create_process") ) return CREATE_PROCESS;
+    if( name.equals("get_pid") ) return GET_PID;
+    if( name.equals("wait") ) return WAIT;
+    if( name.equals("quit") ) return QUIT;
+    if( name.equals("create_console") ) return CREATE_CONSOLE;
+    if( name.equals("read") ) return READ;
+    if( name.equals("write_reg") ) return WRITE_REG;
+    if( name.equals("write_mem") ) return WRITE_MEM;
+    if( name.equals("write_val") ) return WRITE_VAL;
+    if( name.equals("write_nl") ) return WRITE_NL;
+    return INVALID;
+  }
+
+  /**
+   * Wenn "1", dann Register1, ansonsten immer Register2
+   */
+  private static int registerOf( String num ) {
+    return num.equals("1") ? 1 : 2;
+  }
+
+  /**
+   * @return der Opcode des Befehls
+   */
+  public int getOpcode() {
+    return opcode;
+  }
+
+  /**
+   * @return der Adressoperand als Befehlsnummer, z.B. bei <code>jmp</code> oder <code>create_process</code>
+   */
+  public int getCommandNr() {
+    return commandNr;
+  }
+
+  /**
+   * @return true bei indirekter Adressierung: <code>create_process [&lt;address&gt;]</code>
+   */
+  public boolean isIndirect() {
+    return indirect;
+  }
+
+  /**
+   * @return der Befehlstext, aus Opcode und Operanden zusammengesetzt, fuer das Protokoll.
+   * Ungueltige Befehle heiszen <code>invalid</code>.
+   */
+  public String toString() {
+    StringBuilder text = new StringBuilder( NAMES[opcode] );
+    switch( opcode ) {
+      case INC:
+      case DEC:
+      case GET_PID:
+      case WRITE_REG:
+        text.append( ' ' ).append( register );
+        break;
+
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+        text.append( ' ' ).append( register ).append( ' ' );
+        if( immediate ) {
+          text.append( '#' ).append( value == (long) value ? Long.toString((long) value) : Double.toString(value) );
+        } else {
+          text.append( sourceRegister );
+        }
+        break;
+
+      case RAND:
+        text.append( ' ' ).append( lowerBound ).append( ' ' ).append( upperBound );
+        break;
+
+      case STORE:
+        text.append( ' ' ).append( immediate ? "#" + this.text : Integer.toString(register) );
+        text.append( ' ' ).append( commandNr );
+        break;
+
+      case LOAD:
+        text.append( ' ' ).append( register ).append( ' ' );
+        text.append( immediate ? "#" + this.text : Integer.toString(commandNr) );
+        break;
+
+      case JMP:
+      case JEQ:
+      case JNE:
+      case JLT:
+      case JGT:
+      case READ:
+        text.append( ' ' ).append( commandNr );
+        break;
+
+      case CREATE_PROCESS:
+        text.append( ' ' ).append( indirect ? "[" + commandNr + "]" : Integer.toString(commandNr) );
+        break;
+
+      case WAIT:
+        text.append( ' ' ).append( immediate ? "#" + (long) value : Integer.toString(register) );
+        break;
+
+      case WRITE_MEM:
+      case WRITE_VAL:
+        text.append( ' ' ).append( this.text );
+        break;
+
+      default:
+        break;
+    }
+    return text.toString();
+  }
+}
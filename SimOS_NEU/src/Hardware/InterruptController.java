@@ -0,0 +1,163 @@
+package Hardware;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import Scheduler.Event;
+
+/**
+ * <b>Aufgabe:</b> Interrupt-Controller einer CPU.
+ * <p>
+ * Geraete (z.B. die Ein-/Ausgabe auf dem Swing-Thread) melden abgearbeitete Events mit
+ * {@link #post(int, Event)}, die CPU holt sie zwischen zwei Befehlen ab. Jede Prioritaet
+ * hat ihre eigene Warteschlange, <code>HIGH</code> wird vor <code>NORMAL</code> vor
+ * <code>LOW</code> ausgeliefert, innerhalb einer Prioritaet in der Reihenfolge der Meldung.
+ * </p>
+ * <p>
+ * Die Warteschlangen sind sperrfrei mit vielen Erzeugern und genau einem Verbraucher
+ * (multi-producer single-consumer): Melden kostet ein <code>getAndSet</code>, Abholen
+ * nur gewoehnliche Lese- und Schreibzugriffe. Abholen darf deshalb nur der Thread der CPU.
+ * Ob etwas anliegt, verraet {@link #hasPending()} mit einem einzigen Lesezugriff, die
+ * CPU kann das nach jedem Befehl fragen.
+ * </p>
+ * <p>
+ * Eine CPU ohne Arbeit wartet mit {@link #await(long)}, bis etwas gemeldet wird oder
+ * jemand sie mit {@link #wakeUp()} weckt.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class InterruptController {
+
+  public static final int HIGH = 0;
+  public static final int NORMAL = 1;
+  public static final int LOW = 2;
+  public static final int LEVELS = 3;
+
+  private final MPSCQueue[] queues = new MPSCQueue[LEVELS];
+  private final AtomicInteger pending = new AtomicInteger();   //gemeldet, aber noch nicht abgeholt
+  private final AtomicBoolean wakeUpPending = new AtomicBoolean(); //geweckt, aber await() noch nicht zurueckgekehrt
+  private volatile Thread waiter;                              //der in await() wartende Thread
+
+  public InterruptController() {
+    for( int i = 0; i < LEVELS; i++ ) {
+      queues[i] = new MPSCQueue();
+    }
+  }
+
+  /**
+   * Meldet einen Interrupt. Darf von jedem Thread aufgerufen werden.
+   * @param priority <code>HIGH</code>, <code>NORMAL</code> oder <code>LOW</code>
+   * @param event das abgearbeitete Event
+   */
+  public void post( int priority, Event event ) {
+    queues[priority].offer( event );
+    pending.incrementAndGet();
+    unparkWaiter();         //kein Weckruf noetig, await() sieht den Interrupt an pending
+  }
+
+  /**
+   * Weckt die CPU, falls sie in {@link #await(long)} wartet, ohne einen Interrupt zu
+   * melden. Wartet sie gerade nicht, kehrt ihr naechstes <code>await</code> sofort zurueck.
+   */
+  public void wakeUp() {
+    wakeUpPending.set( true );
+    unparkWaiter();
+  }
+
+  private void unparkWaiter() {
+    Thread t = waiter;
+    if( t != null ) {
+      LockSupport.unpark( t );
+    }
+  }
+
+  /**
+   * @return true, wenn ein Interrupt gemeldet und noch nicht abgeholt wurde
+   */
+  public boolean hasPending() {
+    return pending.get() != 0;
+  }
+
+  /**
+   * Holt den naechsten Interrupt mit der hoechsten Prioritaet. Nur fuer den Thread der CPU.
+   * <p>
+   * Ein Interrupt, dessen Meldung gerade erst begonnen hat, wird evtl. noch nicht
+   * gefunden. {@link #hasPending()} bleibt dann true, bis er abgeholt ist.
+   * </p>
+   * @return das Event oder null
+   */
+  public Event poll() {
+    for( int i = 0; i < LEVELS; i++ ) {
+      Event event = queues[i].poll();
+      if( event != null ) {
+        pending.decrementAndGet();
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Wartet, bis ein Interrupt anliegt, die CPU geweckt wird oder die Zeit abgelaufen ist.
+   * Nur fuer den Thread der CPU.
+   * @param timeout maximale Wartezeit in Millisekunden
+   */
+  public void await( long timeout ) {
+    waiter = Thread.currentThread();
+    try {
+      //erst nach dem Setzen von waiter pruefen, sonst geht ein Weckruf verloren
+      if( !wakeUpPending.getAndSet(false) && !hasPending() ) {
+        LockSupport.parkNanos( this, timeout * 1000000L );
+      }
+    } finally {
+      waiter = null;
+    }
+  }
+
+  /**
+   * Sperrfreie Warteschlange fuer viele Erzeuger und einen Verbraucher. Die Erzeuger
+   * haengen ihren Knoten mit einem <code>getAndSet</code> auf <code>head</code> an und
+   * verketten ihn danach mit dem Vorgaenger. Der Verbraucher laeuft von
+   * <code>tail</code> (einem Platzhalterknoten) ueber die <code>next</code>-Zeiger.
+   */
+  private static final class MPSCQueue {
+
+    private final AtomicReference<Node> head;   //zuletzt angehaengter Knoten
+    private Node tail;                          //Platzhalter vor dem naechsten Element
+
+    MPSCQueue() {
+      Node stub = new Node( null );
+      head = new AtomicReference<Node>( stub );
+      tail = stub;
+    }
+
+    void offer( Event event ) {
+      Node node = new Node( event );
+      Node prev = head.getAndSet( node );
+      prev.next = node;
+    }
+
+    Event poll() {
+      Node next = tail.next;
+      if( next == null ) {
+        return null;
+      }
+      Event event = next.event;
+      next.event = null;     //next ist jetzt der Platzhalter
+      tail = next;
+      return event;
+    }
+  }
+
+  private static final class Node {
+    Event event;
+    volatile Node next;
+
+    Node( Event event ) {
+      this.event = event;
+    }
+  }
+}
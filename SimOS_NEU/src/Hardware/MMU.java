@@ -3,10 +3,15 @@
 package Hardware;
 
 import java.util.ArrayList;
+import java.util.concurrent.locks.Lock;
 
+import MainBoot.BootLoader;
+import MainBoot.Metrics;
+import MainBoot.StripedCounter;
 import MainBoot.SysLogger;
 import MemoryManagement.MemoryManager;
 import MemoryManagement.PageTableEntry;
+import MemoryManagement.ReferenceTrace;
 
 /**
  * <b>Aufgabe:</b> Uebernimmt die Umwandlung der virtuellen Adresse in die physische.
@@ -26,12 +31,19 @@ import MemoryManagement.PageTableEntry;
  */
 public class MMU {
 	
+  /* Metriken, gemeinsam fuer alle MMUs */
+  private static final StripedCounter TRANSLATIONS = Metrics.counter("mmu", "translations");
+  private static final StripedCounter FAULTS = Metrics.counter("mmu", "faults");
+	
   private MainMemory memory;		//Hauptspeicher
   private RegisterSet regSet;		//Das Registerset, wird von der CPU gesetzt
-  private int offsetLength;	        //Stellenanzahl der Seitengroesze zb Seitengroesze: 5, stellenAnz: 1
   private int pageSize;				//Groesze einer Seite
-  private int addrSpace;			//Groesze des virtuellen Adressraumes in Anzahl der Seiten
+  private VirtualAddressFormat addressFormat; //Aufbau der virtuellen Adressen
   private MemoryManager manager;	//Hauptspeicher-Verwalter-Objekt
+  private TLB tlb;					//Translation Lookaside Buffer
+  private ReferenceTrace.Writer trace;	//zeichnet die Seitenzugriffe auf, null = aus
+  private Lock readLock;			//Zugriffssperre des MemoryManagers, siehe MemoryManager#getAccessLock()
+  private Lock writeLock;
 
   
   
@@ -48,14 +60,62 @@ public class MMU {
   
   /**
    * Bei der Erzeugung der MMU wird der Hauptspeicher mit angegeben.
+   * Der TLB bekommt die Groesze aus dem BootLoader.
    * @param memory der Hauptspeicher.
    */
   public MMU( MainMemory memory, MemoryManager m ) {
+    this( memory, m, new TLB(BootLoader.tlbSize, BootLoader.tlbWays) );
+  }
+  
+  
+  
+  /**
+   * Erzeugt die MMU mit einem eigenen TLB. Der TLB wird beim MemoryManager
+   * angemeldet, damit dieser verdraengte Seiten aus dem TLB entfernen kann.
+   * @param memory der Hauptspeicher.
+   * @param m der MemoryManager
+   * @param tlb der TLB dieser MMU
+   */
+  public MMU( MainMemory memory, MemoryManager m, TLB tlb ) {
     this.memory = memory;
     this.pageSize = m.getPageSize();
-    this.offsetLength = new Integer(pageSize).toString().length();
-    this.addrSpace = m.getAddressSpaceSize();
+    this.addressFormat = new VirtualAddressFormat(pageSize, m.getAddressSpaceSize());
     this.manager = m;
+    this.tlb = tlb;
+    this.readLock = m.getAccessLock().readLock();
+    this.writeLock = m.getAccessLock().writeLock();
+    m.registerTLB(tlb);
+  }
+  
+  
+  
+  /**
+   * Liefert den TLB der MMU, z.B. um die Trefferquote auszulesen.
+   * @return der TLB
+   */
+  public TLB getTLB() {
+    return tlb;
+  }
+  
+  
+  
+  /**
+   * Schaltet die Aufzeichnung aller Seitenzugriffe ein (oder mit null aus).
+   * Die Aufzeichnung kann mit dem {@link MemoryManagement.TraceSimulator} ausgewertet werden.
+   * @param trace der Writer, das Schlieszen bleibt Sache des Aufrufers
+   */
+  public void setReferenceTrace( ReferenceTrace.Writer trace ) {
+    this.trace = trace;
+  }
+  
+  
+  
+  /**
+   * Liefert den Aufbau der virtuellen Adressen, den diese MMU erwartet.
+   * @return das Adressformat
+   */
+  public VirtualAddressFormat getAddressFormat() {
+    return addressFormat;
   }
   
   
@@ -84,9 +144,47 @@ public class MMU {
    * @throws AccessViolation wird geworfen wenn Die Adresse ungueltig ist. 
    * zb. Es wird auserhalb des Adressraumes zugegriffen
    */
-  public String getMemoryCell( String virtualAddr ) throws AccessViolation {
+  public String getMemoryCell( int virtualAddr ) throws AccessViolation {
 	    
-	  return this.memory.getContent( this.resolveAddress(virtualAddr) );
+	  int realAddr = this.lockAndResolve(virtualAddr, false);
+	  try {
+		  return this.memory.getContent( realAddr );
+	  } finally {
+		  this.readLock.unlock();
+	  }
+  }
+  
+  
+  
+  /**
+   * Wie {@link #getMemoryCell(int)}, nur mit der virtuellen Adresse in der
+   * String-Darstellung, z.B. wenn die Adresse als Text im Speicher steht.
+   */
+  public String getMemoryCell( String virtualAddr ) throws AccessViolation {
+	  
+	  return this.getMemoryCell( this.trimVirtualAddr(virtualAddr) );
+  }
+  
+  
+  
+  
+  /**
+   * Holt den dekodierten Befehl anhand der uebergebenen virtuellen Adresse.
+   * Die Adressumwandlung laeuft genauso wie bei {@link #getMemoryCell(int)},
+   * nur wird statt des Befehlstextes der vordekodierte Befehl aus dem
+   * Hauptspeicher geliefert.
+   * @param virtualAddr Die virtuelle/logische Adresse fuer den Befehl
+   * @return Gibt den angeforderten Befehl dekodiert zurueck.
+   * @throws AccessViolation wird geworfen wenn Die Adresse ungueltig ist.
+   */
+  public Instruction getInstruction( int virtualAddr ) throws AccessViolation {
+	  
+	  int realAddr = this.lockAndResolve(virtualAddr, false);
+	  try {
+		  return this.memory.getInstruction( realAddr );
+	  } finally {
+		  this.readLock.unlock();
+	  }
   }
   
 
@@ -103,14 +201,31 @@ public class MMU {
    * geladen. 
    * <br/>
    * Bei der Adressumwandlung kann es sein, das es zu einem Seitenfehler kommt.
+   * Ein bereits dekodierter Befehl in der Speicherzelle wird verworfen.
    * @param virtualAddr Die virtuelle/logische Adresse fuer den Befehl
    * @param value Der Wert als String
    * @throws AccessViolation wird geworfen wenn Die Adresse ungueltig ist. 
    * zb. Es wird auserhalb des Adressraumes zugegriffen
    */
+  public void setMemoryCell( int virtualAddr, String value ) throws AccessViolation {
+	  
+	  int realAddr = this.lockAndResolve(virtualAddr, true);
+	  try {
+		  this.memory.setContent( realAddr, value );
+	  } finally {
+		  this.readLock.unlock();
+	  }
+  }
+  
+  
+  
+  /**
+   * Wie {@link #setMemoryCell(int, String)}, nur mit der virtuellen Adresse in der
+   * String-Darstellung.
+   */
   public void setMemoryCell( String virtualAddr, String value ) throws AccessViolation {
 	  
-	  this.memory.setContent(this.resolveAddress(virtualAddr), value);
+	  this.setMemoryCell( this.trimVirtualAddr(virtualAddr), value );
   }
 
 
@@ -125,12 +240,22 @@ public class MMU {
    * Die Methode erwartet eine reale, physikalische Adresse. Und es wird
    * ohne Zugriffsschutz auf den Hauptspeicher geschrieben!
    * </p>
+   * Die Seite, die in dem Rahmen liegt, wird als veraendert markiert.
    * 
    * @param address die physikalische Adresse.
    * @param value Der Wert als String der gesetzt werden soll
    */
   public void setAbsoluteAddress( int realAddr, String value ) {
-    memory.setContent( realAddr, value );
+    readLock.lock();
+    try {
+      memory.setContent( realAddr, value );
+      PageTableEntry owner = manager.getFrameOwner( realAddr / pageSize );
+      if( owner != null ) {
+        owner.setModified(true);
+      }
+    } finally {
+      readLock.unlock();
+    }
   }
   
   
@@ -141,49 +266,155 @@ public class MMU {
    * Wandelt die uebergebene virtuelle Adresse um in die physikalsche Adresse.
    * <p>
    * <ol>
-   * <li>Die virtuelle Adresse wird aufgespalten in Seitennummer und Offset</li>
-   * <li>Mit Hilfe der SeitentabellenAdresse im RegisterSet wird die Seitentabelle geholt</li>
+   * <li>Die virtuelle Adresse wird aufgespalten in Seitennummer und Offset (Shift und Maske)</li>
+   * <li>Mit Hilfe der SeitentabellenAdresse im RegisterSet und der Seitennummer wird
+   * 	der Seitentabelleneintrag im TLB gesucht, bei einem Fehlschlag in der Seitentabelle</li>
    * <li>
    * 	Die Rahmennummer wird
    * 	<ul>
-   * 		<li>entweder mithilfe der Seitentabelle</li>
+   * 		<li>entweder mithilfe des Seitentabelleneintrages</li>
    * 		<li>oder durch einen Seitenfehler ermittelt</li>
    * 	</ul>
    * </li>
    * <li>Rahmennummer und Offset ergeben dann die pysikalische Adresse</li>
    * </ol>
    * </p>
+   * <p>
+   * Bei mehreren CPUs kann die Seite gleich danach von einer anderen CPU verdraengt
+   * werden. Die Methoden dieser Klasse, die auf den Hauptspeicher zugreifen, halten
+   * deshalb die Lesesperre ueber Umwandlung und Zugriff hinweg.
+   * </p>
    * @param virtualAddr Die virtuelle Adresse, die in die physikalische umgewandelt werden soll
    * @return die physikalische Adresse
    * @throws AccessViolation wird geworfen wenn Die Adresse ungueltig ist. 
    * zb. Es wird auserhalb des Adressraumes zugegriffen
    */
-  public int resolveAddress( String virtualAddr ) throws AccessViolation {
+  public int resolveAddress( int virtualAddr ) throws AccessViolation {
+	  
+	  int realAddr = this.lockAndResolve( virtualAddr, false );
+	  this.readLock.unlock();
+	  return realAddr;
+  }
+  
+  
+  
+  /**
+   * Wie {@link #resolveAddress(int)}. Bei einem Schreibzugriff wird die Seite
+   * zusaetzlich als veraendert (modified) markiert.
+   * <p>
+   * Die Umwandlung laeuft unter der Lesesperre. Ist die Seite nicht im Hauptspeicher,
+   * wird die Lesesperre freigegeben, der Seitenfehler unter der Schreibsperre behandelt
+   * und die Umwandlung wiederholt.
+   * </p>
+   * @return die physikalische Adresse. Die Lesesperre ist dann gesetzt und muss vom
+   * Aufrufer nach dem Zugriff freigegeben werden.
+   */
+  private int lockAndResolve( int virtualAddr, boolean write ) throws AccessViolation {
+	  
+	  if( ! this.addressFormat.isValid(virtualAddr) ) {
+		  SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, "MMU: AccessViolation! virtual address-> "+ this.addressFormat.toString(virtualAddr) + " does not exist.");
+		  throw new AccessViolation();
+	  }
 	  
-	  int[] array = this.trimVirtualAddr(virtualAddr);
+	  int pageNr = this.addressFormat.getPageNr(virtualAddr);
+	  int offset = this.addressFormat.getOffset(virtualAddr);
+	  boolean fault = false;
+	  TRANSLATIONS.increment();
+	  
+	  while( true ) {
+		  this.readLock.lock();
+		  int realAddr;
+		  try {
+			  realAddr = this.translate(pageNr, offset, write, fault);
+		  } catch( RuntimeException e ) {
+			  this.readLock.unlock();
+			  throw e;
+		  }
+		  if( realAddr != -1 ) {
+			  return realAddr;
+		  }
+		  this.readLock.unlock();
+		  
+		  this.writeLock.lock();
+		  try {
+			  this.pageFault(virtualAddr, pageNr);
+			  fault = true;
+		  } finally {
+			  this.writeLock.unlock();
+		  }
+	  }
+  }
+  
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer lockAndResolve(), unter der Schreibsperre.</i></p>
+   * Laedt die Seite, falls sie nicht inzwischen schon (z.B. von einer anderen CPU)
+   * geladen wurde.
+   */
+  private void pageFault( int virtualAddr, int pageNr ) {
+	  
+	  int pageTableAddr = this.regSet.getPageTableAddr();
+	  PageTableEntry entry = this.manager.getPageTable(pageTableAddr).get(pageNr);
+	  if( -1 == entry.getFrameNr() ) {
+		  FAULTS.increment();
+		  SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, "MMU.resolveAddress: Pagefault by virtual Address: " + this.addressFormat.toString(virtualAddr));
+		  this.manager.pageFault(pageNr, entry, this.regSet.getAllocateTableAddr(), pageTableAddr);
+	  }
+  }
+  
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer lockAndResolve(), unter der Lesesperre.</i></p>
+   * @return die physikalische Adresse oder -1, wenn die Seite nicht im Hauptspeicher ist
+   */
+  private int translate( int pageNr, int offset, boolean write, boolean fault ) {
 	  
-	  int pageNr = array[0];
-	  int offset = array[1];
-	 
 	  int pageTableAddr = this.regSet.getPageTableAddr();	//Im RegisterSet steht die Adresse der Seitentabelle
-	  ArrayList<PageTableEntry> table =						//Hole die Seitentabelle des laufenden Prozesses 
-		  this.manager.getPageTable(pageTableAddr);
-	  
-	  PageTableEntry entry = table.get(pageNr);
-	  table.get(pageNr).setReferenced(true);				//markiere die Seite als referenziert, Wichtig fuer Seitenersetzung!
-	  int frameNr = entry.getFrameNr();			            //Hole Rahmennummer aus der Seitentabelle
-	  if(-1 == frameNr) {									//->pageFault, falls RahmenNr nicht in Seitentabelle
-		  													//dann liefert pageFault die RahmenNr
+	  
+	  PageTableEntry entry = this.tlb.lookup(pageTableAddr, pageNr); //Schneller Weg: Eintrag steht im TLB
+	  int frameNr;
+	  
+	  if(entry != null) {
+		  
+		  frameNr = entry.getFrameNr();						//Seiten im TLB sind immer im Hauptspeicher
+		  
+	  } else {
 		  
-		  SysLogger.writeLog( 0, "MMU.resolveAddress: Pagefault by virtual Address: " + virtualAddr);
-		  frameNr = this.manager.pageFault(pageNr, entry, this.regSet.getAllocateTableAddr(), pageTableAddr);
+		  ArrayList<PageTableEntry> table =					//Hole die Seitentabelle des laufenden Prozesses 
+			  this.manager.getPageTable(pageTableAddr);
 		  
+		  entry = table.get(pageNr);
+		  frameNr = entry.getFrameNr();			            //Hole Rahmennummer aus der Seitentabelle
+		  if(-1 == frameNr) {								//->pageFault, falls RahmenNr nicht in Seitentabelle
+			  return -1;
+		  }
+		  this.tlb.insert(pageTableAddr, pageNr, entry);
 	  }
 	  
+	  //Den Zugriff, der den Seitenfehler ausgeloest hat, kennt die Seitenersetzung schon
+	  //durch insert. Er ist keine Wiederverwendung, sonst verlieren ARC und CLOCK-Pro
+	  //ihren Schutz gegen einmalige Durchlaeufe.
+	  if( !fault ) {
+		  entry.setReferenced(true);						//markiere die Seite als referenziert, Wichtig fuer Seitenersetzung!
+	  }
+	  if( write ) {
+		  entry.setModified(true);							//..und bei Schreibzugriffen als veraendert
+	  }
+	  if( this.trace != null ) {
+		  this.trace.record(pageTableAddr, pageNr, write, fault);
+	  }
 	  
-	  table.get(pageNr).setReferenced(true);				//markiere die Seite als referenziert, Wichtig fuer Seitenersetzung!
-	  
-	  SysLogger.writeLog( 0, "MMU.resolveAddress: RahmenNr: " + frameNr + " Offset: " + offset + "\n");
+	  if( SysLogger.isTraceEnabled(SysLogger.MMU, SysLogger.INFO) ) {
+		  final int traceFrameNr = frameNr;
+		  final int traceOffset = offset;
+		  SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, new SysLogger.Message() {
+			  public String text() {
+				  return "MMU.resolveAddress: RahmenNr: " + traceFrameNr + " Offset: " + traceOffset + "\n";
+			  }
+		  });
+	  }
 	  
 	  int realAddr = frameNr * this.pageSize + offset;
 	  
@@ -191,6 +422,17 @@ public class MMU {
   }
   
   
+  
+  /**
+   * Wie {@link #resolveAddress(int)}, nur mit der virtuellen Adresse in der
+   * String-Darstellung.
+   */
+  public int resolveAddress( String virtualAddr ) throws AccessViolation {
+	  
+	  return this.resolveAddress( this.trimVirtualAddr(virtualAddr) );
+  }
+  
+  
 
 
   
@@ -198,43 +440,31 @@ public class MMU {
 
   /**
    * Teilt die String-Repraesentation der virtuellen Addresse auf in
-   * Integer Seitennummer und Integer Offset.
+   * Seitennummer und Offset und liefert die virtuelle Adresse als int.
    * <br/>
    * Dabei wird auch geprueft, ob die virtuelle Addresse gueltig ist.
    * 
    * <p>
-   * <b>Achtung!</b> In der virtuellen Adresse muessen alle Stellen vorhanden sein oder
-   * mit 0 aufgefuellt werden, damit dieser Algorithmus korrekt terminiert.
-   * Wenn z.B. auf die 1. Seite in einem Adressraum der Groesze von 100 Seiten zugegriffen
-   * werden soll, so muss als Seitennummer in der virtuellen Adresse eine 001 angegeben werden.
-   * Das gleiche gilt auch fuer das Offset.
+   * <b>Achtung!</b> In der virtuellen Adresse muessen alle Stellen des Offsets vorhanden
+   * sein oder mit 0 aufgefuellt werden, damit dieser Algorithmus korrekt terminiert.
+   * Wenn z.B. auf Offset 1 einer Seite der Groesze 10 zugegriffen werden soll, so muss
+   * als Offset in der virtuellen Adresse eine 01 angegeben werden.
    * </p>
    * @param virtualAddr Die virtuelle Adresse als String
-   * @return Ein int[], wobei Index 0 auf die Seitennummer und Index 1 auf das Offset zeigt.
+   * @return Die virtuelle Adresse als int
    * @throws AccessViolation Falls die virtuelle Adresse ungueltig ist.
+   * @see VirtualAddressFormat#parse(String)
    */
-  private int[] trimVirtualAddr(String virtualAddr) throws AccessViolation {
+  private int trimVirtualAddr(String virtualAddr) throws AccessViolation {
 	  
-      int vAddrLen = virtualAddr.length();
+	  int addr = this.addressFormat.parse(virtualAddr);
 	  
-	  String offsetStr = virtualAddr.substring(vAddrLen - this.offsetLength); //offsetLength entspricht der maximalen Laenge des Offsets
-	  int offset = new Integer(offsetStr);
-	  
-	  
-	  int pageNr;
-	  
-	  if (vAddrLen - this.offsetLength == 0) {
-		  pageNr = 0;
-	  } else {
-		  pageNr = new Integer(virtualAddr.substring(0, vAddrLen - this.offsetLength));  
-	  }
-	  
-	  if(offset >= this.pageSize || pageNr >= this.addrSpace) {
-		  SysLogger.writeLog( 0, "MMU: AccessViolation! virtual address-> "+ virtualAddr + " does not exist.");
+	  if(addr == -1) {
+		  SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, "MMU: AccessViolation! virtual address-> "+ virtualAddr + " does not exist.");
 		  throw new AccessViolation();
 	  }
 	  
-	  return new int[]{pageNr, offset};
+	  return addr;
   }
   
   
@@ -245,9 +475,12 @@ public class MMU {
    * werden soll
    */
   public void dumpMemory( int limit ) {
-    SysLogger.writeLog( 1, "MMU.dumpMemory" );
+    if( !SysLogger.isTraceEnabled(SysLogger.MMU, SysLogger.DEBUG) ) {
+      return;
+    }
+    SysLogger.writeLog( SysLogger.MMU, SysLogger.DEBUG, "MMU.dumpMemory" );
     for( int i = 0; i < limit; i++ ) {
-      SysLogger.writeLog( 1, i + ": " + memory.getContent(i) );
+      SysLogger.writeLog( SysLogger.MMU, SysLogger.DEBUG, i + ": " + memory.getContent(i) );
     }
   }
 
@@ -1,43 +1,176 @@
 
 
 package Hardware;
-import java.util.ArrayList;
+
+import java.util.Arrays;
+
+import MainBoot.BootLoader;
 
 
 
 /**
- * 
+ * Der Hauptspeicher, aufgeteilt in Seitenrahmen.
+ * <p>
+ * Jeder Rahmen ist ein eigenes Array mit <code>pageSize</code> Zellen. Es gibt also kein
+ * einzelnes grosses Array, und ein Rahmen wird erst angelegt, wenn zum ersten Mal eine
+ * Seite in ihn geladen wird. Die physikalische Adresse einer Zelle ist
+ * <code>frameNr * pageSize + offset</code>.
+ * </p>
+ * <p>
+ * Welche Rahmen frei sind, verwaltet der MemoryManager. Der Hauptspeicher selbst
+ * unterscheidet nicht zwischen einem freien Rahmen und einem, der leere Zellen enthaelt.
+ * </p>
  * @author Johann Mantler, Hoang Anh Duong
  *
  */
 public class MainMemory {
 	  
-	  private ArrayList<String> memory = new ArrayList<String>();  
+	  private String[][] frames;
 	  
-	  private int size;
+	  /**
+	   * Dekodierte Befehle, parallel zu den Speicherzellen.
+	   * Ein Eintrag null bedeutet, dass die Zelle noch nicht (oder nach einem
+	   * Schreibzugriff nicht mehr) dekodiert vorliegt.
+	   */
+	  private Instruction[][] decoded;
+	  
+	  private int pageSize;
+	  private int frameCount;
+	  
+	  /**
+	   * Erzeugt das Hauptspeicher - Objekt mit der angegebenen Anzahl Rahmen.
+	   * @param frameCount Anzahl der Seitenrahmen
+	   * @param pageSize Groesze eines Rahmens (= Seitengroesze)
+	   */
+	  public MainMemory( int frameCount, int pageSize ) {
+	    this.frameCount = frameCount;
+	    this.pageSize = pageSize;
+	    this.frames = new String[frameCount][];
+	    this.decoded = new Instruction[frameCount][];
+	  }
 	  
 	  /**
 	   * Erzeugt das Hauptspeicher - Objekt mit der angegebenen Groesze.
-	   * @param size
+	   * Die Rahmengroesze ist die Seitengroesze aus dem BootLoader.
+	   * @param size Anzahl der Speicherzellen
 	   */
 	  public MainMemory( int size ) {
-	    this.size = size;
-	    for( int i = 0; i < size; i++ ) {
-	      memory.add( "" );
-	    }
+	    this( size / BootLoader.pageSize, BootLoader.pageSize );
 	  }
 	  
 	  public String getContent( int address ){
-	    return memory.get(address);
-	    
+	    String[] frame = frames[address / pageSize];
+	    return frame == null ? "" : frame[address % pageSize];
 	  }
 	  
+	  /**
+	   * Setzt den Inhalt einer Speicherzelle. Ein evtl. vorhandener
+	   * dekodierter Befehl dieser Zelle wird dabei verworfen.
+	   */
 	  public void setContent( int address, String value ){
-	    memory.set( address, value );
+	    setContent( address, value, null );
+	  }
+	  
+	  /**
+	   * Setzt den Inhalt einer Speicherzelle zusammen mit dem bereits
+	   * dekodierten Befehl.
+	   * @param address die physikalische Adresse
+	   * @param value der Inhalt als String
+	   * @param instruction der dekodierte Inhalt oder null
+	   */
+	  public void setContent( int address, String value, Instruction instruction ){
+	    int frameNr = address / pageSize;
+	    frame( frameNr )[address % pageSize] = value;
+	    decoded[frameNr][address % pageSize] = instruction;
+	  }
+	  
+	  /**
+	   * Liefert den dekodierten Befehl einer Speicherzelle. Liegt die Zelle
+	   * noch nicht dekodiert vor, wird sie jetzt dekodiert und das Ergebnis gemerkt.
+	   * @param address die physikalische Adresse
+	   * @return der dekodierte Befehl
+	   */
+	  public Instruction getInstruction( int address ){
+	    int frameNr = address / pageSize;
+	    int offset = address % pageSize;
+	    String[] frame = frame( frameNr );
+	    Instruction instruction = decoded[frameNr][offset];
+	    if( instruction == null ) {
+	      instruction = Instruction.decode( frame[offset] );
+	      decoded[frameNr][offset] = instruction;
+	    }
+	    return instruction;
+	  }
+	  
+	  /**
+	   * Liefert den dekodierten Befehl einer Speicherzelle, ohne neu zu dekodieren.
+	   * @param address die physikalische Adresse
+	   * @return der dekodierte Befehl oder null
+	   */
+	  public Instruction getDecoded( int address ){
+	    Instruction[] frame = decoded[address / pageSize];
+	    return frame == null ? null : frame[address % pageSize];
 	  }
 	  
+	  /**
+	   * Laedt eine Seite in einen Rahmen.
+	   * @param frameNr die Rahmennummer
+	   * @param content der Inhalt der Seite, <code>pageSize</code> Zellen
+	   * @param instructions die dekodierten Befehle der Seite oder null
+	   */
+	  public void loadFrame( int frameNr, String[] content, Instruction[] instructions ){
+	    System.arraycopy( content, 0, frame(frameNr), 0, pageSize );
+	    if( instructions == null ) {
+	      Arrays.fill( decoded[frameNr], null );
+	    } else {
+	      System.arraycopy( instructions, 0, decoded[frameNr], 0, pageSize );
+	    }
+	  }
+	  
+	  /**
+	   * @return eine Kopie des Inhaltes eines Rahmens
+	   */
+	  public String[] getFrame( int frameNr ){
+	    return frame( frameNr ).clone();
+	  }
+	  
+	  /**
+	   * Setzt alle Zellen eines Rahmens auf "" zurueck.
+	   */
+	  public void clearFrame( int frameNr ){
+	    if( frames[frameNr] != null ) {
+	      Arrays.fill( frames[frameNr], "" );
+	      Arrays.fill( decoded[frameNr], null );
+	    }
+	  }
+	  
+	  /**
+	   * Liefert einen Rahmen und legt ihn beim ersten Zugriff an.
+	   */
+	  private String[] frame( int frameNr ){
+	    String[] frame = frames[frameNr];
+	    if( frame == null ) {
+	      frame = new String[pageSize];
+	      Arrays.fill( frame, "" );
+	      frames[frameNr] = frame;
+	      decoded[frameNr] = new Instruction[pageSize];
+	    }
+	    return frame;
+	  }
+	  
+	  /**
+	   * @return Anzahl der Speicherzellen
+	   */
 	  public int getSize() {
-	    return size;
+	    return frameCount * pageSize;
+	  }
+	  
+	  public int getFrameCount() {
+	    return frameCount;
+	  }
+	  
+	  public int getPageSize() {
+	    return pageSize;
 	  }
 
 	}
@@ -3,13 +3,42 @@ package Hardware;
 import java.util.ArrayList;
 
 
+/**
+ * Die Register eines Prozesses bzw. der CPU.
+ * <p>
+ * Die beiden Datenregister (1 und 2) sind typisiert: Jedes Register hat eine
+ * Kennung (tag), ob es eine Ganzzahl (long), eine Gleitkommazahl (double) oder einen
+ * String (z.B. einen Dateinamen) enthaelt. Gerechnet wird direkt mit den primitiven
+ * Werten, ohne Umweg ueber Strings.
+ * </p>
+ * <p>
+ * Wird ein Register mit Text geladen (<code>load</code>), wird der Text einmal
+ * untersucht: Ist er eine Zahl, wird er als Zahl abgelegt. Der urspruengliche Text
+ * bleibt fuer die Ausgabe erhalten, bis im Register gerechnet wird.
+ * </p>
+ */
 public class RegisterSet {
 	
-    private String programCounter;
-    private String register1;
-    private String register2;
+    /**
+     * Befehlszaehler des Idle-Prozesses: zeigt auf keinen Befehl.
+     */
+    public static final int NO_PROGRAM_COUNTER = -1;
+    
+    /* Kennungen der Datenregister */
+    public static final int EMPTY = 0;
+    public static final int LONG = 1;
+    public static final int DOUBLE = 2;
+    public static final int STRING = 3;
+	
+    private int programCounter; //virtuelle Adresse, siehe VirtualAddressFormat
+    
+    //Datenregister, Index 0 ist Register1, Index 1 ist Register2
+    private int[] tags = new int[2];
+    private long[] longs = new long[2];
+    private double[] doubles = new double[2];
+    private String[] strings = new String[2];   //Text bei STRING, sonst der geladene Text oder null
 
-    private SysConsole console;
+    private ConsoleIF console;
     private ArrayList<String> stack;
     
     //neu:
@@ -27,6 +56,7 @@ public class RegisterSet {
 	/** Creates a new instance of Register */
     public RegisterSet() {
       stack = new ArrayList<String>();
+      programCounter = NO_PROGRAM_COUNTER;
     }
     
     public final int getPageTableAddr() {
@@ -37,35 +67,196 @@ public class RegisterSet {
 		this.pageTableAddr = pageTableAddr;
 	}
 
-	public String getProgramCounter() {
+	public int getProgramCounter() {
         return programCounter;
     }
     
-    public void setProgramCounter(String virtualAddr) {
+    public void setProgramCounter(int virtualAddr) {
         programCounter = virtualAddr;
     }
     
-    public String getRegister1() {
-        return register1;
+    /**
+     * @param num Wenn 1 dann Register1, ansonsten immer Register2
+     * @return die Kennung des Registers: EMPTY, LONG, DOUBLE oder STRING
+     */
+    public int getTag(int num) {
+        return tags[index(num)];
     }
-
-    public void setRegister1(String value) {
-        register1 = value;
+    
+    /**
+     * @return true, wenn das Register eine Zahl (LONG oder DOUBLE) enthaelt
+     */
+    public boolean isNumber(int num) {
+        int tag = tags[index(num)];
+        return tag == LONG || tag == DOUBLE;
     }
-
-    public String getRegister2() {
-        return register2;
+    
+    /**
+     * Liefert den Registerinhalt als long. Ein String wird dazu geparst.
+     * @throws NumberFormatException falls das Register keine Zahl enthaelt
+     */
+    public long getLong(int num) {
+        int i = index(num);
+        switch (tags[i]) {
+          case LONG:   return longs[i];
+          case DOUBLE: return (long) doubles[i];
+          default:     return Long.parseLong(strings[i]);
+        }
+    }
+    
+    /**
+     * Liefert den Registerinhalt als double. Ein String wird dazu geparst.
+     * @throws NumberFormatException falls das Register keine Zahl enthaelt
+     */
+    public double getDouble(int num) {
+        int i = index(num);
+        switch (tags[i]) {
+          case LONG:   return longs[i];
+          case DOUBLE: return doubles[i];
+          default:     return Double.parseDouble(strings[i]);
+        }
+    }
+    
+    /**
+     * Liefert den Registerinhalt als Text, z.B. fuer die Ausgabe oder zum Speichern
+     * im Hauptspeicher. Ganze Zahlen werden ohne Nachkommastellen dargestellt.
+     * @return der Text oder null, wenn das Register leer ist
+     */
+    public String getString(int num) {
+        int i = index(num);
+        if (strings[i] != null) {
+          return strings[i];
+        }
+        switch (tags[i]) {
+          case LONG:   return Long.toString(longs[i]);
+          case DOUBLE: return Double.toString(doubles[i]);
+          default:     return null;
+        }
+    }
+    
+    public void setLong(int num, long value) {
+        int i = index(num);
+        tags[i] = LONG;
+        longs[i] = value;
+        strings[i] = null;
+    }
+    
+    /**
+     * Setzt eine Gleitkommazahl. Ist der Wert ganzzahlig, wird er als LONG abgelegt.
+     */
+    public void setDouble(int num, double value) {
+        long l = (long) value;
+        if (l == value) {
+          setLong(num, l);
+          return;
+        }
+        int i = index(num);
+        tags[i] = DOUBLE;
+        doubles[i] = value;
+        strings[i] = null;
+    }
+    
+    /**
+     * Setzt einen Text, z.B. aus dem Hauptspeicher oder einer Konstanten.
+     * Ist der Text eine Zahl, wird er als LONG bzw. DOUBLE abgelegt, der Text bleibt
+     * fuer {@link #getString(int)} erhalten.
+     */
+    public void setString(int num, String value) {
+        int i = index(num);
+        strings[i] = value;
+        tags[i] = STRING;
+        if (value == null) {
+          tags[i] = EMPTY;
+        } else if (isInteger(value)) {
+          tags[i] = LONG;
+          longs[i] = Long.parseLong(value);
+        } else if (isDecimal(value)) {
+          try {
+            doubles[i] = Double.parseDouble(value);
+            tags[i] = DOUBLE;
+          } catch (NumberFormatException e) {
+            //kein gueltiges Zahlenformat, z.B. "1-2" -> bleibt ein String
+          }
+        }
+    }
+    
+    /**
+     * Vergleicht Register1 mit Register2. Zwei Zahlen werden numerisch verglichen,
+     * ("1" ist also gleich "1.0"), alles andere ueber den Text.
+     * @return true, wenn beide Register gleich sind
+     */
+    public boolean registersEqual() {
+        if (isNumber(1) && isNumber(2)) {
+          if (tags[0] == LONG && tags[1] == LONG) {
+            return longs[0] == longs[1];
+          }
+          return getDouble(1) == getDouble(2);
+        }
+        String s1 = getString(1);
+        String s2 = getString(2);
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+    
+    /**
+     * Kopiert die Datenregister aus einem anderen RegisterSet.
+     * @param other das RegisterSet, aus dem kopiert wird
+     */
+    public void copyRegisters(RegisterSet other) {
+        for (int i = 0; i < 2; i++) {
+          tags[i] = other.tags[i];
+          longs[i] = other.longs[i];
+          doubles[i] = other.doubles[i];
+          strings[i] = other.strings[i];
+        }
+    }
+    
+    /**
+     * Wenn 1 dann Register1, ansonsten immer Register2
+     */
+    private static int index(int num) {
+        return num == 1 ? 0 : 1;
+    }
+    
+    /**
+     * Ganze Zahl mit hoechstens 18 Stellen, damit sie sicher in einen long passt.
+     */
+    private static boolean isInteger(String s) {
+        int len = s.length();
+        int start = (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) ? 1 : 0;
+        if (len == start || len - start > 18) {
+          return false;
+        }
+        for (int i = start; i < len; i++) {
+          char c = s.charAt(i);
+          if (c < '0' || c > '9') {
+            return false;
+          }
+        }
+        return true;
+    }
+    
+    /**
+     * Grobe Vorpruefung, damit Double.parseDouble nicht fuer jeden Dateinamen
+     * eine Exception wirft.
+     */
+    private static boolean isDecimal(String s) {
+        boolean digit = false;
+        for (int i = 0; i < s.length(); i++) {
+          char c = s.charAt(i);
+          if (c >= '0' && c <= '9') {
+            digit = true;
+          } else if (c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+            return false;
+          }
+        }
+        return digit;
     }
 
-    public void setRegister2(String value) {
-        register2 = value;
-    }    
-
-    public SysConsole getConsole() {
+    public ConsoleIF getConsole() {
       return console;
     }
     
-    public void setConsole( SysConsole console ) {
+    public void setConsole( ConsoleIF console ) {
       this.console = console;
     }
     
@@ -0,0 +1,116 @@
+package Hardware;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Konsole ohne Bildschirm, die alle Ausgaben in einen Writer schreibt.
+ * <p>
+ * Die Ausgaben werden gepuffert und erst bei {@link #flush()} oder {@link #dispose()}
+ * geschrieben. Eingaben kommen nicht von der Konsole selbst, sondern werden von
+ * {@link HeadlessIO} zugestellt.
+ * </p>
+ * <p>
+ * Mehrere Prozesse (Vater und Kinder) und damit mehrere CPUs koennen auf dieselbe Konsole
+ * schreiben, <code>write</code> ist deshalb synchronisiert.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class StreamConsole implements ConsoleIF {
+
+  private final int id;
+  private final String title;
+  private final Writer out;
+  private final boolean closeOnDispose;   //false, wenn sich mehrere Konsolen den Writer teilen
+  private int refCount;
+  private boolean disposed;
+
+  /**
+   * @param id die id, die diese Konsole identifiziert
+   * @param title der Titel, nur fuer das Protokoll
+   * @param out hierhin gehen die Ausgaben, sollte gepuffert sein
+   * @param closeOnDispose true, wenn <code>dispose</code> den Writer schlieszen soll,
+   * sonst wird er nur geleert.
+   */
+  public StreamConsole( int id, String title, Writer out, boolean closeOnDispose ) {
+    this.id = id;
+    this.title = title;
+    this.out = out;
+    this.closeOnDispose = closeOnDispose;
+    this.refCount = 1;
+  }
+
+  public synchronized void write( String message ) {
+    if( disposed ) {
+      return;
+    }
+    try {
+      out.write( message );
+    } catch( IOException e ) {
+      SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "StreamConsole.write: console " + id + ": " + e );
+    }
+  }
+
+  /**
+   * Schreibt die gepufferten Ausgaben.
+   */
+  public synchronized void flush() {
+    if( disposed ) {
+      return;
+    }
+    try {
+      out.flush();
+    } catch( IOException e ) {
+      SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "StreamConsole.flush: console " + id + ": " + e );
+    }
+  }
+
+  public synchronized void dispose() {
+    if( disposed ) {
+      return;
+    }
+    try {
+      if( closeOnDispose ) {
+        out.close();
+      } else {
+        out.flush();
+      }
+    } catch( IOException e ) {
+      SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "StreamConsole.dispose: console " + id + ": " + e );
+    }
+    disposed = true;
+  }
+
+  public synchronized boolean isDisposed() {
+    return disposed;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public synchronized void incRefCount() {
+    refCount++;
+  }
+
+  public synchronized void decRefcount() {
+    if( refCount > 0 ) {
+      refCount--;
+    }
+  }
+
+  public synchronized boolean zeroRefCount() {
+    return refCount == 0;
+  }
+
+  public String toString() {
+    return "[StreamConsole id: " + id + ", title: " + title + "]";
+  }
+}
@@ -1,25 +1,42 @@
 package Hardware;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import java.awt.event.*;
 import java.awt.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * Repraesentiert eine Konsole. Jeder Prozess hat in seinem
  * RegisterSet eine Konsole, ueber die der User mit dem Prozess
  * kommunizieren kann.
+ * Diese Konsole ist ein Swing-Fenster, ohne Bildschirm gibt es {@link StreamConsole}.
+ * <p>
+ * Die CPU schreibt nicht direkt in das Textfeld: <code>write</code> sammelt die Ausgaben
+ * nur in einem Puffer. Ein Swing-Timer uebertraegt den Puffer hoechstens alle
+ * <code>FRAME_INTERVAL</code> ms auf einmal in das Textfeld, und zwar im Event-Dispatch-Thread.
+ * Das Textfeld behaelt hoechstens <code>MAX_CHARS</code> Zeichen, aeltere Ausgaben
+ * werden vorne abgeschnitten.
+ * </p>
  */
 @SuppressWarnings("serial")
-public class SysConsole extends JFrame {
+public class SysConsole extends JFrame implements ConsoleIF {
+	
+  static final int FRAME_INTERVAL = 40;     //ms zwischen zwei Aktualisierungen, also hoechstens 25 pro Sekunde
+  static final int MAX_CHARS = 100000;      //so viele Zeichen behaelt das Textfeld
 	
 //  private JButton clearButton = new JButton("Clear");
 	
   private JTextArea textArea;
-  private int currentPos = 0;  //Position des Cursors im Textfeld
-  private int refCount;        //Anzahl der Prozesse die auf die Konsole zugreifen
+  private int currentPos = 0;  //Position des Cursors im Textfeld, nur im Event-Dispatch-Thread benutzt
+  private final AtomicInteger refCount = new AtomicInteger(1); //Anzahl der Prozesse die auf die Konsole zugreifen, aendern mehrere CPUs
   private int id;
   
+  private final StringBuilder pending = new StringBuilder();  //noch nicht angezeigte Ausgaben
+  private final Timer flushTimer;
+  
   /**
    * Im Konstruktor wird der JFrame mit seinen Komponenten aufgebaut.
    * Dazu kommt noch ein KeyListener, der, immer wenn '\n' eingelesen wird,
@@ -30,7 +47,6 @@ public class SysConsole extends JFrame {
    */
   public SysConsole( final IO io, int id, String title ) {
     textArea = new JTextArea(20, 40);
-    refCount = 1;
     this.id = id;
     setTitle( title );
 //    textArea.setFont( new Font("Courier", Font.PLAIN, 14) );
@@ -57,28 +73,86 @@ public class SysConsole extends JFrame {
     cp.setLayout( new FlowLayout() );
     cp.add( new JScrollPane(textArea) );
 //    cp.add( clearButton );
+    
+    flushTimer = new Timer( FRAME_INTERVAL, new ActionListener() {
+      public void actionPerformed( ActionEvent e ) {
+        flush();
+      }
+    });
+    flushTimer.setRepeats( false );
   }
   
   /**
    * Schreibt eine Nachricht auf die Konsole.
+   * Die Nachricht erscheint erst mit der naechsten Aktualisierung.
    * @param message die Nachricht.
    */
   public void write( String message ) {
-    textArea.append( message );
-    currentPos = textArea.getDocument().getLength();
+    synchronized( pending ) {
+      boolean scheduled = pending.length() > 0;
+      pending.append( message );
+      if( pending.length() > MAX_CHARS ) {   //wuerde ohnehin gleich abgeschnitten
+        pending.delete( 0, pending.length() - MAX_CHARS );
+      }
+      if( scheduled ) {
+        return;
+      }
+    }
+    flushTimer.start();
+  }
+  
+  /**
+   * Uebertraegt die gesammelten Ausgaben in das Textfeld.
+   * Laeuft im Event-Dispatch-Thread.
+   */
+  private void flush() {
+    String text;
+    synchronized( pending ) {
+      text = pending.toString();
+      pending.setLength( 0 );
+    }
+    if( text.length() == 0 ) {
+      return;
+    }
+    textArea.append( text );
+    Document doc = textArea.getDocument();
+    int excess = doc.getLength() - MAX_CHARS;
+    if( excess > 0 ) {
+      try {
+        doc.remove( 0, excess );
+      } catch( BadLocationException e ) {
+        //kann nicht passieren, excess < Laenge
+      }
+    }
+    currentPos = doc.getLength();
     textArea.setCaretPosition( currentPos );
   }
   
   /**
    * Liest einen Befehl von der Konsole.
+   * Dabei wird nur der Text nach der letzten Ausgabe kopiert, nicht das ganze Textfeld.
    * @return der Befehl als String
    */
   private String read() {
-    String text = textArea.getText().substring(currentPos);
+    Document doc = textArea.getDocument();
+    String text;
+    try {
+      text = doc.getText( currentPos, doc.getLength() - currentPos );
+    } catch( BadLocationException e ) {
+      text = "";
+    }
     currentPos += text.length()+1;
     return text;
   }
   
+  /**
+   * Schlieszt das Fenster. Noch nicht angezeigte Ausgaben gehen verloren.
+   */
+  public void dispose() {
+    flushTimer.stop();
+    super.dispose();
+  }
+  
   /**
    * Liefert die ID der Konsole.
    * @return die ID in int
@@ -92,7 +166,7 @@ public class SysConsole extends JFrame {
    * benutzen um 1.
    */
   public void incRefCount() {
-    refCount++;
+    refCount.incrementAndGet();
   }
   
   /**
@@ -100,8 +174,9 @@ public class SysConsole extends JFrame {
    * benutzen um 1.
    */
   public void decRefcount() {
-    if( refCount > 0 ) {
-      refCount--;
+    int count;
+    while( (count = refCount.get()) > 0 && !refCount.compareAndSet(count, count - 1) ) {
+      //eine andere CPU hat den Zaehler gerade geaendert, neu lesen
     }
   }
   
@@ -111,6 +186,6 @@ public class SysConsole extends JFrame {
    * @return true, wenn kein Prozess zur Konsole gehoehrt sonst false.
    */
   public boolean zeroRefCount() {
-    return refCount == 0;
+    return refCount.get() == 0;
   }
 }
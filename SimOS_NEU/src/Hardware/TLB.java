@@ -0,0 +1,156 @@
+package Hardware;
+
+import MemoryManagement.PageTableEntry;
+
+/**
+ * <b>Aufgabe:</b> Translation Lookaside Buffer der MMU.
+ * <p>
+ * Der TLB merkt sich die zuletzt benutzten Seitentabelleneintraege, damit die MMU
+ * bei einem Treffer weder die Seitentabelle beim MemoryManager suchen noch darin
+ * indizieren muss.
+ * </p>
+ * <p>
+ * Der TLB ist n-fach assoziativ: Jeder Eintrag wird ueber (Seitentabellenadresse,
+ * Seitennummer) einem Satz zugeordnet, innerhalb eines Satzes wird der am laengsten
+ * nicht benutzte Eintrag verdraengt (LRU). Ist <code>ways == size</code>, ist der TLB
+ * voll assoziativ.
+ * </p>
+ * <p>
+ * Da die Seitentabellenadresse Teil des Schluessels ist, sind die Eintraege mit dem
+ * Prozess markiert (tagged) und muessen beim Prozesswechsel nicht geloescht werden.
+ * Wird eine Seite verdraengt, muss ihr Eintrag aber mit {@link #invalidate(int, int)}
+ * entfernt werden, das macht der MemoryManager.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class TLB {
+
+  private final int sets;                   //Anzahl der Saetze
+  private final int ways;                   //Eintraege pro Satz
+  private final int[] pageTableAddrs;       //Schluessel Teil 1: Adresse der Seitentabelle
+  private final int[] pageNrs;              //Schluessel Teil 2: Seitennummer
+  private final PageTableEntry[] entries;   //null = Eintrag ist frei
+  private final long[] lastUsed;            //Zeitstempel fuer LRU
+  private long time;
+
+  private long hits;
+  private long misses;
+
+  /**
+   * Erzeugt einen TLB.
+   * @param size Anzahl der Eintraege insgesamt, bei 0 ist der TLB abgeschaltet.
+   * @param ways Anzahl der Eintraege pro Satz. Wird auf <code>size</code> begrenzt.
+   */
+  public TLB( int size, int ways ) {
+    size = Math.max( size, 0 );
+    this.ways = Math.max( Math.min(ways, size), 1 );
+    this.sets = size / this.ways;
+    int slots = this.sets * this.ways;
+    this.pageTableAddrs = new int[slots];
+    this.pageNrs = new int[slots];
+    this.entries = new PageTableEntry[slots];
+    this.lastUsed = new long[slots];
+  }
+
+  /**
+   * Sucht den Seitentabelleneintrag im TLB.
+   * @param pageTableAddr Adresse der Seitentabelle des Prozesses
+   * @param pageNr Seitennummer
+   * @return der Seitentabelleneintrag oder null bei einem Fehlschlag (miss)
+   */
+  public PageTableEntry lookup( int pageTableAddr, int pageNr ) {
+    if( sets > 0 ) {
+      int base = setOf( pageTableAddr, pageNr ) * ways;
+      for( int i = base; i < base + ways; i++ ) {
+        if( entries[i] != null && pageNrs[i] == pageNr && pageTableAddrs[i] == pageTableAddr ) {
+          lastUsed[i] = ++time;
+          hits++;
+          return entries[i];
+        }
+      }
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Traegt einen Seitentabelleneintrag ein. Ist der Satz voll, wird der am
+   * laengsten nicht benutzte Eintrag verdraengt.
+   * Der Seitentabelleneintrag muss auf einen Rahmen im Hauptspeicher zeigen.
+   */
+  public void insert( int pageTableAddr, int pageNr, PageTableEntry entry ) {
+    if( sets == 0 ) {
+      return;
+    }
+    int base = setOf( pageTableAddr, pageNr ) * ways;
+    int victim = base;
+    for( int i = base; i < base + ways; i++ ) {
+      if( entries[i] == null ) {
+        victim = i;
+        break;
+      }
+      if( lastUsed[i] < lastUsed[victim] ) {
+        victim = i;
+      }
+    }
+    pageTableAddrs[victim] = pageTableAddr;
+    pageNrs[victim] = pageNr;
+    entries[victim] = entry;
+    lastUsed[victim] = ++time;
+  }
+
+  /**
+   * Entfernt den Eintrag fuer eine Seite, z.B. weil sie verdraengt wurde.
+   */
+  public void invalidate( int pageTableAddr, int pageNr ) {
+    if( sets == 0 ) {
+      return;
+    }
+    int base = setOf( pageTableAddr, pageNr ) * ways;
+    for( int i = base; i < base + ways; i++ ) {
+      if( entries[i] != null && pageNrs[i] == pageNr && pageTableAddrs[i] == pageTableAddr ) {
+        entries[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Loescht alle Eintraege.
+   */
+  public void flush() {
+    for( int i = 0; i < entries.length; i++ ) {
+      entries[i] = null;
+    }
+  }
+
+  private int setOf( int pageTableAddr, int pageNr ) {
+    int h = pageNr * 31 + pageTableAddr;
+    return (h & 0x7fffffff) % sets;
+  }
+
+  public int getSize() {
+    return entries.length;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return Anteil der Treffer an allen Zugriffen, 0 wenn es noch keine Zugriffe gab.
+   */
+  public double getHitRatio() {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public String toString() {
+    return "[TLB size: " + getSize() + ", ways: " + ways + ", hits: " + hits
+        + ", misses: " + misses + "]";
+  }
+}
@@ -0,0 +1,150 @@
+package Hardware;
+
+/**
+ * <b>Aufgabe:</b> Legt fest, wie eine virtuelle Adresse als int aufgebaut ist.
+ * <p>
+ * Seitennummer und Offset werden in einen int gepackt: Die unteren
+ * <code>offsetBits</code> Bits enthalten das Offset, die Bits darueber die
+ * Seitennummer. Seitennummer und Offset lassen sich dadurch mit einem Shift und einer
+ * Maske herausholen. Ist die Seitengroesze eine Zweierpotenz, entspricht die
+ * gepackte Adresse sogar genau der Befehlsnummer.
+ * </p>
+ * <p>
+ * Die fruehere String-Darstellung (Seitennummer und Offset dezimal, mit fuehrenden
+ * Nullen aufgefuellt, z.B. "031" fuer Seite 3 Offset 1) gibt es nur noch fuer das
+ * Protokoll und fuer Adressen, die als Text im Programm stehen (z.B. bei
+ * <code>write_mem</code>).
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class VirtualAddressFormat {
+
+  /**
+   * Eine Adresse, die garantiert auserhalb jedes Adressraumes liegt.
+   */
+  public static final int OUT_OF_RANGE = Integer.MAX_VALUE;
+
+  private final int pageSize;      //Groesze einer Seite
+  private final int addrSpace;     //Groesze des virtuellen Adressraumes in Anzahl der Seiten
+  private final int offsetBits;    //Anzahl der Bits fuer das Offset
+  private final int offsetMask;
+  private final int offsetLength;  //Stellenanzahl des Offsets in der String-Darstellung
+  private final int pageNrLength;  //Stellenanzahl der Seitennummer in der String-Darstellung
+
+  /**
+   * @param pageSize Groesze einer Seite
+   * @param addrSpace Groesze des virtuellen Adressraumes in Anzahl der Seiten
+   */
+  public VirtualAddressFormat( int pageSize, int addrSpace ) {
+    this.pageSize = pageSize;
+    this.addrSpace = addrSpace;
+    this.offsetBits = 32 - Integer.numberOfLeadingZeros( Math.max(pageSize - 1, 0) );
+    this.offsetMask = (1 << offsetBits) - 1;
+    this.offsetLength = Integer.toString(pageSize).length();
+    this.pageNrLength = Integer.toString(addrSpace).length();
+  }
+
+  /**
+   * Setzt eine virtuelle Adresse aus Seitennummer und Offset zusammen.
+   */
+  public int make( int pageNr, int offset ) {
+    return (pageNr << offsetBits) | offset;
+  }
+
+  public int getPageNr( int virtualAddr ) {
+    return virtualAddr >>> offsetBits;
+  }
+
+  public int getOffset( int virtualAddr ) {
+    return virtualAddr & offsetMask;
+  }
+
+  /**
+   * Prueft, ob die virtuelle Adresse innerhalb des Adressraumes liegt.
+   */
+  public boolean isValid( int virtualAddr ) {
+    return virtualAddr >= 0
+        && getOffset(virtualAddr) < pageSize
+        && getPageNr(virtualAddr) < addrSpace;
+  }
+
+  /**
+   * Liefert die Adresse der naechsten Speicherzelle. Am Ende einer Seite
+   * geht es mit Offset 0 auf der naechsten Seite weiter.
+   */
+  public int increment( int virtualAddr ) {
+    if( getOffset(virtualAddr) < pageSize - 1 ) {
+      return virtualAddr + 1;
+    }
+    return make( getPageNr(virtualAddr) + 1, 0 );
+  }
+
+  /**
+   * Bildet eine Befehlsnummer (die Zeile im Programm) direkt auf ihre virtuelle
+   * Adresse ab: Seitennummer = commandNr / pageSize, Offset = commandNr % pageSize.
+   * @param commandNr die Befehlsnummer
+   * @return die virtuelle Adresse oder <code>OUT_OF_RANGE</code>, wenn die
+   * Befehlsnummer nicht im Adressraum liegt.
+   */
+  public int fromCommandNr( int commandNr ) {
+    if( commandNr < 0 || commandNr / pageSize >= addrSpace ) {
+      return OUT_OF_RANGE;
+    }
+    if( offsetMask + 1 == pageSize ) {    //Zweierpotenz: Befehlsnummer und Adresse sind gleich
+      return commandNr;
+    }
+    return make( commandNr / pageSize, commandNr % pageSize );
+  }
+
+  /**
+   * Wandelt die virtuelle Adresse in die String-Darstellung mit fuehrenden Nullen um.
+   * Nur fuer das Protokoll gedacht.
+   */
+  public String toString( int virtualAddr ) {
+    StringBuilder sb = new StringBuilder( pageNrLength + offsetLength );
+    pad( sb, Integer.toString(getPageNr(virtualAddr)), pageNrLength );
+    pad( sb, Integer.toString(getOffset(virtualAddr)), offsetLength );
+    return sb.toString();
+  }
+
+  private static void pad( StringBuilder sb, String digits, int length ) {
+    for( int i = digits.length(); i < length; i++ ) {
+      sb.append('0');
+    }
+    sb.append(digits);
+  }
+
+  /**
+   * Teilt die String-Repraesentation der virtuellen Adresse auf in Seitennummer
+   * und Offset und packt beides in einen int.
+   * <p>
+   * Die letzten Stellen (so viele, wie die Seitengroesze Stellen hat) sind das
+   * Offset, der Rest ist die Seitennummer.
+   * </p>
+   * @param virtualAddr Die virtuelle Adresse als String
+   * @return die virtuelle Adresse als int, oder -1 wenn Seitennummer oder Offset
+   * zu grosz sind.
+   * @throws NumberFormatException Falls die Adresse keine Zahl ist.
+   */
+  public int parse( String virtualAddr ) {
+    int vAddrLen = virtualAddr.length();
+    int offset = Integer.parseInt( virtualAddr.substring(Math.max(vAddrLen - offsetLength, 0)) );
+    int pageNr = 0;
+    if( vAddrLen > offsetLength ) {
+      pageNr = Integer.parseInt( virtualAddr.substring(0, vAddrLen - offsetLength) );
+    }
+    if( offset >= pageSize || pageNr >= addrSpace || offset < 0 || pageNr < 0 ) {
+      return -1;
+    }
+    return make( pageNr, offset );
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public int getAddressSpaceSize() {
+    return addrSpace;
+  }
+}
@@ -0,0 +1,406 @@
+package MainBoot;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import Hardware.CPU;
+import Hardware.HeadlessIO;
+import Hardware.MMU;
+import Hardware.MainMemory;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import MemoryManagement.SwapFile;
+import Scheduler.SchedulerIF;
+
+/**
+ * <b>Aufgabe:</b> Stapellauf ohne Bildschirm. Startet die Programme aus einer
+ * Workload-Datei, laesst sie bis zum Ende laufen und schreibt einen Bericht mit
+ * Befehlen pro Sekunde, Seitenfehlern, Zugriffen auf die Auslagerungsdatei,
+ * Prozesswechseln sowie Verweil- und Antwortzeit jedes Prozesses.
+ * <p>
+ * Jede Zeile der Workload-Datei startet ein Programm:
+ * <code>&lt;Ankunft&gt; &lt;Programm&gt; [&lt;Eingabe&gt; ...]</code>. Die Ankunft wird in
+ * ausgefuehrten Befehlen gemessen, damit ein Lauf unabhaengig von der Geschwindigkeit des
+ * Rechners immer gleich ablaeuft. Hat die CPU vorher nichts mehr zu tun, kommt der naechste
+ * Prozess sofort. Die Eingaben bekommt der Prozess der Reihe nach bei seinen read-Befehlen,
+ * danach wieder von vorne (siehe {@link HeadlessIO#setProcessInput(int, String[])}).
+ * Programme werden relativ zur Workload-Datei gesucht, Zeilen mit <code>#</code> sind
+ * Kommentare.
+ * </p>
+ * <p>
+ * Es laeuft eine CPU mit dem in <code>BootLoader.schedulerType</code> gewaehlten Scheduler,
+ * Speicher und Seitenersetzung sind wie im BootLoader eingestellt. Die Konsolen schreiben
+ * in das Ausgabeverzeichnis, dorthin kommen auch der Bericht <code>report.txt</code> und
+ * die {@link Metrics} des Laufes (<code>metrics.txt</code>).
+ * Statt init laeuft als pid 1 ein Platzhalter, der nur wartet: Sonst wuerde das System
+ * herunterfahren, sobald der erste Prozess mit <code>quit</code> endet.
+ * </p>
+ * <p>
+ * Aufruf: <code>java MainBoot.BatchRunner &lt;Workload&gt; [&lt;Ausgabeverzeichnis&gt;]</code>.
+ * Solange <code>simos.trace</code> nicht gesetzt ist, ist das Protokoll abgeschaltet.
+ * Der Exit-Code ist 1, wenn Prozesse nicht fertig geworden sind.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class BatchRunner {
+
+  /**
+   * Ein Eintrag der Workload-Datei.
+   */
+  public static class Job {
+    final long arrival;
+    final String program;
+    final String[] input;
+
+    public Job( long arrival, String program, String[] input ) {
+      this.arrival = arrival;
+      this.program = program;
+      this.input = input;
+    }
+
+    public String toString() {
+      return "[Job arrival: " + arrival + ", program: " + program + ", inputs: " + input.length + "]";
+    }
+  }
+
+  private final String name;
+  private final File programDir;
+  private final File outputDir;
+  private final List<Job> jobs;
+
+  /**
+   * Liest die Workload-Datei.
+   * @param workload die Workload-Datei
+   * @param outputDir Verzeichnis fuer die Konsolen, wird bei Bedarf angelegt
+   * @throws IOException falls die Datei nicht gelesen werden kann, fehlerhaft ist
+   * oder ein Programm nicht existiert
+   */
+  public BatchRunner( File workload, File outputDir ) throws IOException {
+    this.name = workload.getPath();
+    this.programDir = workload.getAbsoluteFile().getParentFile();
+    this.outputDir = outputDir;
+    this.jobs = readWorkload( workload, programDir );
+  }
+
+  /**
+   * Liest die Eintraege einer Workload-Datei, sortiert nach Ankunft. Bei gleicher
+   * Ankunft bleibt die Reihenfolge aus der Datei erhalten.
+   */
+  static List<Job> readWorkload( File workload, File programDir ) throws IOException {
+    ArrayList<Job> jobs = new ArrayList<Job>();
+    BufferedReader in = new BufferedReader( new FileReader(workload) );
+    try {
+      String line;
+      int lineNr = 0;
+      while( (line = in.readLine()) != null ) {
+        lineNr++;
+        line = line.trim();
+        if( line.length() == 0 || line.startsWith("#") ) {
+          continue;
+        }
+        String[] fields = line.split( "\\s+" );
+        long arrival;
+        try {
+          arrival = Long.parseLong( fields[0] );
+        } catch( NumberFormatException e ) {
+          arrival = -1;
+        }
+        if( arrival < 0 || fields.length < 2 ) {
+          throw new IOException( workload + ":" + lineNr + ": expected <arrival> <program> [<input> ...]" );
+        }
+        File program = new File( fields[1] );
+        if( !program.isAbsolute() ) {
+          program = new File( programDir, fields[1] );
+        }
+        if( !program.isFile() ) {
+          throw new IOException( workload + ":" + lineNr + ": no such program " + fields[1] );
+        }
+        String[] input = new String[fields.length - 2];
+        System.arraycopy( fields, 2, input, 0, input.length );
+        jobs.add( new Job(arrival, fields[1], input) );
+      }
+    } finally {
+      in.close();
+    }
+    Collections.sort( jobs, new Comparator<Job>() {
+      public int compare( Job a, Job b ) {
+        return a.arrival < b.arrival ? -1 : (a.arrival == b.arrival ? 0 : 1);
+      }
+    });
+    return jobs;
+  }
+
+  /**
+   * Baut das System auf, startet alle Prozesse zu ihrer Ankunft und laeuft, bis kein
+   * Prozess mehr uebrig ist oder alle uebrigen fuer immer blockiert sind.
+   * @return der Bericht
+   * @throws IOException falls das Ausgabeverzeichnis oder die Auslagerungsdatei nicht
+   * angelegt werden kann
+   */
+  public Report run() throws IOException {
+    MainMemory memory = new MainMemory( BootLoader.frameAnz, BootLoader.pageSize );
+    SwapFile swapFile = BootLoader.createSwapFile();
+    MemoryManager memoryManager = new MemoryManager(
+        memory,
+        swapFile,
+        BootLoader.pageSize,
+        BootLoader.addressSpace,
+        BootLoader.createPageReplacement( BootLoader.pageReplacement, BootLoader.frameAnz ) );
+    MMU mmu = new MMU( memory, memoryManager );
+    HeadlessIO io = new HeadlessIO( outputDir );
+    CPU cpu = new CPU( mmu, io );
+    ProcessManager processManager = new ProcessManager( memoryManager, BootLoader.pageSize, BootLoader.addressSpace );
+    SchedulerIF scheduler = BootLoader.createScheduler( cpu, processManager );
+    cpu.setScheduler( scheduler );
+    cpu.setProcessManager( processManager );
+    processManager.setScheduler( scheduler );
+    BootLoader.registerMetrics( memoryManager, swapFile, scheduler, processManager );
+
+    int initPid = processManager.createProcess( writeInit() );
+    processManager.setProgramDir( programDir );
+    processManager.recordFinishedProcesses();
+
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BatchRunner: running " + jobs.size() + " jobs from " + name );
+    long start = System.nanoTime();
+    int next = 0;
+    boolean stalled = false;
+    try {
+      while( true ) {
+        while( next < jobs.size() && jobs.get(next).arrival <= cpu.getInstructionCount() ) {
+          startJob( jobs.get(next++), initPid, processManager, io );
+        }
+        long limit = next < jobs.size() ? jobs.get(next).arrival : Long.MAX_VALUE;
+        if( !cpu.operate(limit) ) {
+          continue;                   //der naechste Prozess kommt an
+        }
+        if( next < jobs.size() ) {    //CPU hat nichts zu tun, der naechste kommt sofort
+          startJob( jobs.get(next++), initPid, processManager, io );
+        } else {
+          stalled = processManager.getProcessCount() > 1;   //nur der Platzhalter darf uebrig sein
+          break;
+        }
+      }
+    } catch( BootLoader.ShutdownException e ) {
+      stalled = true;                 //kann nur der Platzhalter ausloesen
+    }
+    long elapsed = System.nanoTime() - start;
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BatchRunner: finished after " + elapsed / 1000000 + " ms"
+        + (stalled ? ", processes left: " + (processManager.getProcessCount() - 1) : "") );
+
+    Report report = new Report( name, jobs.size(), start, elapsed, processManager.getFinishedProcesses(),
+        processManager.getProcessCount() - 1 );
+    report.instructions = cpu.getInstructionCount();
+    report.contextSwitches = cpu.getContextSwitchCount();
+    report.pageFaults = memoryManager.getPageFaultCount();
+    report.swapReads = swapFile.getReadCount();
+    report.swapWrites = swapFile.getWriteCount();
+    report.writeBacks = memoryManager.getWriteBackCount();
+    report.tlbHitRatio = mmu.getTLB().getHitRatio();
+
+    io.close();
+    swapFile.close();
+    return report;
+  }
+
+  private static void startJob( Job job, int initPid, ProcessManager processManager, HeadlessIO io ) {
+    int pid = processManager.createProcess( job.program, initPid );
+    if( job.input.length > 0 ) {
+      io.setProcessInput( pid, job.input );
+    }
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BatchRunner: started " + job + " as pid " + pid );
+  }
+
+  /**
+   * Schreibt den Platzhalter fuer init in eine temporaere Datei: Er wartet auf sein
+   * eigenes Ende, also fuer immer.
+   * @return der absolute Pfad der Datei
+   */
+  private static String writeInit() throws IOException {
+    File file = File.createTempFile( "simos-batch-init", "" );
+    file.deleteOnExit();
+    Writer out = new FileWriter( file );
+    try {
+      out.write( "2\nwait #1\nquit\n" );
+    } finally {
+      out.close();
+    }
+    return file.getAbsolutePath();
+  }
+
+  /**
+   * Das Ergebnis eines Stapellaufes.
+   */
+  public static class Report {
+
+    private final String workload;
+    private final int jobs;
+    private final long start;           //System.nanoTime beim Start
+    private final long elapsed;         //ns
+    private final List<PCB> finished;
+    private final int unfinished;
+    long instructions;
+    long contextSwitches;
+    long pageFaults;
+    long swapReads;
+    long swapWrites;
+    long writeBacks;
+    double tlbHitRatio;
+
+    Report( String workload, int jobs, long start, long elapsed, List<PCB> finished, int unfinished ) {
+      this.workload = workload;
+      this.jobs = jobs;
+      this.start = start;
+      this.elapsed = elapsed;
+      this.finished = finished;
+      this.unfinished = unfinished;
+    }
+
+    /**
+     * @return Befehle pro Sekunde (Wanduhrzeit)
+     */
+    public double getInstructionsPerSecond() {
+      return elapsed == 0 ? 0 : instructions * 1e9 / elapsed;
+    }
+
+    /**
+     * Schreibt die Zusammenfassung als <code>Schluessel: Wert</code>-Zeilen, damit
+     * naechtliche Laeufe leicht verglichen werden koennen.
+     */
+    public void writeSummary( PrintWriter out ) {
+      long[] turnaround = new long[finished.size()];
+      long[] response = new long[finished.size()];
+      for( int i = 0; i < finished.size(); i++ ) {
+        PCB pcb = finished.get(i);
+        turnaround[i] = pcb.getEndTime() - pcb.getCreateTime();
+        response[i] = (pcb.getFirstRunTime() < 0 ? pcb.getEndTime() : pcb.getFirstRunTime()) - pcb.getCreateTime();
+      }
+      out.println( "workload: " + workload );
+      out.println( "jobs: " + jobs );
+      out.println( "processes finished: " + finished.size() );
+      out.println( "processes unfinished: " + unfinished );
+      out.println( "wall time ms: " + millis(elapsed) );
+      out.println( "instructions: " + instructions );
+      out.println( "instructions per second: " + Math.round(getInstructionsPerSecond()) );
+      out.println( "context switches: " + contextSwitches );
+      out.println( "page faults: " + pageFaults );
+      out.println( "swap reads: " + swapReads );
+      out.println( "swap writes: " + swapWrites );
+      out.println( "write backs: " + writeBacks );
+      out.println( "tlb hit ratio: " + String.format(Locale.ROOT, "%.4f", tlbHitRatio) );
+      out.println( "turnaround ms mean: " + millis(mean(turnaround)) + " max: " + millis(max(turnaround)) );
+      out.println( "response ms mean: " + millis(mean(response)) + " max: " + millis(max(response)) );
+    }
+
+    /**
+     * Schreibt die Zusammenfassung und eine Zeile pro beendetem Prozess.
+     */
+    public void write( PrintWriter out ) {
+      writeSummary( out );
+      out.println();
+      out.println( "pid\tprogram\tarrival_ms\tturnaround_ms\tresponse_ms" );
+      for( int i = 0; i < finished.size(); i++ ) {
+        PCB pcb = finished.get(i);
+        long firstRun = pcb.getFirstRunTime() < 0 ? pcb.getEndTime() : pcb.getFirstRunTime();
+        out.println( pcb.getPid() + "\t" + pcb.getProgram()
+            + "\t" + millis(pcb.getCreateTime() - start)
+            + "\t" + millis(pcb.getEndTime() - pcb.getCreateTime())
+            + "\t" + millis(firstRun - pcb.getCreateTime()) );
+      }
+    }
+
+    private static String millis( long nanos ) {
+      return String.format( Locale.ROOT, "%.3f", nanos / 1e6 );
+    }
+
+    private static long mean( long[] values ) {
+      long sum = 0;
+      for( int i = 0; i < values.length; i++ ) {
+        sum += values[i];
+      }
+      return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static long max( long[] values ) {
+      long max = 0;
+      for( int i = 0; i < values.length; i++ ) {
+        max = Math.max( max, values[i] );
+      }
+      return max;
+    }
+
+    public int getFinishedCount() {
+      return finished.size();
+    }
+
+    public int getUnfinishedCount() {
+      return unfinished;
+    }
+
+    public long getInstructions() {
+      return instructions;
+    }
+
+    public long getContextSwitches() {
+      return contextSwitches;
+    }
+
+    public long getPageFaults() {
+      return pageFaults;
+    }
+
+    public long getSwapReads() {
+      return swapReads;
+    }
+
+    public long getSwapWrites() {
+      return swapWrites;
+    }
+  }
+
+  /**
+   * @param args &lt;Workload&gt; [&lt;Ausgabeverzeichnis&gt;], Voreinstellung fuer das
+   * Ausgabeverzeichnis ist <code>batch-out</code>
+   */
+  public static void main( String[] args ) throws IOException {
+    if( args.length < 1 || args.length > 2 ) {
+      System.err.println( "usage: java MainBoot.BatchRunner <workload> [<output directory>]" );
+      System.exit( 2 );
+    }
+    if( System.getProperty("simos.trace") == null ) {
+      SysLogger.setTraceLevels( "all=off" );
+    }
+    SysLogger.openLog();
+    if( BootLoader.metricsJmx ) {
+      Metrics.publish();
+    }
+    File outputDir = new File( args.length > 1 ? args[1] : "batch-out" );
+    Report report = new BatchRunner( new File(args[0]), outputDir ).run();
+    Metrics.dump( new File(outputDir, "metrics.txt") );
+
+    PrintWriter file = new PrintWriter( new FileWriter(new File(outputDir, "report.txt")) );
+    try {
+      report.write( file );
+    } finally {
+      file.close();
+    }
+    PrintWriter stdout = new PrintWriter( System.out );
+    report.writeSummary( stdout );
+    stdout.flush();
+    SysLogger.closeLog();
+    if( report.getUnfinishedCount() > 0 ) {
+      System.exit( 1 );
+    }
+  }
+}
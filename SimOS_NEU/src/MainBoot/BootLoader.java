@@ -3,6 +3,7 @@ import MemoryManagement.*;
 import Scheduler.*;
 import Hardware.*;
 import java.io.*;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Initialisiert und startet das Betriebssystem.
@@ -15,6 +16,34 @@ public class BootLoader {
   public static int addressSpace = 32;
   public static int memSize = pageSize * frameAnz;
   public static int swapFileSize = 320; //Platz fuer 10 Prozesse
+  public static int tlbSize = 16;       //Anzahl der TLB-Eintraege, 0 schaltet den TLB ab
+  public static int tlbWays = 4;        //Eintraege pro Satz, tlbWays == tlbSize -> voll assoziativ
+  public static String swapBackend = "heap";        //"heap" oder "mmap" (Datei swapFileName)
+  public static String swapFileName = "swapfile.bin";
+  public static int swapSlotBytes = 64 * pageSize;  //Platz pro Seite in der Datei
+  public static String pageReplacement = "clock";   //siehe createPageReplacement
+  public static int wsClockTau = 2 * frameAnz;      //Working-Set-Fenster fuer "wsclock", in Seitenfehlern
+  public static int agingBits = 8;                  //Breite der Zaehler fuer "aging"
+  public static int lruK = 2;                       //k fuer "lru-k"
+  public static String schedulerType = "rr";        //"rr" (round robin) oder "mlfq"
+  public static int timeslice = 9;                  //Befehle pro Zeitscheibe, bei "mlfq" fuer die oberste Stufe
+  public static int mlfqLevels = 3;                 //Anzahl der Stufen fuer "mlfq"
+  public static int mlfqBoostInterval = 50;         //nach so vielen Zeitscheiben kommen alle Prozesse in Stufe 0
+  public static String referenceTraceFile = null;   //Datei fuer die Seitenzugriffe, null = keine Aufzeichnung
+  public static int idleTimeout = 50;               //so lange (ms) wartet eine CPU ohne Arbeit hoechstens auf einen Interrupt
+  public static int cpuCount = 1;                   //Anzahl der CPUs, ab 2 laeuft jede CPU als eigener Thread mit dem SMPScheduler
+  public static String consoleType = "swing";       //"swing" (Fenster) oder "headless" (ohne Bildschirm, siehe HeadlessIO)
+  public static String consoleDir = null;           //"headless": Verzeichnis fuer console-<id>.txt, null = Standardausgabe
+  public static String consoleInput = null;         //"headless": Eingabeskript, "-" = Standardeingabe, null = keine Eingaben
+  public static boolean metricsJmx = true;          //Metriken als MBeans beim MBeanServer der JVM anmelden (jconsole)
+  public static String metricsFile = null;          //hierhin werden die Metriken beim Herunterfahren geschrieben, null = nicht
+  
+  /**
+   * Die Namen aller Seitenersetzungsalgorithmen fuer {@link #createPageReplacement(String, int)}.
+   */
+  public static final String[] pageReplacementNames = {
+    "fifo", "clock", "enhanced-clock", "wsclock", "aging", "lru-k", "clock-pro", "arc"
+  };
   
   
   
@@ -26,6 +55,11 @@ public class BootLoader {
   /**
    * Die Instanzen fuer die verschiedenen Programmteile werden hier erzeugt
    * und durchgereicht.
+   * <p>
+   * Bei <code>cpuCount</code> &gt; 1 bekommt jede CPU ihre eigene MMU (mit eigenem TLB),
+   * alle teilen sich Hauptspeicher, MemoryManager und Ein-/Ausgabe. Die CPUs laufen dann
+   * als eigene Threads, der BootLoader wartet, bis eine von ihnen das System herunterfaehrt.
+   * </p>
    * @param args not used
    * @throws IOException
    */
@@ -33,37 +67,238 @@ public class BootLoader {
     
 	SysLogger.openLog();
     
-	MainMemory memory = new MainMemory( memSize );
+	MainMemory memory = new MainMemory( frameAnz, pageSize );
+	SwapFile swapFile = createSwapFile();
     
     MemoryManager memoryManager = new MemoryManager( 
     		memory,
-    		new SwapFile(BootLoader.swapFileSize),
+    		swapFile,
     		BootLoader.pageSize,
     		BootLoader.addressSpace,
-    		new Clock() );
+    		createPageReplacement( pageReplacement, frameAnz ) );
+    if( cpuCount > 1 ) {
+      memoryManager.enableConcurrentAccess();     //vor dem Erzeugen der MMUs
+    }
     
-    MMU mmu = new MMU( memory, memoryManager ); // Nur die MMU hat Zugriff auf den Hauptspeicher
-    CPU cpu = new CPU( mmu );    //CPU greift ueber die MMU auf den Hauptspeicher zu
+    MMU[] mmus = new MMU[cpuCount];
+    CPU[] cpus = new CPU[cpuCount];
+    IO io = createIO();
+    for( int i = 0; i < cpuCount; i++ ) {
+      mmus[i] = new MMU( memory, memoryManager ); // Nur die MMU hat Zugriff auf den Hauptspeicher
+      cpus[i] = new CPU( mmus[i], io );    //CPU greift ueber die MMU auf den Hauptspeicher zu
+      cpus[i].setName( "CPU-" + i );
+    }
+    
+    ReferenceTrace.Writer trace = null;
+    if( referenceTraceFile != null ) {
+      trace = new ReferenceTrace.Writer( new File(referenceTraceFile) );
+      for( int i = 0; i < cpuCount; i++ ) {
+        mmus[i].setReferenceTrace( trace );
+      }
+      SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, "BootLoader: recording page references to " + referenceTraceFile );
+    }
     
     ProcessManager processManager = new ProcessManager( memoryManager, BootLoader.pageSize, BootLoader.addressSpace );
     
     
-    SchedulerIF scheduler = new Scheduler( cpu, processManager );
+    SchedulerIF scheduler;
+    if( cpuCount > 1 ) {
+      SMPScheduler smp = new SMPScheduler( cpus, processManager );
+      for( int i = 0; i < cpuCount; i++ ) {
+        cpus[i].setScheduler( smp.getScheduler(i) );
+      }
+      scheduler = smp;
+    } else {
+      scheduler = createScheduler( cpus[0], processManager );
+      cpus[0].setScheduler( scheduler );
+    }
     processManager.setScheduler( scheduler );
     
-    cpu.setProcessManager( processManager );
-    cpu.setScheduler( scheduler );
+    for( int i = 0; i < cpuCount; i++ ) {
+      cpus[i].setProcessManager( processManager );
+    }
+    
+    registerMetrics( memoryManager, swapFile, scheduler, processManager );
+    if( metricsJmx ) {
+      Metrics.publish();
+    }
     
     int pid = processManager.createProcess("init");
-    SysLogger.writeLog( 0, "BootLoader: initial process created, pid: " + pid );
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: initial process created, pid: " + pid );
 
-    SysLogger.writeLog( 0, "BootLoader: starting the cpu" );
-    try {
-      cpu.operate();
-    } catch( ShutdownException x ) {
-      SysLogger.writeLog( 0, "BootLoader: shutting down" );
-      processManager.destroyProcess(pid);
-      SysLogger.closeLog();
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: starting " + cpuCount + " cpu(s)" );
+    if( cpuCount > 1 ) {
+      runCpus( cpus );
+    } else {
+      try {
+        cpus[0].operate();
+      } catch( ShutdownException x ) {
+        //normales Herunterfahren
+      }
+    }
+    
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: shutting down" );
+    for( int i = 0; i < cpuCount; i++ ) {
+      SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: cpu " + i + " " + mmus[i].getTLB() + " hit ratio: " + mmus[i].getTLB().getHitRatio() );
+    }
+    if( scheduler instanceof SMPScheduler ) {
+      SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: processes stolen between cpus: " + ((SMPScheduler) scheduler).getStealCount() );
+    }
+    SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: evicted pages written back: " + memoryManager.getWriteBackCount()
+        + ", clean: " + memoryManager.getCleanEvictionCount() );
+    processManager.destroyProcess(pid);
+    if( metricsFile != null ) {
+      Metrics.dump( new File(metricsFile) );
+      SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "BootLoader: metrics written to " + metricsFile );
+    }
+    Metrics.unpublish();
+    io.close();
+    swapFile.close();
+    if( trace != null ) {
+      trace.close();
+    }
+    SysLogger.closeLog();
+  }
+  
+  /**
+   * Startet alle CPUs als Threads und wartet, bis eine von ihnen das System
+   * herunterfaehrt. Danach werden alle CPUs angehalten.
+   */
+  static void runCpus( CPU[] cpus ) {
+    CountDownLatch shutdown = new CountDownLatch(1);
+    for( int i = 0; i < cpus.length; i++ ) {
+      cpus[i].setShutdownLatch( shutdown );
+      cpus[i].start();
+    }
+    boolean interrupted = false;
+    while( true ) {
+      try {
+        shutdown.await();
+        break;
+      } catch( InterruptedException e ) {
+        interrupted = true;
+      }
+    }
+    for( int i = 0; i < cpus.length; i++ ) {
+      cpus[i].halt();
+    }
+    for( int i = 0; i < cpus.length; i++ ) {
+      while( cpus[i].isAlive() ) {
+        try {
+          cpus[i].join();
+        } catch( InterruptedException e ) {
+          interrupted = true;
+        }
+      }
+    }
+    if( interrupted ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  /**
+   * Meldet die Gauges der Teilsysteme bei den {@link Metrics} an: freie Rahmen, belegte
+   * Plaetze der Auslagerungsdatei, Laenge der Warteschlangen und Anzahl der Prozesse.
+   * Die Zaehler melden die Klassen selbst an.
+   */
+  static void registerMetrics( final MemoryManager memoryManager, final SwapFile swapFile,
+      final SchedulerIF scheduler, final ProcessManager processManager ) {
+    Metrics.gauge( "memory", "freeFrames", new Metrics.Gauge() {
+      public long value() { return memoryManager.getFreeFrameCount(); }
+    });
+    Metrics.gauge( "swap", "slotsUsed", new Metrics.Gauge() {
+      public long value() { return swapFile.getUsedCount(); }
+    });
+    Metrics.gauge( "scheduler", "ready", new Metrics.Gauge() {
+      public long value() { return scheduler.getReadyCount(); }
+    });
+    Metrics.gauge( "scheduler", "blocked", new Metrics.Gauge() {
+      public long value() { return scheduler.getBlockedCount(); }
+    });
+    Metrics.gauge( "process", "live", new Metrics.Gauge() {
+      public long value() { return processManager.getProcessCount(); }
+    });
+  }
+  
+  /**
+   * Erzeugt die Ein-/Ausgabe mit den in <code>consoleType</code> gewaehlten Konsolen.
+   * @throws IOException falls das Ausgabeverzeichnis oder das Eingabeskript nicht
+   * geoeffnet werden kann
+   * @throws IllegalArgumentException bei einem unbekannten Typ
+   */
+  static IO createIO() throws IOException {
+    if( "swing".equals(consoleType) ) {
+      return new IO();
+    } else if( "headless".equals(consoleType) ) {
+      HeadlessIO io = new HeadlessIO( consoleDir == null ? null : new File(consoleDir) );
+      if( "-".equals(consoleInput) ) {
+        io.readInputAsync( new InputStreamReader(System.in) );
+      } else if( consoleInput != null ) {
+        Reader in = new FileReader( consoleInput );
+        try {
+          io.readInput( in );
+        } finally {
+          in.close();
+        }
+      }
+      SysLogger.writeLog( SysLogger.IO, SysLogger.INFO, "BootLoader: headless consoles, output: "
+          + (consoleDir == null ? "stdout" : consoleDir) + ", input: " + consoleInput );
+      return io;
+    }
+    throw new IllegalArgumentException( "unknown console type: " + consoleType );
+  }
+  
+  /**
+   * Erzeugt die Auslagerungsdatei mit dem in <code>swapBackend</code> gewaehlten Backend.
+   * @throws IOException falls die Datei fuer "mmap" nicht angelegt werden kann
+   */
+  static SwapFile createSwapFile() throws IOException {
+    if( "mmap".equals(swapBackend) ) {
+      SysLogger.writeLog( SysLogger.SWAP, SysLogger.INFO, "BootLoader: swap file mapped from " + swapFileName );
+      return new SwapFile( swapFileSize,
+          new MappedSwapBackend(new File(swapFileName), swapFileSize, pageSize, swapSlotBytes) );
+    }
+    return new SwapFile( swapFileSize );
+  }
+  
+  /**
+   * Erzeugt den in <code>schedulerType</code> gewaehlten Scheduler.
+   * @throws IllegalArgumentException bei einem unbekannten Typ
+   */
+  static SchedulerIF createScheduler( CPU cpu, ProcessManager processManager ) {
+    if( "rr".equals(schedulerType) ) {
+      return new Scheduler( cpu, processManager );
+    } else if( "mlfq".equals(schedulerType) ) {
+      return new MLFQScheduler( cpu, processManager, mlfqLevels, timeslice, mlfqBoostInterval );
+    }
+    throw new IllegalArgumentException( "unknown scheduler: " + schedulerType );
+  }
+  
+  /**
+   * Erzeugt den Seitenersetzungsalgorithmus.
+   * @param name "fifo", "clock", "enhanced-clock", "wsclock", "aging", "lru-k",
+   * "clock-pro" oder "arc"
+   * @param frames Anzahl der Rahmen im Hauptspeicher
+   * @throws IllegalArgumentException bei einem unbekannten Namen
+   */
+  public static PageReplacementIF createPageReplacement( String name, int frames ) {
+    if( "fifo".equals(name) ) {
+      return new FIFO();
+    } else if( "clock".equals(name) ) {
+      return new Clock();
+    } else if( "enhanced-clock".equals(name) ) {
+      return new EnhancedClock();
+    } else if( "wsclock".equals(name) ) {
+      return new WSClock( wsClockTau );
+    } else if( "aging".equals(name) ) {
+      return new Aging( agingBits );
+    } else if( "lru-k".equals(name) ) {
+      return new LRUK( lruK, frames );
+    } else if( "clock-pro".equals(name) ) {
+      return new ClockPro( frames );
+    } else if( "arc".equals(name) ) {
+      return new ARC( frames );
     }
+    throw new IllegalArgumentException( "unknown page replacement: " + name );
   }
 }
@@ -0,0 +1,139 @@
+package MainBoot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <b>Aufgabe:</b> Haeufigkeitsverteilung fuer die Metriken, z.B. der Dauer von Seitenfehlern.
+ * <p>
+ * Die Werte werden in Klassen mit Zweierpotenzen als Grenzen gezaehlt: Klasse 0 enthaelt
+ * die 0, Klasse b die Werte von 2^(b-1) bis 2^b - 1. Ein Quantil ist deshalb nur bis auf
+ * einen Faktor 2 genau, dafuer kostet das Eintragen nur ein paar atomare Additionen.
+ * </p>
+ * <p>
+ * Wie beim {@link StripedCounter} hat jeder Thread (ueber seine Id) seinen eigenen Satz
+ * Klassen, gelesen wird die Summe ueber alle Saetze.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class Histogram {
+
+  private static final int BUCKETS = 65;
+  private static final int SUM = BUCKETS;
+  private static final int MAX = BUCKETS + 1;
+  /** Platz pro Satz, auf ganze Cache-Zeilen aufgerundet */
+  private static final int STRIDE = (MAX + StripedCounter.PADDING) / StripedCounter.PADDING * StripedCounter.PADDING;
+
+  private final AtomicLongArray cells = new AtomicLongArray( StripedCounter.STRIPES * STRIDE );
+
+  /**
+   * Traegt einen Wert ein. Negative Werte zaehlen als 0.
+   */
+  public void record( long value ) {
+    if( value < 0 ) {
+      value = 0;
+    }
+    int base = StripedCounter.stripe() * STRIDE;
+    cells.getAndIncrement( base + bucket(value) );
+    cells.getAndAdd( base + SUM, value );
+    long max;
+    while( (max = cells.get(base + MAX)) < value && !cells.compareAndSet(base + MAX, max, value) ) {
+      //ein anderer Thread auf demselben Satz war schneller, neu lesen
+    }
+  }
+
+  /**
+   * @return die Nummer der Klasse fuer den Wert
+   */
+  static int bucket( long value ) {
+    return 64 - Long.numberOfLeadingZeros( value );
+  }
+
+  /**
+   * @return Anzahl der eingetragenen Werte
+   */
+  public long getCount() {
+    long count = 0;
+    for( int b = 0; b < BUCKETS; b++ ) {
+      count += sumOf( b );
+    }
+    return count;
+  }
+
+  /**
+   * @return die Summe aller eingetragenen Werte
+   */
+  public long getSum() {
+    return sumOf( SUM );
+  }
+
+  /**
+   * @return der groeszte eingetragene Wert, 0 wenn es noch keinen gab
+   */
+  public long getMax() {
+    long max = 0;
+    for( int i = 0; i < StripedCounter.STRIPES; i++ ) {
+      max = Math.max( max, cells.get(i * STRIDE + MAX) );
+    }
+    return max;
+  }
+
+  /**
+   * @return der Mittelwert, 0 wenn es noch keine Werte gab
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) getSum() / count;
+  }
+
+  /**
+   * Schaetzt ein Quantil ab.
+   * @param quantile zwischen 0 und 1, z.B. 0.99
+   * @return die obere Grenze der Klasse, in der das Quantil liegt, hoechstens aber der
+   * groeszte Wert. 0, wenn es noch keine Werte gab.
+   */
+  public long getQuantile( double quantile ) {
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for( int b = 0; b < BUCKETS; b++ ) {
+      counts[b] = sumOf( b );
+      total += counts[b];
+    }
+    if( total == 0 ) {
+      return 0;
+    }
+    long rank = (long) Math.ceil( quantile * total );
+    long seen = 0;
+    int b = 0;
+    for( ; b < BUCKETS - 1; b++ ) {
+      seen += counts[b];
+      if( seen >= rank && seen > 0 ) {
+        break;
+      }
+    }
+    long upper = b == 0 ? 0 : (b == 64 ? Long.MAX_VALUE : (1L << b) - 1);
+    return Math.min( upper, getMax() );
+  }
+
+  /**
+   * Loescht alle Werte.
+   */
+  public void reset() {
+    for( int i = 0; i < cells.length(); i++ ) {
+      cells.set( i, 0 );
+    }
+  }
+
+  private long sumOf( int offset ) {
+    long sum = 0;
+    for( int i = 0; i < StripedCounter.STRIPES; i++ ) {
+      sum += cells.get( i * STRIDE + offset );
+    }
+    return sum;
+  }
+
+  public String toString() {
+    return "[count: " + getCount() + ", mean: " + getMean() + ", p50: " + getQuantile(0.5)
+        + ", p99: " + getQuantile(0.99) + ", max: " + getMax() + "]";
+  }
+}
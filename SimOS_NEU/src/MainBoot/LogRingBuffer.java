@@ -0,0 +1,92 @@
+package MainBoot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <b>Aufgabe:</b> Begrenzter, sperrfreier Ringpuffer fuer die Meldungen des SysLogger.
+ * <p>
+ * Beliebig viele Threads (CPU, IO, Konsolen) duerfen gleichzeitig Meldungen ablegen,
+ * aber nur ein Thread (der Schreib-Thread des SysLogger) darf sie entnehmen.
+ * </p>
+ * <p>
+ * Jeder Platz hat eine Sequenznummer: Ist sie gleich der Schreibposition, ist der
+ * Platz frei, ist sie um eins groeszer, liegt dort eine Meldung. Ein Schreiber
+ * reserviert seinen Platz mit compareAndSet auf der Schreibposition, danach
+ * arbeitet er nur noch auf seinem eigenen Platz. Es gibt keine Sperren.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class LogRingBuffer {
+
+  private final int mask;
+  private final AtomicReferenceArray<Object> slots;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();   //naechste Schreibposition
+  private long head;                                 //naechste Leseposition, nur der Leser
+
+  /**
+   * @param capacity Anzahl der Plaetze, wird auf die naechste Zweierpotenz aufgerundet.
+   */
+  public LogRingBuffer( int capacity ) {
+    int size = Integer.highestOneBit( Math.max(capacity, 2) - 1 ) << 1;
+    this.mask = size - 1;
+    this.slots = new AtomicReferenceArray<Object>( size );
+    this.sequences = new AtomicLongArray( size );
+    for( int i = 0; i < size; i++ ) {
+      sequences.set( i, i );
+    }
+  }
+
+  /**
+   * Legt eine Meldung ab. Darf von mehreren Threads gleichzeitig aufgerufen werden.
+   * @param message die Meldung, nicht null
+   * @return false, wenn der Puffer voll ist
+   */
+  public boolean offer( Object message ) {
+    while( true ) {
+      long pos = tail.get();
+      int index = (int) pos & mask;
+      long diff = sequences.get(index) - pos;
+      if( diff == 0 ) {
+        if( tail.compareAndSet(pos, pos + 1) ) {
+          slots.set( index, message );
+          sequences.set( index, pos + 1 );   //ab jetzt sieht der Leser die Meldung
+          return true;
+        }
+      } else if( diff < 0 ) {
+        return false;                        //der Leser ist eine Runde zurueck: voll
+      }
+      //sonst hat ein anderer Schreiber den Platz schon reserviert, neu versuchen
+    }
+  }
+
+  /**
+   * Entnimmt die aelteste Meldung. Darf nur vom Leser aufgerufen werden.
+   * @return die Meldung oder null, wenn der Puffer leer ist
+   */
+  public Object poll() {
+    int index = (int) head & mask;
+    if( sequences.get(index) != head + 1 ) {
+      return null;
+    }
+    Object message = slots.get( index );
+    slots.set( index, null );
+    sequences.set( index, head + mask + 1 ); //Platz fuer die naechste Runde freigeben
+    head++;
+    return message;
+  }
+
+  /**
+   * @return true, wenn keine Meldung im Puffer liegt. Darf nur vom Leser aufgerufen werden.
+   */
+  public boolean isEmpty() {
+    return tail.get() == head;
+  }
+
+  public int getCapacity() {
+    return mask + 1;
+  }
+}
@@ -0,0 +1,379 @@
+package MainBoot;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * <b>Aufgabe:</b> Sammelt die Metriken der Teilsysteme, damit man einem laufenden
+ * System zusehen kann, ohne das Protokoll einzuschalten.
+ * <p>
+ * Jede Metrik gehoert zu einer Gruppe (den Teilsystemen des {@link SysLogger}: "cpu",
+ * "mmu", "memory", "swap", "scheduler", "process") und ist eines von
+ * <ul>
+ * <li>einem {@link StripedCounter}, der nur waechst, z.B. die Seitenfehler,</li>
+ * <li>einem {@link Histogram}, z.B. fuer die Dauer eines Seitenfehlers,</li>
+ * <li>einem {@link Gauge}, der einen aktuellen Wert abliest, z.B. die Laenge der
+ * Warteschlange.</li>
+ * </ul>
+ * Zaehler und Histogramme holen sich die Klassen einmal als Konstante und zaehlen dann
+ * ohne Sperre. Gauges meldet der BootLoader an, sie lesen beim Abfragen ohne Sperre
+ * und liefern deshalb nur ungefaehre Werte.
+ * </p>
+ * <p>
+ * Mit {@link #publish()} wird jede Gruppe als MBean <code>simos:type=Metrics,name=&lt;gruppe&gt;</code>
+ * beim MBeanServer der JVM angemeldet (z.B. fuer jconsole). Ein Histogramm erscheint
+ * dort als mehrere Attribute (<code>name.count</code>, <code>name.p99</code>, ...).
+ * {@link #dump(PrintWriter)} schreibt dieselben Werte als Text, z.B. beim Herunterfahren.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class Metrics {
+
+  public static final String DOMAIN = "simos";
+
+  /**
+   * Liest einen aktuellen Wert ab. Wird vom JMX-Thread aufgerufen, darf also nicht
+   * blockieren.
+   */
+  public interface Gauge {
+    long value();
+  }
+
+  private static final String[] HISTOGRAM_FIELDS = { "count", "sum", "mean", "p50", "p90", "p99", "max" };
+
+  private static final TreeMap<String, Group> groups = new TreeMap<String, Group>();
+  private static MBeanServer server;        //null = nicht veroeffentlicht
+
+  private Metrics() {
+  }
+
+  /**
+   * Liefert den Zaehler mit diesem Namen und legt ihn beim ersten Aufruf an.
+   * @throws IllegalArgumentException falls der Name schon fuer eine andere Art Metrik vergeben ist
+   */
+  public static StripedCounter counter( String group, String name ) {
+    return group( group ).get( name, StripedCounter.class );
+  }
+
+  /**
+   * Liefert das Histogramm mit diesem Namen und legt es beim ersten Aufruf an.
+   * @throws IllegalArgumentException falls der Name schon fuer eine andere Art Metrik vergeben ist
+   */
+  public static Histogram histogram( String group, String name ) {
+    return group( group ).get( name, Histogram.class );
+  }
+
+  /**
+   * Meldet einen Gauge an. Ein Gauge mit demselben Namen wird ersetzt, z.B. wenn ein
+   * zweites System in derselben JVM startet.
+   */
+  public static void gauge( String group, String name, Gauge gauge ) {
+    group( group ).put( name, gauge );
+  }
+
+  /**
+   * @return der aktuelle Wert eines Zaehlers oder Gauges, bei einem Histogramm die
+   * Anzahl der Werte
+   * @throws IllegalArgumentException falls es die Metrik nicht gibt
+   */
+  public static long getValue( String group, String name ) {
+    Object metric;
+    synchronized( Metrics.class ) {
+      Group g = groups.get( group );
+      metric = g == null ? null : g.metric( name );
+    }
+    if( metric == null ) {
+      throw new IllegalArgumentException( "unknown metric: " + group + "." + name );
+    }
+    if( metric instanceof Histogram ) {
+      return ((Histogram) metric).getCount();
+    }
+    return ((Number) valueOf( metric, null )).longValue();
+  }
+
+  /**
+   * Setzt alle Zaehler und Histogramme auf 0 zurueck. Gauges bleiben angemeldet.
+   */
+  public static synchronized void reset() {
+    for( Group g : groups.values() ) {
+      g.reset();
+    }
+  }
+
+  /**
+   * Meldet alle Gruppen beim MBeanServer der JVM an, auch die, die spaeter noch
+   * dazukommen. Eine Gruppe, die unter ihrem Namen schon angemeldet ist (z.B. von
+   * einem frueheren Lauf in derselben JVM), wird ersetzt.
+   */
+  public static synchronized void publish() {
+    if( server != null ) {
+      return;
+    }
+    server = ManagementFactory.getPlatformMBeanServer();
+    for( Group g : groups.values() ) {
+      register( g );
+    }
+  }
+
+  /**
+   * Meldet alle Gruppen beim MBeanServer wieder ab.
+   */
+  public static synchronized void unpublish() {
+    if( server == null ) {
+      return;
+    }
+    for( Group g : groups.values() ) {
+      try {
+        ObjectName name = objectName( g.name );
+        if( server.isRegistered(name) ) {
+          server.unregisterMBean( name );
+        }
+      } catch( JMException e ) {
+        SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "Metrics.unpublish: " + g.name + ": " + e );
+      }
+    }
+    server = null;
+  }
+
+  /**
+   * @return der Name der MBean einer Gruppe
+   */
+  public static ObjectName objectName( String group ) throws JMException {
+    return new ObjectName( DOMAIN + ":type=Metrics,name=" + group );
+  }
+
+  private static void register( Group g ) {
+    try {
+      ObjectName name = objectName( g.name );
+      if( server.isRegistered(name) ) {
+        server.unregisterMBean( name );
+      }
+      server.registerMBean( g, name );
+    } catch( JMException e ) {
+      SysLogger.writeLog( SysLogger.BOOT, SysLogger.INFO, "Metrics.publish: " + g.name + ": " + e );
+    }
+  }
+
+  /**
+   * Schreibt alle Metriken als Zeilen <code>gruppe.attribut wert</code>, nach Namen sortiert.
+   */
+  public static void dump( PrintWriter out ) {
+    ArrayList<Group> all;
+    synchronized( Metrics.class ) {
+      all = new ArrayList<Group>( groups.values() );
+    }
+    for( Group g : all ) {
+      for( String attribute : g.attributeNames() ) {
+        Object value;
+        try {
+          value = g.getAttribute( attribute );
+        } catch( AttributeNotFoundException e ) {
+          continue;                          //inzwischen ersetzt
+        }
+        out.println( g.name + "." + attribute + " " + format(value) );
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Wie {@link #dump(PrintWriter)}, in eine Datei.
+   */
+  public static void dump( File file ) throws IOException {
+    PrintWriter out = new PrintWriter( new FileWriter(file) );
+    try {
+      dump( out );
+    } finally {
+      out.close();
+    }
+  }
+
+  private static String format( Object value ) {
+    if( value instanceof Double ) {
+      return String.format( Locale.ROOT, "%.2f", value );
+    }
+    return String.valueOf( value );
+  }
+
+  private static synchronized Group group( String name ) {
+    Group g = groups.get( name );
+    if( g == null ) {
+      g = new Group( name );
+      groups.put( name, g );
+      if( server != null ) {
+        register( g );
+      }
+    }
+    return g;
+  }
+
+  /**
+   * @param field bei einem Histogramm der Teil nach dem Punkt, sonst null
+   * @return der Wert als Long oder Double, null bei einem unbekannten Feld
+   */
+  private static Object valueOf( Object metric, String field ) {
+    if( metric instanceof StripedCounter ) {
+      return Long.valueOf( ((StripedCounter) metric).get() );
+    }
+    if( metric instanceof Gauge ) {
+      return Long.valueOf( ((Gauge) metric).value() );
+    }
+    Histogram h = (Histogram) metric;
+    if( "count".equals(field) ) return Long.valueOf( h.getCount() );
+    if( "sum".equals(field) ) return Long.valueOf( h.getSum() );
+    if( "mean".equals(field) ) return Double.valueOf( h.getMean() );
+    if( "p50".equals(field) ) return Long.valueOf( h.getQuantile(0.5) );
+    if( "p90".equals(field) ) return Long.valueOf( h.getQuantile(0.9) );
+    if( "p99".equals(field) ) return Long.valueOf( h.getQuantile(0.99) );
+    if( "max".equals(field) ) return Long.valueOf( h.getMax() );
+    return null;
+  }
+
+
+
+  /**
+   * Die Metriken einer Gruppe, zugleich ihre MBean. Die Attribute sind nur lesbar,
+   * die einzige Operation ist <code>reset</code>.
+   */
+  private static final class Group implements DynamicMBean {
+
+    private final String name;
+    private final TreeMap<String, Object> metrics = new TreeMap<String, Object>();
+
+    Group( String name ) {
+      this.name = name;
+    }
+
+    synchronized <T> T get( String metric, Class<T> type ) {
+      Object m = metrics.get( metric );
+      if( m == null ) {
+        try {
+          m = type.newInstance();
+        } catch( Exception e ) {
+          throw new IllegalStateException( e );
+        }
+        metrics.put( metric, m );
+      } else if( !type.isInstance(m) ) {
+        throw new IllegalArgumentException( name + "." + metric + " is not a " + type.getSimpleName() );
+      }
+      return type.cast( m );
+    }
+
+    synchronized void put( String metric, Gauge gauge ) {
+      Object m = metrics.get( metric );
+      if( m != null && !(m instanceof Gauge) ) {
+        throw new IllegalArgumentException( name + "." + metric + " is not a Gauge" );
+      }
+      metrics.put( metric, gauge );
+    }
+
+    synchronized Object metric( String metric ) {
+      return metrics.get( metric );
+    }
+
+    synchronized void reset() {
+      for( Object m : metrics.values() ) {
+        if( m instanceof StripedCounter ) {
+          ((StripedCounter) m).reset();
+        } else if( m instanceof Histogram ) {
+          ((Histogram) m).reset();
+        }
+      }
+    }
+
+    /**
+     * @return die Namen der Attribute, ein Histogramm hat mehrere
+     */
+    synchronized ArrayList<String> attributeNames() {
+      ArrayList<String> names = new ArrayList<String>();
+      for( Map.Entry<String, Object> e : metrics.entrySet() ) {
+        if( e.getValue() instanceof Histogram ) {
+          for( String field : HISTOGRAM_FIELDS ) {
+            names.add( e.getKey() + "." + field );
+          }
+        } else {
+          names.add( e.getKey() );
+        }
+      }
+      return names;
+    }
+
+    public Object getAttribute( String attribute ) throws AttributeNotFoundException {
+      Object m = metric( attribute );
+      String field = null;
+      int dot = attribute.lastIndexOf( '.' );
+      if( m == null && dot > 0 ) {
+        m = metric( attribute.substring(0, dot) );
+        field = attribute.substring( dot + 1 );
+      }
+      Object value = null;
+      if( m != null && (field == null) != (m instanceof Histogram) ) {
+        value = valueOf( m, field );
+      }
+      if( value == null ) {
+        throw new AttributeNotFoundException( name + "." + attribute );
+      }
+      return value;
+    }
+
+    public AttributeList getAttributes( String[] attributes ) {
+      AttributeList list = new AttributeList();
+      for( String attribute : attributes ) {
+        try {
+          list.add( new Attribute(attribute, getAttribute(attribute)) );
+        } catch( AttributeNotFoundException e ) {
+          //wird laut DynamicMBean einfach weggelassen
+        }
+      }
+      return list;
+    }
+
+    public void setAttribute( Attribute attribute ) throws AttributeNotFoundException {
+      throw new AttributeNotFoundException( "read only: " + attribute.getName() );
+    }
+
+    public AttributeList setAttributes( AttributeList attributes ) {
+      return new AttributeList();
+    }
+
+    public Object invoke( String actionName, Object[] params, String[] signature ) throws ReflectionException {
+      if( "reset".equals(actionName) && (params == null || params.length == 0) ) {
+        reset();
+        return null;
+      }
+      throw new ReflectionException( new NoSuchMethodException(actionName) );
+    }
+
+    public MBeanInfo getMBeanInfo() {
+      ArrayList<String> names = attributeNames();
+      MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[names.size()];
+      for( int i = 0; i < attributes.length; i++ ) {
+        String type = names.get(i).endsWith(".mean") ? Double.class.getName() : Long.class.getName();
+        attributes[i] = new MBeanAttributeInfo( names.get(i), type, name + "." + names.get(i), true, false, false );
+      }
+      MBeanOperationInfo[] operations = {
+        new MBeanOperationInfo( "reset", "setzt die Zaehler und Histogramme der Gruppe auf 0",
+            new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION )
+      };
+      return new MBeanInfo( getClass().getName(), "SimOS Metriken: " + name, attributes, null, operations, null );
+    }
+  }
+}
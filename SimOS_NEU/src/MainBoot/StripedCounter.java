@@ -0,0 +1,68 @@
+package MainBoot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <b>Aufgabe:</b> Zaehler fuer die Metriken, den viele Threads gleichzeitig erhoehen.
+ * <p>
+ * Der Wert ist auf mehrere Teilzaehler (stripes) verteilt, jeder Thread erhoeht den
+ * Teilzaehler, der zu seiner Thread-Id gehoert. Die Teilzaehler liegen in eigenen
+ * Cache-Zeilen, die CPU-Threads kommen sich deshalb beim Zaehlen nicht in die Quere.
+ * Gelesen wird selten (JMX, Ausgabe beim Herunterfahren), dann werden alle
+ * Teilzaehler addiert.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class StripedCounter {
+
+  /** Anzahl der Teilzaehler, eine Zweierpotenz */
+  static final int STRIPES = Integer.highestOneBit( Math.min(Runtime.getRuntime().availableProcessors(), 16) ) * 2;
+
+  /** Abstand zweier Teilzaehler im Array, 8 long = 64 Byte = eine Cache-Zeile */
+  static final int PADDING = 8;
+
+  private final AtomicLongArray cells = new AtomicLongArray( STRIPES * PADDING );
+
+  public void increment() {
+    cells.getAndIncrement( stripe() * PADDING );
+  }
+
+  public void add( long delta ) {
+    if( delta != 0 ) {
+      cells.getAndAdd( stripe() * PADDING, delta );
+    }
+  }
+
+  /**
+   * @return die Summe aller Teilzaehler. Laufen gleichzeitig Erhoehungen, ist die
+   * Summe nur ungefaehr (es fehlen evtl. die letzten).
+   */
+  public long get() {
+    long sum = 0;
+    for( int i = 0; i < STRIPES; i++ ) {
+      sum += cells.get( i * PADDING );
+    }
+    return sum;
+  }
+
+  /**
+   * Setzt den Zaehler auf 0 zurueck.
+   */
+  public void reset() {
+    for( int i = 0; i < STRIPES; i++ ) {
+      cells.set( i * PADDING, 0 );
+    }
+  }
+
+  /**
+   * @return der Teilzaehler des aufrufenden Threads
+   */
+  static int stripe() {
+    return (int) Thread.currentThread().getId() & (STRIPES - 1);
+  }
+
+  public String toString() {
+    return Long.toString( get() );
+  }
+}
@@ -1,47 +1,375 @@
 package MainBoot;
 
 import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 
  * Klasse zur Protokollfuehrung waehrend das BS laueft.
+ * <p>
+ * Jede Meldung gehoert zu einem Teilsystem (CPU, ALU, MMU, ...) und hat eine Stufe
+ * (INFO, DEBUG, TRACE). Fuer jedes Teilsystem gibt es eine eigene Protokollstufe:
+ * Eine Meldung wird nur geschrieben, wenn ihre Stufe kleiner oder gleich der
+ * Protokollstufe ihres Teilsystems ist. Mit <code>OFF</code> ist das Teilsystem stumm.
+ * </p>
+ * <p>
+ * Die Protokollstufen lassen sich zur Laufzeit mit {@link #setTraceLevel(int, int)}
+ * bzw. {@link #setTraceLevels(String)} aendern. Beim Start werden sie aus der
+ * System-Property <code>simos.trace</code> gelesen, z.B.
+ * <code>-Dsimos.trace=alu=2,mmu=off</code>.
+ * </p>
+ * <p>
+ * Haeufige Meldungen (z.B. pro Befehl oder pro Speicherzugriff) sollen vorher mit
+ * {@link #isTraceEnabled(int, int)} pruefen, ob sie ueberhaupt geschrieben werden,
+ * damit der String gar nicht erst zusammengesetzt wird. Mit einer {@link Message}
+ * wird der Text sogar erst im Schreib-Thread erzeugt.
+ * </p>
+ * <p>
+ * Geschrieben wird asynchron: Die Meldungen landen in einem sperrfreien Ringpuffer
+ * ({@link LogRingBuffer}), ein Hintergrund-Thread schreibt sie gesammelt in die
+ * Logdatei und auf stdout. Geleert (flush) wird, sobald <code>batchSize</code>
+ * Meldungen anstehen oder <code>flushIntervalMillis</code> vergangen sind. Ist der
+ * Puffer voll, wartet der Aufrufer (<code>BLOCK</code>) oder die Meldung wird
+ * verworfen und gezaehlt (<code>DROP</code>), siehe <code>simos.log.overflow</code>.
+ * Solange das Protokoll nicht eroeffnet ist, wird direkt auf stdout geschrieben.
+ * </p>
  *
  */
 public class SysLogger {
 	
-  static int traceFlag = 0;   //warum das???? TODO
+  /* Teilsysteme */
+  public static final int BOOT = 0;
+  public static final int CPU = 1;
+  public static final int ALU = 2;
+  public static final int MMU = 3;
+  public static final int MEMORY = 4;
+  public static final int SWAP = 5;
+  public static final int SCHEDULER = 6;
+  public static final int PROCESS = 7;
+  public static final int IO = 8;
+  
+  private static final String[] SUBSYSTEM_NAMES =
+    { "boot", "cpu", "alu", "mmu", "memory", "swap", "scheduler", "process", "io" };
+  
+  /* Stufen */
+  public static final int OFF = -1;
+  public static final int INFO = 0;
+  public static final int DEBUG = 1;
+  public static final int TRACE = 2;
+  
+  /* Verhalten bei vollem Puffer */
+  public static final int DROP = 0;
+  public static final int BLOCK = 1;
+  
+  /**
+   * Eine Meldung, deren Text erst im Schreib-Thread erzeugt wird. Darf deshalb nur
+   * Werte verwenden, die sich nicht mehr aendern (z.B. Kopien in final-Variablen).
+   */
+  public interface Message {
+    String text();
+  }
+  
+  static int traceFlag = INFO;   //Voreinstellung fuer alle Teilsysteme
   static String logFile = "syslog.txt";
-  static private BufferedWriter log;
+  static int batchSize = 256;               //Meldungen pro Schreibvorgang bzw. bis zum flush
+  static long flushIntervalMillis = 100;    //spaetestens dann wird geflusht
+  static boolean echo = true;               //Meldungen zusaetzlich auf stdout ausgeben
+  static volatile int overflowPolicy = "drop".equals(System.getProperty("simos.log.overflow")) ? DROP : BLOCK;
+  
+  static private final LogRingBuffer buffer = new LogRingBuffer( Integer.getInteger("simos.log.buffer", 8192) );
+  static private final AtomicLong dropped = new AtomicLong();
+  static private volatile LogWriter writer;    //null = Protokoll ist nicht eroeffnet
+  
+  /**
+   * Protokollstufe pro Teilsystem. Wird beim Aendern kopiert (copy on write),
+   * damit die CPU-Threads ohne Synchronisation lesen koennen.
+   */
+  static private volatile int[] traceLevels = initialTraceLevels();
  
 
+  /**
+   * Schreibt eine Meldung des Teilsystems BOOT.
+   */
   public static void writeLog( int traceLevel, String message ) {
+    writeLog( BOOT, traceLevel, message );
+  }
+
+  /**
+   * Schreibt eine Meldung, wenn die Protokollstufe des Teilsystems das zulaesst.
+   * @param subsystem das Teilsystem, z.B. <code>SysLogger.MMU</code>
+   * @param traceLevel die Stufe der Meldung
+   * @param message die Meldung
+   */
+  public static void writeLog( int subsystem, int traceLevel, String message ) {
+    if( isTraceEnabled(subsystem, traceLevel) ) {
+      write( message );
+    }
+  }
+
+  /**
+   * Wie {@link #writeLog(int, int, String)}, der Text wird aber erst im
+   * Schreib-Thread erzeugt.
+   */
+  public static void writeLog( int subsystem, int traceLevel, Message message ) {
+    if( isTraceEnabled(subsystem, traceLevel) ) {
+      write( message );
+    }
+  }
+
+  /**
+   * @return true, wenn eine Meldung dieser Stufe im Teilsystem geschrieben wird.
+   */
+  public static boolean isTraceEnabled( int subsystem, int traceLevel ) {
+    return traceLevel <= traceLevels[subsystem];
+  }
+
+  /**
+   * Setzt die Protokollstufe eines Teilsystems. Wirkt sofort, auch waehrend das
+   * BS laeuft.
+   * @param subsystem das Teilsystem
+   * @param traceLevel <code>OFF</code>, <code>INFO</code>, <code>DEBUG</code> oder <code>TRACE</code>
+   */
+  public static synchronized void setTraceLevel( int subsystem, int traceLevel ) {
+    int[] levels = traceLevels.clone();
+    levels[subsystem] = traceLevel;
+    traceLevels = levels;
+  }
+
+  public static int getTraceLevel( int subsystem ) {
+    return traceLevels[subsystem];
+  }
+
+  /**
+   * Setzt die Protokollstufen aus einer Beschreibung der Form
+   * <code>teilsystem=stufe,teilsystem=stufe,...</code>, z.B. <code>alu=trace,mmu=off</code>.
+   * Die Stufe darf als Zahl oder als Name angegeben werden, "all" steht fuer alle
+   * Teilsysteme. Unbekannte Eintraege werden ignoriert.
+   */
+  public static synchronized void setTraceLevels( String spec ) {
+    if( spec == null ) {
+      return;
+    }
+    for( String entry : spec.split(",") ) {
+      String[] pair = entry.trim().split("=");
+      if( pair.length != 2 ) {
+        continue;
+      }
+      int level = parseLevel( pair[1].trim() );
+      if( level < OFF ) {
+        continue;
+      }
+      String name = pair[0].trim().toLowerCase();
+      for( int i = 0; i < SUBSYSTEM_NAMES.length; i++ ) {
+        if( name.equals("all") || name.equals(SUBSYSTEM_NAMES[i]) ) {
+          setTraceLevel( i, level );
+        }
+      }
+    }
+  }
+
+  /**
+   * @return die Stufe oder <code>OFF - 1</code>, wenn der Text keine Stufe ist.
+   */
+  private static int parseLevel( String level ) {
+    String l = level.toLowerCase();
+    if( l.equals("off") ) return OFF;
+    if( l.equals("info") ) return INFO;
+    if( l.equals("debug") ) return DEBUG;
+    if( l.equals("trace") ) return TRACE;
     try {
-      if( traceLevel <= traceFlag ) {
-        System.out.println( message );
-        log.write( message );
-        log.newLine();
-        log.flush();
+      return Integer.parseInt( l );
+    } catch( NumberFormatException e ) {
+      return OFF - 1;
+    }
+  }
+
+  private static int[] initialTraceLevels() {
+    int[] levels = new int[SUBSYSTEM_NAMES.length];
+    for( int i = 0; i < levels.length; i++ ) {
+      levels[i] = traceFlag;
+    }
+    return levels;
+  }
+
+  /**
+   * Setzt das Verhalten bei vollem Puffer.
+   * @param policy <code>DROP</code> oder <code>BLOCK</code>
+   */
+  public static void setOverflowPolicy( int policy ) {
+    overflowPolicy = policy;
+  }
+
+  /**
+   * @return Anzahl der Meldungen, die seit dem letzten Schreibvorgang verworfen wurden.
+   */
+  public static long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Legt die Meldung in den Puffer. Ist das Protokoll nicht eroeffnet, wird direkt
+   * auf stdout geschrieben.
+   */
+  private static void write( Object message ) {
+    LogWriter w = writer;
+    if( w == null ) {
+      writeDirect( message );
+      return;
+    }
+    while( !buffer.offer(message) ) {
+      if( overflowPolicy == DROP ) {
+        dropped.incrementAndGet();
+        return;
       }
-    } catch( IOException e ) {
-      // Was nun?
+      LockSupport.unpark( w );               //BLOCK: den Schreiber antreiben und warten
+      Thread.yield();
+      if( writer != w || !w.isAlive() ) {    //Protokoll wurde inzwischen geschlossen
+        writeDirect( message );
+        return;
+      }
+    }
+    if( w.waiting ) {
+      LockSupport.unpark( w );
     }
   }
 
+  private static synchronized void writeDirect( Object message ) {
+    System.out.println( text(message) );
+  }
+
+  private static String text( Object message ) {
+    if( message instanceof Message ) {
+      try {
+        return ((Message) message).text();
+      } catch( RuntimeException e ) {
+        return "SysLogger: message failed: " + e;
+      }
+    }
+    return String.valueOf( message );
+  }
+
   /**
    * Eroeffnet die Protokolierung.
    * @throws IOException
    */
-  public static void openLog() throws IOException {
-    log = new BufferedWriter( new FileWriter(logFile) );
+  public static synchronized void openLog() throws IOException {
+    if( writer != null ) {
+      closeLog();
+    }
+    LogWriter w = new LogWriter( new BufferedWriter(new FileWriter(logFile)) );
+    w.start();
+    writer = w;
+    setTraceLevels( System.getProperty("simos.trace") );
     writeLog( 0, "Booting...");
   }
 
   /**
-   * Schlieszt die Protokolierung.
+   * Schlieszt die Protokolierung. Alle Meldungen im Puffer werden vorher geschrieben.
+   * <p>
+   * Der Schreib-Thread wird zuerst abgemeldet, neue Meldungen gehen also sofort direkt
+   * auf stdout. Meldungen von Threads, die ihn gerade noch gesehen und erst nach seinem
+   * letzten Leeren abgelegt haben, werden nach seinem Ende ebenfalls auf stdout
+   * geschrieben.
+   * </p>
    * @throws IOException
    */
-  public static void closeLog() throws IOException {
-    log.close();
+  public static synchronized void closeLog() throws IOException {
+    LogWriter w = writer;
+    if( w == null ) {
+      return;
+    }
+    writer = null;
+    w.closing = true;
+    LockSupport.unpark( w );
+    try {
+      w.join();
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    Object message;
+    while( !w.isAlive() && (message = buffer.poll()) != null ) {   //nur ein Leser
+      writeDirect( message );
+    }
+    if( w.error != null ) {
+      throw w.error;
+    }
+  }
+  
+  /**
+   * Der Schreib-Thread: Einziger Leser des Ringpuffers.
+   */
+  private static final class LogWriter extends Thread {
+    
+    private final BufferedWriter log;
+    volatile boolean waiting;     //true, wenn der Thread auf neue Meldungen wartet
+    volatile boolean closing;
+    IOException error;
+    
+    LogWriter( BufferedWriter log ) {
+      super( "SysLogger" );
+      setDaemon( true );
+      this.log = log;
+    }
+    
+    public void run() {
+      StringBuilder batch = new StringBuilder();
+      String newLine = System.getProperty( "line.separator" );
+      long flushInterval = flushIntervalMillis * 1000000L;
+      long lastFlush = System.nanoTime();
+      int pending = 0;             //geschrieben, aber noch nicht geflusht
+      try {
+        while( true ) {
+          boolean closeNow = closing;  //vor dem Leeren lesen, damit nichts verloren geht
+          int n = 0;
+          Object message;
+          while( n < batchSize && (message = buffer.poll()) != null ) {
+            batch.append( text(message) ).append( newLine );
+            n++;
+          }
+          long lost = dropped.getAndSet( 0 );
+          if( lost > 0 ) {
+            batch.append( "SysLogger: " + lost + " messages dropped" ).append( newLine );
+          }
+          if( batch.length() > 0 ) {
+            log.write( batch.toString() );
+            if( echo ) {
+              System.out.print( batch );
+            }
+            batch.setLength( 0 );
+            pending += n;
+          }
+          long now = System.nanoTime();
+          if( pending > 0 && (pending >= batchSize || now - lastFlush >= flushInterval || closeNow) ) {
+            log.flush();
+            System.out.flush();
+            pending = 0;
+            lastFlush = now;
+          }
+          if( n == batchSize ) {
+            continue;              //es steht vermutlich noch mehr an
+          }
+          if( closeNow ) {
+            break;
+          }
+          waiting = true;
+          if( buffer.isEmpty() && !closing ) {
+            LockSupport.parkNanos( this, pending > 0 ? flushInterval : flushInterval * 10 );
+          }
+          waiting = false;
+        }
+      } catch( IOException e ) {
+        error = e;                 // Was nun? closeLog meldet es.
+      } finally {
+        try {
+          log.close();
+        } catch( IOException e ) {
+          if( error == null ) {
+            error = e;
+          }
+        }
+      }
+    }
   }
   
 }
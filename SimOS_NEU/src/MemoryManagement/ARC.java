@@ -0,0 +1,105 @@
+package MemoryManagement;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * <b>Aufgabe:</b> Adaptive Seitenersetzung nach ARC, umgesetzt als CAR (Clock with
+ * Adaptive Replacement).
+ * <p>
+ * ARC braucht eine LRU-Liste, also jeden einzelnen Speicherzugriff. Der Simulator kennt aber
+ * nur die R-Bits, deshalb werden die beiden Listen von ARC wie bei CAR durch zwei Uhren
+ * ersetzt:
+ * <ul>
+ * <li>T1: Seiten, die seit dem Einlagern nicht erneut gebraucht wurden (recency)</li>
+ * <li>T2: Seiten, die mindestens zweimal gebraucht wurden (frequency)</li>
+ * </ul>
+ * Dazu kommen B1 und B2 mit den Schluesseln der zuletzt aus T1 bzw. T2 verdraengten Seiten.
+ * Wird eine Seite aus B1 wieder gebraucht, war T1 zu klein und die Soll-Groesze <code>p</code>
+ * von T1 waechst, bei einer Seite aus B2 schrumpft sie.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class ARC extends AbstractPageReplacement {
+
+	private final int capacity;		//Anzahl der Rahmen
+	private int p;					//Soll-Groesze von T1
+	
+	private ArrayDeque<Page> t1 = new ArrayDeque<Page>();	//Kopf = Uhrzeiger
+	private ArrayDeque<Page> t2 = new ArrayDeque<Page>();
+	private LinkedHashSet<Long> b1 = new LinkedHashSet<Long>();	//aeltester Schluessel zuerst
+	private LinkedHashSet<Long> b2 = new LinkedHashSet<Long>();
+	
+	
+	/**
+	 * @param capacity Anzahl der Rahmen im Hauptspeicher
+	 */
+	public ARC(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+	
+	
+	protected void insert(Page page) {
+		Long key = Long.valueOf(page.key());
+		if(b1.remove(key)) {
+			p = Math.min(p + Math.max(1, b2.size() / Math.max(b1.size(), 1)), capacity);
+			t2.addLast(page);
+		} else if(b2.remove(key)) {
+			p = Math.max(p - Math.max(1, b1.size() / Math.max(b2.size(), 1)), 0);
+			t2.addLast(page);
+		} else {
+			if(t1.size() + b1.size() >= capacity) {
+				removeOldest(b1);
+			} else if(t1.size() + t2.size() + b1.size() + b2.size() >= 2 * capacity) {
+				removeOldest(b2);
+			}
+			t1.addLast(page);
+		}
+	}
+	
+	
+	public int[] execute() {
+		while(!t1.isEmpty() || !t2.isEmpty()) {
+			if(!t1.isEmpty() && (t1.size() >= Math.max(1, p) || t2.isEmpty())) {
+				Page page = t1.pollFirst();
+				if(!page.isReferenced()) {
+					b1.add(Long.valueOf(page.key()));
+					return victim(page);
+				}
+				page.entry.setReferenced(false);
+				t2.addLast(page);				//erneut gebraucht: nach T2
+			} else {
+				Page page = t2.pollFirst();
+				if(!page.isReferenced()) {
+					b2.add(Long.valueOf(page.key()));
+					return victim(page);
+				}
+				page.entry.setReferenced(false);
+				t2.addLast(page);
+			}
+		}
+		return null;
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		removePages(t1, pageTableAddr);
+		removePages(t2, pageTableAddr);
+		removeKeys(b1, pageTableAddr);
+		removeKeys(b2, pageTableAddr);
+	}
+	
+	
+	private static void removeOldest(LinkedHashSet<Long> keys) {
+		Iterator<Long> it = keys.iterator();
+		if(it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package MemoryManagement;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * <b>Aufgabe:</b> Gemeinsame Basis der Seitenersetzungsalgorithmen.
+ * <p>
+ * Jede eingelagerte Seite wird als {@link Page} gemerkt. Die Algorithmen sehen
+ * ueber den Seitentabelleneintrag das R-Bit (referenced) und das M-Bit (modified),
+ * die die MMU setzt.
+ * </p>
+ * <p>
+ * Da die Algorithmen nicht jeden Speicherzugriff mitbekommen, gibt es eine
+ * virtuelle Zeit: Sie wird bei jedem Seitenfehler (jedem <code>insert</code>)
+ * um eins erhoeht. Algorithmen wie Aging oder LRU-K tasten die R-Bits zu diesen
+ * Zeitpunkten ab.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public abstract class AbstractPageReplacement implements PageReplacementIF {
+
+	/**
+	 * Eine eingelagerte Seite.
+	 */
+	protected static class Page {
+		final int allocateTableAddr;	//Adresse der Plattenzuordnungstabelle
+		final int pageTableAddr;		//Adresse der Seitentabelle
+		final int pageNr;				//Seitennummer
+		final PageTableEntry entry;		//Seitentabelleneintrag
+		long lastUse;					//virtuelle Zeit des letzten bekannten Zugriffs
+		
+		Page(int allocateTableAddr, int pageTableAddr, PageTableEntry entry, int pageNr) {
+			this.allocateTableAddr = allocateTableAddr;
+			this.pageTableAddr = pageTableAddr;
+			this.entry = entry;
+			this.pageNr = pageNr;
+		}
+		
+		boolean isReferenced() {
+			return entry.isReferenced();
+		}
+		
+		boolean isModified() {
+			return entry.isModified();
+		}
+		
+		long key() {
+			return AbstractPageReplacement.key(pageTableAddr, pageNr);
+		}
+	}
+	
+	
+	private long time;		//virtuelle Zeit: Anzahl der Seitenfehler
+	
+	
+	/**
+	 * Merkt sich die eingelagerte Seite und erhoeht die virtuelle Zeit.
+	 */
+	public void insert(int allocateTableAddr, int pageTableAddr, PageTableEntry entry, int pageNr) {
+		Page page = new Page(allocateTableAddr, pageTableAddr, entry, pageNr);
+		page.lastUse = ++time;
+		this.insert(page);
+	}
+	
+	
+	/**
+	 * Nimmt eine neu eingelagerte Seite auf.
+	 */
+	protected abstract void insert(Page page);
+	
+	
+	/**
+	 * @return die aktuelle virtuelle Zeit
+	 */
+	protected long now() {
+		return time;
+	}
+	
+	
+	/**
+	 * Erzeugt das Ergebnis von <code>execute()</code> fuer die verdraengte Seite.
+	 */
+	protected static int[] victim(Page page) {
+		return new int[] {
+				page.pageNr,
+				page.entry.getFrameNr(),
+				page.allocateTableAddr,
+				page.pageTableAddr
+		};
+	}
+	
+	
+	/**
+	 * Eindeutiger Schluessel einer Seite, auch ueber ihre Verdraengung hinaus.
+	 */
+	protected static long key(int pageTableAddr, int pageNr) {
+		return ((long) pageTableAddr << 32) | (pageNr & 0xFFFFFFFFL);
+	}
+	
+	
+	/**
+	 * @return die Adresse der Seitentabelle aus einem Schluessel
+	 */
+	protected static int pageTableAddrOf(long key) {
+		return (int) (key >>> 32);
+	}
+	
+	
+	/**
+	 * Entfernt alle Seiten eines Prozesses aus einer Sammlung.
+	 */
+	protected static void removePages(Collection<? extends Page> pages, int pageTableAddr) {
+		for(Iterator<? extends Page> it = pages.iterator(); it.hasNext(); ) {
+			if(it.next().pageTableAddr == pageTableAddr) {
+				it.remove();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Entfernt alle Schluessel eines Prozesses aus einer Sammlung.
+	 */
+	protected static void removeKeys(Collection<Long> keys, int pageTableAddr) {
+		for(Iterator<Long> it = keys.iterator(); it.hasNext(); ) {
+			if(pageTableAddrOf(it.next()) == pageTableAddr) {
+				it.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package MemoryManagement;
+
+import java.util.ArrayList;
+
+/**
+ * <b>Aufgabe:</b> Seitenersetzung nach dem Aging-Verfahren.
+ * <p>
+ * Jede Seite hat einen Zaehler mit <code>bits</code> Bits. Bei jedem Aufruf von
+ * <code>execute()</code> wird jeder Zaehler um eins nach rechts geschoben und das R-Bit
+ * von links eingeschoben, danach wird das R-Bit geloescht. Verdraengt wird die Seite
+ * mit dem kleinsten Zaehler, bei Gleichstand die aelteste.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class Aging extends AbstractPageReplacement {
+
+	private ArrayList<AgedPage> pages = new ArrayList<AgedPage>();
+	private final long topBit;
+	
+	private static class AgedPage extends Page {
+		long counter;
+		
+		AgedPage(Page page) {
+			super(page.allocateTableAddr, page.pageTableAddr, page.entry, page.pageNr);
+		}
+	}
+	
+	/**
+	 * @param bits Anzahl der Bits des Zaehlers, 1 bis 63
+	 */
+	public Aging(int bits) {
+		if(bits < 1 || bits > 63) {
+			throw new IllegalArgumentException("bits: " + bits);
+		}
+		this.topBit = 1L << (bits - 1);
+	}
+	
+	
+	/**
+	 * Eine neue Seite zaehlt als gerade eben referenziert.
+	 */
+	protected void insert(Page page) {
+		AgedPage aged = new AgedPage(page);
+		aged.counter = topBit;
+		pages.add(aged);
+	}
+	
+	
+	public int[] execute() {
+		AgedPage victim = null;
+		int victimIndex = -1;
+		for(int i = 0; i < pages.size(); i++) {
+			AgedPage page = pages.get(i);
+			page.counter = (page.counter >>> 1) | (page.isReferenced() ? topBit : 0);
+			page.entry.setReferenced(false);
+			if(victim == null || page.counter < victim.counter) {
+				victim = page;
+				victimIndex = i;
+			}
+		}
+		if(victim == null) {
+			return null;
+		}
+		pages.remove(victimIndex);
+		return victim(victim);
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		removePages(pages, pageTableAddr);
+	}
+}
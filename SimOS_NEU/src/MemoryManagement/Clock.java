@@ -56,9 +56,10 @@ public class Clock implements PageReplacementIF {
 	 * Fuegt ein neues Listenelement hinter dem Uhrzeiger in der Ringliste ein.
 	 * Damit wird garantiert, dass die neusten Seiten als
 	 * letztes vom Uhrzeiger besucht werden.
-	 *
+	 * Die neue Seite gilt als referenziert, sie bekommt also wie bisher eine zweite Chance.
 	 */
 	public void insert(int allocateTableAddr, int pageTableAddr, PageTableEntry entry, int pageNr) {
+		entry.setReferenced(true);
 		Cell newCell = new Cell(allocateTableAddr, pageTableAddr, entry, pageNr);
 		if(cursor != null) {
 			cursor.prevCell.next = newCell;
@@ -106,6 +107,36 @@ public class Clock implements PageReplacementIF {
 	
 	
 	
+	/**
+	 * Entfernt alle Zellen eines Prozesses aus der Ringliste.
+	 * Die Reihenfolge der uebrigen Zellen und die Position des Uhrzeigers
+	 * bleiben erhalten.
+	 * @param pageTableAddr Adresse der Seitentabelle des Prozesses
+	 */
+	public void remove(int pageTableAddr) {
+		
+		if(cursor == null) {
+			return;
+		}
+		
+		int count = 1;							//Zellen in der Ringliste zaehlen
+		for(Cell c = cursor.actCell.next; c != cursor.actCell; c = c.next) {
+			count++;
+		}
+		
+		for(int i = 0; i < count && cursor != null; i++) { //einmal rundherum
+			if(cursor.actCell.pageTableAddr == pageTableAddr) {
+				this.remove();						//Cursor steht danach auf dem Nachfolger
+			} else {
+				this.next();
+			}
+		}
+	}
+	
+	
+	
+	
+	
 	/**
 	 * Wenn ein Seitenfehler auftritt, wird diese Methode aufgerufen.
 	 * Zunaechst wird die Seite geprueft, auf die der Uhrzeiger(Cursor) steht.
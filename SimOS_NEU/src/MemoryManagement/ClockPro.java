@@ -0,0 +1,244 @@
+package MemoryManagement;
+
+import java.util.HashMap;
+
+/**
+ * <b>Aufgabe:</b> Seitenersetzung nach CLOCK-Pro.
+ * <p>
+ * Alle Seiten liegen in einer Ringliste. Eingelagerte Seiten sind entweder heisz (hot)
+ * oder kalt (cold). Von verdraengten kalten Seiten bleibt ein Eintrag ohne Rahmen in der
+ * Ringliste (non-resident), solange ihre Testphase laeuft. Wird eine solche Seite in
+ * dieser Zeit wieder gebraucht, war ihr Wiederverwendungsabstand kurz: Sie wird als
+ * heisze Seite eingelagert und der Anteil der kalten Seiten (<code>coldTarget</code>)
+ * waechst. Laeuft die Testphase ab, schrumpft er wieder.
+ * </p>
+ * <p>
+ * Drei Uhrzeiger laufen ueber die Ringliste:
+ * <ul>
+ * <li>handCold sucht eine kalte Seite zum Verdraengen. Ist ihr R-Bit gesetzt, wird sie heisz.</li>
+ * <li>handHot macht heisze Seiten ohne R-Bit kalt, wenn es zu viele heisze Seiten gibt.</li>
+ * <li>handTest beendet die Testphase von Seiten ohne Rahmen.</li>
+ * </ul>
+ * Verdraengt werden nur kalte Seiten.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class ClockPro extends AbstractPageReplacement {
+
+	private static final int HOT = 0;
+	private static final int COLD = 1;
+	private static final int TEST = 2;		//verdraengt, Testphase laeuft
+	
+	/**
+	 * Ein Element der Ringliste.
+	 */
+	private static class Node {
+		Node prev;
+		Node next;
+		final long key;
+		Page page;		//null, wenn die Seite nicht eingelagert ist
+		int state;
+		
+		Node(long key, Page page, int state) {
+			this.key = key;
+			this.page = page;
+			this.state = state;
+		}
+	}
+	
+	private final int capacity;		//Anzahl der Rahmen
+	private int coldTarget = 1;		//Soll-Anzahl kalter Seiten
+	private int hotCount;
+	private int coldCount;
+	private int testCount;
+	
+	private Node handHot;
+	private Node handCold;
+	private Node handTest;
+	
+	private HashMap<Long, Node> testNodes = new HashMap<Long, Node>();	//Seiten in der Testphase
+	
+	
+	/**
+	 * @param capacity Anzahl der Rahmen im Hauptspeicher
+	 */
+	public ClockPro(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+	
+	
+	protected void insert(Page page) {
+		Node test = testNodes.remove(page.key());
+		if(test != null) {					//Wiederverwendung in der Testphase
+			unlink(test);
+			testCount--;
+			coldTarget = Math.min(coldTarget + 1, Math.max(capacity - 1, 1));
+			link(new Node(page.key(), page, HOT));
+			hotCount++;
+			while(hotCount > capacity - coldTarget && hotCount > 0) {
+				runHandHot();
+			}
+		} else {
+			link(new Node(page.key(), page, COLD));
+			coldCount++;
+		}
+	}
+	
+	
+	public int[] execute() {
+		while(hotCount + coldCount > 0) {
+			if(coldCount == 0) {
+				runHandHot();
+				continue;
+			}
+			Page victim = runHandCold();
+			if(victim != null) {
+				return victim(victim);
+			}
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Bearbeitet die Seite unter handCold.
+	 * @return die verdraengte Seite oder null
+	 */
+	private Page runHandCold() {
+		Node node = handCold;
+		handCold = node.next;
+		if(node.state != COLD) {
+			return null;
+		}
+		Page page = node.page;
+		coldCount--;
+		if(page.isReferenced()) {			//kurzer Wiederverwendungsabstand: wird heisz
+			page.entry.setReferenced(false);
+			node.state = HOT;
+			hotCount++;
+			while(hotCount > capacity - coldTarget && hotCount > 0) {
+				runHandHot();
+			}
+			return null;
+		}
+		node.state = TEST;					//verdraengen, aber noch beobachten
+		node.page = null;
+		testNodes.put(node.key, node);
+		testCount++;
+		while(testCount > capacity) {
+			runHandTest();
+		}
+		return page;
+	}
+	
+	
+	/**
+	 * Bearbeitet die Seite unter handHot.
+	 */
+	private void runHandHot() {
+		if(handHot == handTest) {
+			runHandTest();
+		}
+		Node node = handHot;
+		handHot = node.next;
+		if(node.state == HOT) {
+			if(node.page.isReferenced()) {
+				node.page.entry.setReferenced(false);
+			} else {
+				node.state = COLD;
+				hotCount--;
+				coldCount++;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Bearbeitet die Seite unter handTest. Endet ihre Testphase, wird sie
+	 * aus der Ringliste entfernt.
+	 */
+	private void runHandTest() {
+		Node node = handTest;
+		if(node == null) {
+			return;
+		}
+		handTest = node.next;
+		if(node.state == TEST) {
+			testNodes.remove(node.key);
+			unlink(node);
+			testCount--;
+			coldTarget = Math.max(coldTarget - 1, 1);
+		}
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		if(handHot == null) {
+			return;
+		}
+		Node node = handHot;
+		int size = hotCount + coldCount + testCount;
+		for(int i = 0; i < size; i++) {
+			Node next = node.next;
+			if(pageTableAddrOf(node.key) == pageTableAddr) {
+				if(node.state == HOT) {
+					hotCount--;
+				} else if(node.state == COLD) {
+					coldCount--;
+				} else {
+					testCount--;
+					testNodes.remove(node.key);
+				}
+				unlink(node);
+			}
+			node = next;
+		}
+	}
+	
+	
+	/**
+	 * Fuegt einen Knoten hinter handHot ein, er wird also als letzter besucht.
+	 */
+	private void link(Node node) {
+		if(handHot == null) {
+			node.prev = node;
+			node.next = node;
+			handHot = node;
+			handCold = node;
+			handTest = node;
+			return;
+		}
+		node.next = handHot;
+		node.prev = handHot.prev;
+		handHot.prev.next = node;
+		handHot.prev = node;
+	}
+	
+	
+	/**
+	 * Entfernt einen Knoten. Zeigt ein Uhrzeiger darauf, steht er danach auf dem Nachfolger.
+	 */
+	private void unlink(Node node) {
+		if(node.next == node) {
+			handHot = null;
+			handCold = null;
+			handTest = null;
+			return;
+		}
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		if(handHot == node) {
+			handHot = node.next;
+		}
+		if(handCold == node) {
+			handCold = node.next;
+		}
+		if(handTest == node) {
+			handTest = node.next;
+		}
+	}
+}
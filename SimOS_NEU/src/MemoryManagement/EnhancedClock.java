@@ -0,0 +1,87 @@
+package MemoryManagement;
+
+import java.util.ArrayList;
+
+/**
+ * <b>Aufgabe:</b> Clock mit R- und M-Bit (enhanced second chance).
+ * <p>
+ * Die Seiten werden nach (R, M) in vier Klassen eingeteilt. Der Uhrzeiger sucht
+ * <ol>
+ * <li>eine Seite mit (0, 0), ohne etwas zu veraendern,</li>
+ * <li>sonst eine Seite mit (0, 1) und loescht dabei das R-Bit aller besuchten Seiten,</li>
+ * <li>sonst wieder wie 1. und 2.</li>
+ * </ol>
+ * Unveraenderte Seiten werden so bevorzugt verdraengt, weil sie nicht
+ * zurueckgeschrieben werden muessen.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class EnhancedClock extends AbstractPageReplacement {
+
+	protected ArrayList<Page> ring = new ArrayList<Page>();
+	protected int hand;		//Uhrzeiger: Index in ring
+	
+	
+	/**
+	 * Fuegt die Seite hinter dem Uhrzeiger ein, sie wird also als letzte besucht.
+	 */
+	protected void insert(Page page) {
+		ring.add(hand, page);
+		hand = (hand + 1) % ring.size();
+	}
+	
+	
+	public int[] execute() {
+		if(ring.isEmpty()) {
+			return null;
+		}
+		for(int round = 0; round < 4; round++) {
+			for(int i = 0; i < ring.size(); i++) {
+				Page page = ring.get(hand);
+				if(!page.isReferenced()) {
+					if(round % 2 == 0 ? !page.isModified() : page.isModified()) {
+						return victim(evict());
+					}
+				}
+				if(round % 2 == 1) {
+					page.entry.setReferenced(false);
+				}
+				advance();
+			}
+		}
+		return victim(evict());		//nicht erreichbar: nach Runde 2 sind alle R-Bits geloescht
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		for(int i = ring.size() - 1; i >= 0; i--) {
+			if(ring.get(i).pageTableAddr == pageTableAddr) {
+				ring.remove(i);
+				if(i < hand) {
+					hand--;
+				}
+			}
+		}
+		if(hand >= ring.size()) {
+			hand = 0;
+		}
+	}
+	
+	
+	protected void advance() {
+		hand = (hand + 1) % ring.size();
+	}
+	
+	
+	/**
+	 * Entfernt die Seite unter dem Uhrzeiger. Der Uhrzeiger steht danach auf dem Nachfolger.
+	 */
+	protected Page evict() {
+		Page page = ring.remove(hand);
+		if(hand >= ring.size()) {
+			hand = 0;
+		}
+		return page;
+	}
+}
@@ -0,0 +1,33 @@
+package MemoryManagement;
+
+import java.util.ArrayDeque;
+
+/**
+ * <b>Aufgabe:</b> Seitenersetzung nach First In First Out.
+ * <p>
+ * Verdraengt wird immer die Seite, die am laengsten im Hauptspeicher ist,
+ * egal ob sie benutzt wird oder nicht.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class FIFO extends AbstractPageReplacement {
+
+	private ArrayDeque<Page> queue = new ArrayDeque<Page>();
+	
+	
+	protected void insert(Page page) {
+		queue.addLast(page);
+	}
+	
+	
+	public int[] execute() {
+		Page page = queue.pollFirst();
+		return page == null ? null : victim(page);
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		removePages(queue, pageTableAddr);
+	}
+}
@@ -0,0 +1,37 @@
+package MemoryManagement;
+
+/**
+ * <b>Aufgabe:</b> Haelt die ausgelagerten Seiten auf dem Heap der JVM.
+ * <p>
+ * Die Seite wird nicht kopiert, sondern nur ihre Referenz gemerkt. Das ist schnell,
+ * senkt aber den Speicherbedarf durch das Auslagern nicht.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class HeapSwapBackend implements SwapBackend {
+
+	private String[][] slots;
+	
+	/**
+	 * @param size Anzahl der Plaetze
+	 */
+	public HeapSwapBackend(int size) {
+		this.slots = new String[size][];
+	}
+	
+	public String[] read(int slot) {
+		return this.slots[slot];
+	}
+	
+	public void write(int slot, String[] page) {
+		this.slots[slot] = page;
+	}
+	
+	public void clear(int slot) {
+		this.slots[slot] = null;
+	}
+	
+	public void close() {
+	}
+}
@@ -0,0 +1,112 @@
+package MemoryManagement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <b>Aufgabe:</b> Seitenersetzung nach LRU-K.
+ * <p>
+ * Fuer jede Seite werden die Zeitpunkte der letzten <code>k</code> Zugriffe gemerkt.
+ * Verdraengt wird die Seite, deren k-letzter Zugriff am laengsten zurueckliegt. Seiten
+ * mit weniger als <code>k</code> Zugriffen werden zuerst verdraengt, untereinander nach LRU.
+ * </p>
+ * <p>
+ * Da nicht jeder Speicherzugriff bekannt ist, werden die R-Bits bei jedem Seitenfehler
+ * abgetastet: Ein gesetztes R-Bit zaehlt als ein Zugriff zur aktuellen virtuellen Zeit.
+ * Die Historie verdraengter Seiten wird fuer hoechstens <code>retained</code> Seiten
+ * aufbewahrt, damit eine Seite, die bald wieder gebraucht wird, ihre Historie behaelt.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class LRUK extends AbstractPageReplacement {
+
+	private final int k;
+	private ArrayList<HistoryPage> pages = new ArrayList<HistoryPage>();
+	private LinkedHashMap<Long, long[]> retainedHistory;
+	
+	private static class HistoryPage extends Page {
+		long[] history;		//Zeitpunkte der letzten k Zugriffe, der neueste zuerst, 0 = keiner
+		
+		HistoryPage(Page page, long[] history) {
+			super(page.allocateTableAddr, page.pageTableAddr, page.entry, page.pageNr);
+			this.history = history;
+		}
+		
+		void reference(long time) {
+			if(history[0] != time) {
+				System.arraycopy(history, 0, history, 1, history.length - 1);
+				history[0] = time;
+			}
+		}
+	}
+	
+	/**
+	 * @param k Anzahl der gemerkten Zugriffe pro Seite, mindestens 1
+	 * @param retained fuer wie viele verdraengte Seiten die Historie aufbewahrt wird
+	 */
+	public LRUK(int k, final int retained) {
+		if(k < 1) {
+			throw new IllegalArgumentException("k: " + k);
+		}
+		this.k = k;
+		this.retainedHistory = new LinkedHashMap<Long, long[]>() {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+				return size() > retained;
+			}
+		};
+	}
+	
+	
+	protected void insert(Page page) {
+		long[] history = retainedHistory.remove(page.key());
+		HistoryPage hp = new HistoryPage(page, history != null ? history : new long[k]);
+		hp.reference(now());
+		pages.add(hp);
+	}
+	
+	
+	public int[] execute() {
+		long now = now();
+		HistoryPage victim = null;
+		int victimIndex = -1;
+		for(int i = 0; i < pages.size(); i++) {
+			HistoryPage page = pages.get(i);
+			if(page.isReferenced()) {
+				page.reference(now);
+				page.entry.setReferenced(false);
+			}
+			if(victim == null || isOlder(page, victim)) {
+				victim = page;
+				victimIndex = i;
+			}
+		}
+		if(victim == null) {
+			return null;
+		}
+		pages.remove(victimIndex);
+		retainedHistory.put(victim.key(), victim.history);
+		return victim(victim);
+	}
+	
+	
+	/**
+	 * Vergleicht zuerst den k-letzten, bei Gleichstand den letzten Zugriff.
+	 */
+	private boolean isOlder(HistoryPage a, HistoryPage b) {
+		long ka = a.history[k - 1];
+		long kb = b.history[k - 1];
+		if(ka != kb) {
+			return ka < kb;
+		}
+		return a.history[0] < b.history[0];
+	}
+	
+	
+	public void remove(int pageTableAddr) {
+		removePages(pages, pageTableAddr);
+		removeKeys(retainedHistory.keySet(), pageTableAddr);
+	}
+}
@@ -0,0 +1,205 @@
+package MemoryManagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+/**
+ * <b>Aufgabe:</b> Speichert die ausgelagerten Seiten in einer Datei, die ueber
+ * <code>FileChannel.map</code> in den Speicher eingeblendet wird.
+ * <p>
+ * Jeder Platz hat eine feste Groesze von <code>slotBytes</code> Bytes und liegt an
+ * der Position <code>slot * slotBytes</code>. Die Datei wird in Abschnitte von hoechstens
+ * 1 GB eingeblendet, damit sie auch groeszer als 2 GB werden kann.
+ * </p>
+ * <p>
+ * Kodierung einer Zelle: zuerst ein short als Kopf, -1 steht fuer null. Sonst ist
+ * das oberste Bit gesetzt, wenn die Zeichen mit 2 Bytes gespeichert sind, die
+ * restlichen Bits sind die Laenge. Zellen, die nur Zeichen bis 0xFF enthalten
+ * (der Normalfall), brauchen so nur ein Byte pro Zeichen. Geschrieben und gelesen
+ * wird direkt im eingeblendeten Puffer, ohne Zwischenpuffer.
+ * </p>
+ * <p>
+ * Passt eine Seite nicht auf ihren Platz (z.B. wegen einer langen Eingabe), bleibt sie
+ * auf dem Heap in einem Ueberlauf-Speicher, auf dem Platz steht dann nur ein Verweis
+ * (Kopf <code>OVERFLOW</code>). Ob sie passt, wird geprueft, bevor etwas geschrieben wird.
+ * </p>
+ * <p>
+ * Wie die {@link SwapFile} ist das Backend nicht threadsicher, der MemoryManager
+ * greift nur unter seiner Sperre darauf zu.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class MappedSwapBackend implements SwapBackend {
+
+	private static final int MAX_CHUNK_BYTES = 1 << 30;
+	private static final int LENGTH_MASK = 0x7FFF;
+	private static final int MAX_CELL_LENGTH = 0x7FFD;	//0xFFFF und 0xFFFE sind die Koepfe NULL_CELL und OVERFLOW
+	private static final short NULL_CELL = -1;
+	private static final short OVERFLOW = -2;			//Kopf der ersten Zelle: die Seite liegt im Ueberlauf
+	private static final int WIDE = 0x8000;
+	
+	private final int pageSize;
+	private final int slotBytes;
+	private final int slotsPerChunk;
+	private final MappedByteBuffer[] chunks;
+	private final RandomAccessFile file;
+	private final File path;
+	private final HashMap<Integer, String[]> overflow = new HashMap<Integer, String[]>();
+	private char[] chars = new char[0];					//zum Dekodieren einer Zelle, wird wiederverwendet
+	
+	/**
+	 * Legt die Datei an und blendet sie ein.
+	 * @param path die Datei, sie wird beim Schlieszen geloescht
+	 * @param size Anzahl der Plaetze
+	 * @param pageSize Anzahl der Zellen einer Seite
+	 * @param slotBytes Groesze eines Platzes in Bytes, muss fuer alle Koepfe und Zeichen
+	 * einer Seite reichen
+	 * @throws IOException falls die Datei nicht angelegt werden kann
+	 */
+	public MappedSwapBackend(File path, int size, int pageSize, int slotBytes) throws IOException {
+		if(slotBytes < 2 * pageSize || slotBytes > MAX_CHUNK_BYTES) {
+			throw new IllegalArgumentException("slotBytes: " + slotBytes);
+		}
+		this.path = path;
+		this.pageSize = pageSize;
+		this.slotBytes = slotBytes;
+		this.slotsPerChunk = MAX_CHUNK_BYTES / slotBytes;
+		this.file = new RandomAccessFile(path, "rw");
+		
+		long length = (long) size * slotBytes;
+		this.file.setLength(length);
+		FileChannel channel = this.file.getChannel();
+		int chunkCount = (int) ((size + (long) this.slotsPerChunk - 1) / this.slotsPerChunk);
+		this.chunks = new MappedByteBuffer[chunkCount];
+		for(int i = 0; i < chunkCount; i++) {
+			long start = (long) i * this.slotsPerChunk * slotBytes;
+			this.chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(length - start, (long) this.slotsPerChunk * slotBytes));
+		}
+	}
+	
+	public String[] read(int slot) {
+		MappedByteBuffer chunk = this.chunks[slot / this.slotsPerChunk];
+		int pos = (slot % this.slotsPerChunk) * this.slotBytes;
+		
+		if(chunk.getShort(pos) == OVERFLOW) {
+			return this.overflow.get(slot).clone();
+		}
+		String[] page = new String[this.pageSize];
+		for(int i = 0; i < this.pageSize; i++) {
+			short head = chunk.getShort(pos);
+			pos += 2;
+			if(head == NULL_CELL) {
+				continue;
+			}
+			int length = head & LENGTH_MASK;
+			if(this.chars.length < length) {
+				this.chars = new char[Math.max(length, 2 * this.chars.length)];
+			}
+			if((head & WIDE) != 0) {
+				for(int j = 0; j < length; j++, pos += 2) {
+					this.chars[j] = chunk.getChar(pos);
+				}
+			} else {
+				for(int j = 0; j < length; j++, pos++) {
+					this.chars[j] = (char) (chunk.get(pos) & 0xFF);
+				}
+			}
+			page[i] = new String(this.chars, 0, length);
+		}
+		return page;
+	}
+	
+	/**
+	 * Schreibt die Seite auf den Platz oder, wenn sie nicht passt, in den Ueberlauf.
+	 */
+	public void write(int slot, String[] page) {
+		MappedByteBuffer chunk = this.chunks[slot / this.slotsPerChunk];
+		int pos = (slot % this.slotsPerChunk) * this.slotBytes;
+		
+		if(!this.fits(page)) {
+			this.overflow.put(slot, page.clone());
+			chunk.putShort(pos, OVERFLOW);
+			return;
+		}
+		this.overflow.remove(slot);
+		for(int i = 0; i < this.pageSize; i++) {
+			String cell = page[i];
+			if(cell == null) {
+				chunk.putShort(pos, NULL_CELL);
+				pos += 2;
+				continue;
+			}
+			int length = cell.length();
+			boolean wide = isWide(cell);
+			chunk.putShort(pos, (short) (wide ? length | WIDE : length));
+			pos += 2;
+			if(wide) {
+				for(int j = 0; j < length; j++, pos += 2) {
+					chunk.putChar(pos, cell.charAt(j));
+				}
+			} else {
+				for(int j = 0; j < length; j++, pos++) {
+					chunk.put(pos, (byte) cell.charAt(j));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return true, wenn alle Koepfe und Zeichen der Seite auf einen Platz passen
+	 */
+	private boolean fits(String[] page) {
+		int bytes = 0;
+		for(int i = 0; i < this.pageSize; i++) {
+			bytes += 2;
+			String cell = page[i];
+			if(cell != null) {
+				int length = cell.length();
+				if(length > MAX_CELL_LENGTH) {
+					return false;
+				}
+				bytes += isWide(cell) ? 2 * length : length;
+			}
+		}
+		return bytes <= this.slotBytes;
+	}
+	
+	private static boolean isWide(String cell) {
+		for(int j = 0; j < cell.length(); j++) {
+			if(cell.charAt(j) > 0xFF) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	public void clear(int slot) {
+		//der Inhalt wird beim naechsten write ueberschrieben, nur der Ueberlauf wird freigegeben
+		this.overflow.remove(slot);
+	}
+	
+	/**
+	 * @return Anzahl der Seiten, die nicht auf ihren Platz gepasst haben und im
+	 * Ueberlauf liegen
+	 */
+	public int getOverflowCount() {
+		return this.overflow.size();
+	}
+	
+	/**
+	 * Schlieszt und loescht die Datei.
+	 */
+	public void close() {
+		try {
+			this.file.close();
+		} catch(IOException e) {
+			// Was nun?
+		}
+		this.path.delete();
+	}
+}
@@ -2,10 +2,19 @@
 package MemoryManagement;
 
 import Hardware.MainMemory;
+import Hardware.TLB;
+import MainBoot.Histogram;
+import MainBoot.Metrics;
+import MainBoot.StripedCounter;
 import MainBoot.SysLogger;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 
@@ -16,6 +25,19 @@ import java.util.HashMap;
  */
 public class MemoryManager implements MemoryManagerIF {
   
+  /**
+   * Eintrag in der Plattenzuordnungstabelle fuer eine Seite, die noch nie benutzt
+   * wurde: Sie liegt nirgends und wird beim ersten Seitenfehler mit "" gefuellt
+   * (demand zero).
+   */
+  public static final int ZERO_PAGE = -2;
+  
+  /* Metriken */
+  private static final StripedCounter PAGE_INS = Metrics.counter("memory", "pageIns");        //von der Auslagerungsdatei gelesen
+  private static final StripedCounter PAGE_OUTS = Metrics.counter("memory", "pageOuts");      //auf die Auslagerungsdatei geschrieben
+  private static final StripedCounter ZERO_FILLS = Metrics.counter("memory", "zeroFills");    //leere Seite statt Lesen
+  private static final Histogram FAULT_NANOS = Metrics.histogram("memory", "pageFaultNanos"); //Dauer inkl. Warten auf die Sperre
+  
   private MainMemory memory;
   private int pageSize;
   private int addressSpaceSize;
@@ -37,6 +59,44 @@ public class MemoryManager implements MemoryManagerIF {
    */
   private HashMap<Integer, ArrayList<Integer>> allocateTables;
   
+  /**
+   * Die TLBs aller MMUs. Wird eine Seite verdraengt, muss sie aus jedem TLB
+   * entfernt werden.
+   */
+  private ArrayList<TLB> tlbs = new ArrayList<TLB>();
+  
+  /**
+   * Freie Seitenrahmen als Stapel: Belegen und Freigeben in O(1).
+   * Die Rahmen liegen anfangs absteigend auf dem Stapel, damit
+   * zuerst Rahmen 0 vergeben wird.
+   */
+  private int[] freeFrames;
+  private int freeFrameCount;
+  
+  /**
+   * true, wenn der Rahmen frei ist. Verhindert doppelte Freigaben.
+   */
+  private boolean[] frameFree;
+  
+  /**
+   * Seitentabelleneintrag der Seite, die im Rahmen liegt, oder null.
+   * Damit kann auch ein Schreibzugriff ueber die physikalische Adresse
+   * die Seite als veraendert markieren.
+   */
+  private PageTableEntry[] frameOwners;
+  
+  /**
+   * Sperre fuer den Zugriff mehrerer CPUs auf das Speichersystem. Die MMUs uebersetzen
+   * Adressen und greifen auf den Hauptspeicher unter der Lesesperre zu, Seitenfehler,
+   * Laden und Freigeben von Prozessen laufen unter der Schreibsperre. Solange es nur
+   * eine CPU gibt, ist es eine Sperre, die nichts tut.
+   */
+  private ReadWriteLock accessLock = NO_LOCK;
+  
+  private long writeBacks;			//verdraengte Seiten, die geschrieben werden mussten
+  private long cleanEvictions;		//verdraengte Seiten ohne Schreibzugriff auf die Auslagerungsdatei
+  private long pageFaults;
+  
   
   
   public MemoryManager( MainMemory memory, SwapFile swapFile, int pageSize, int addressSpaceSize, PageReplacementIF pr) {
@@ -48,6 +108,7 @@ public class MemoryManager implements MemoryManagerIF {
       
       this.allocateTables = new HashMap<Integer, ArrayList<Integer>>();
       this.pageTables = new HashMap<Integer, ArrayList<PageTableEntry>>();
+      this.initFreeFrames();
       
   }
 
@@ -65,10 +126,55 @@ public class MemoryManager implements MemoryManagerIF {
       
       this.allocateTables = new HashMap<Integer, ArrayList<Integer>>();
       this.pageTables = new HashMap<Integer, ArrayList<PageTableEntry>>();
+      this.initFreeFrames();
       
   }
   
   
+  /**
+   * Zu Beginn sind alle Seitenrahmen des Hauptspeichers frei.
+   */
+  private void initFreeFrames() {
+	  
+	  int frameCount = this.memory.getFrameCount();
+	  this.freeFrames = new int[frameCount];
+	  this.frameFree = new boolean[frameCount];
+	  this.frameOwners = new PageTableEntry[frameCount];
+	  this.freeFrameCount = 0;
+	  
+	  for(int frameNr = frameCount - 1; frameNr >= 0; frameNr--) {
+		  this.releaseFrame(frameNr);
+	  }
+  }
+  
+  
+  /**
+   * Schaltet die Sperre fuer mehrere CPUs ein. Muss vor dem Erzeugen der MMUs
+   * aufgerufen werden, da sich die MMUs die Sperre beim Erzeugen holen.
+   */
+  public void enableConcurrentAccess() {
+	  this.accessLock = new ReentrantReadWriteLock();
+  }
+  
+  
+  /**
+   * @return die Sperre fuer den Zugriff mehrerer CPUs auf das Speichersystem
+   */
+  public ReadWriteLock getAccessLock() {
+	  return this.accessLock;
+  }
+  
+  
+  /**
+   * Meldet den TLB einer MMU an. Der MemoryManager entfernt verdraengte
+   * Seiten aus allen angemeldeten TLBs.
+   * @param tlb der TLB
+   */
+  public void registerTLB(TLB tlb) {
+	  this.tlbs.add(tlb);
+  }
+  
+  
   /**
    * Liefert die Seitentabelle aus der Liste aller Seitentabelln
    * mit Hilfe der uebergebenen Adresse.
@@ -122,7 +228,8 @@ public class MemoryManager implements MemoryManagerIF {
    * Dabei werden:<br/>
    * <ul>
    * <li>Seitentabelle von der Groesze des erlaubten virtuellen Adressraumes erzeugt</li>
-   * <li>Alle Seiten des Prozesses ausgelagert. ->Demand-Paging</li>
+   * <li>Alle Seiten mit Programmtext ausgelagert, die uebrigen als <code>ZERO_PAGE</code> markiert. ->Demand-Paging</li>
+   * <li>Der Programmtext einmalig dekodiert, damit die CPU ihn nicht bei jedem Befehl zerlegen muss</li>
    * <li>Plattenzuordnungstabelle erzeugt und die Festplattenadressen der einzelnen Seiten reingeschrieben</li>
    * <li>Adressen der Seiten- und Plattenzuordnungstabelle im RegisterSet des PCB's gesetzt</li>
    * <li>Befehlszaehler auf den ersten Befehl des Programmes gesetzt</li>
@@ -139,6 +246,8 @@ public class MemoryManager implements MemoryManagerIF {
    */
   @Override
   public boolean loadProgram( String file, PCB pcb ) {
+	  Lock lock = this.accessLock.writeLock();
+	  lock.lock();
 	  try {
 		  BufferedReader input = new BufferedReader( new FileReader(file) );
 		  String line = input.readLine();
@@ -148,7 +257,7 @@ public class MemoryManager implements MemoryManagerIF {
 			  return false;
 		  }
 		  
-    	  SysLogger.writeLog( 0, "MemoryManager.loadProgram:" + file + " with size " + size +" is going to be read");
+    	  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.loadProgram:" + file + " with size " + size +" is going to be read");
         
         
     	  ArrayList<PageTableEntry> pageTable = new ArrayList<PageTableEntry>();//Seitentabelle erzeugen
@@ -174,6 +283,8 @@ public class MemoryManager implements MemoryManagerIF {
     } catch( IOException e ) {
       System.err.println(e.toString());
       return false;
+    } finally {
+      lock.unlock();
     }
     
     return true;
@@ -182,23 +293,14 @@ public class MemoryManager implements MemoryManagerIF {
   
 
 /**
-   * Erzeugt eine virtuelle Adresse als String, die auf den allerersten Befehl verweist.
-   * Die Adresse passt sich dynamisch an der Seitengroesze und dem Adressraum eines
-   * jeden Prozesses an.
+   * Erzeugt eine virtuelle Adresse, die auf den allerersten Befehl verweist.
+   * Seitennummer und Offset sind beide 0, unabhaengig von Seitengroesze und Adressraum.
    * @return Die virtuelle Adresse
+   * @see Hardware.VirtualAddressFormat
    */
-  private String setVirtualAddrToZero() {
+  private int setVirtualAddrToZero() {
 	  
-	  int offsetLen = new Integer(this.pageSize).toString().length();
-	  int pageNrLen = new Integer(this.addressSpaceSize).toString().length();
-	  
-	  
-	  String virtualAddr = "";
-	  for(int i = 0; i < offsetLen + pageNrLen; i++) {
-		  virtualAddr = virtualAddr + "0";
-	  }
-	  
-	  return virtualAddr;
+	  return 0;
   }
   
   
@@ -212,11 +314,14 @@ public class MemoryManager implements MemoryManagerIF {
    * Sobald eine Seite fertig gestellt wurde, wird der Seiteninhalt auf die Auslagerungsdatei
    * geschrieben und die Festplattenadresse der Seite in der Plattenzuordnungstabelle vermerkt.
    * Auch wird ein Seitentabelleneintrag erzeugt und der Seitentabelle hinzugefuegt.
+   * Dekodiert werden die Befehle erst beim Ausfuehren im Hauptspeicher.
    * <p>
    * Auch wenn der Programmtext nicht <code>addressSpaceSize</code> , d.H. der groesze des
-   * moeglichen virtuellen Adressraumes belegt, so werden dennoch alle Seiten erzeugt und mit
-   * einem leeren String "" gefuellt. <br/>
-   * Dadurch kann der Prozess spaeter noch bis zu <code>addressSpaceSize</code> anwachsen.
+   * moeglichen virtuellen Adressraumes belegt, so werden dennoch alle Seiten in der Seitentabelle
+   * erzeugt. Dadurch kann der Prozess spaeter noch bis zu <code>addressSpaceSize</code> anwachsen.<br/>
+   * Diese Seiten kommen aber nicht auf die Auslagerungsdatei, sondern werden in der
+   * Plattenzuordnungstabelle mit <code>ZERO_PAGE</code> markiert und erst beim ersten Zugriff
+   * mit leeren Strings "" gefuellt.
    * </p>
    * @param pageTable Die Seitentabelle des Prozesses von dem das Programm eingelesen wird.
    * @param allocateTable Die Plattenzuordnungstabelle des Prozesses von dem das Programm eingelesen wird.
@@ -245,18 +350,12 @@ public class MemoryManager implements MemoryManagerIF {
       	
   	  }
     
-	  SysLogger.writeLog( 0, "MemoryManager.loadProgram: Process has been allocated " + pageTable.size()+" from "+ this.addressSpaceSize+" pages at the beginning");
+	  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.loadProgram: Process has been allocated " + pageTable.size()+" from "+ this.addressSpaceSize+" pages at the beginning");
 	  
   	  for(int i = pageTable.size(); i < this.addressSpaceSize; i++) {
   		  													//nun werden die restlichen Seiten erzeugen..
-  		  String[] content = new String[this.pageSize];		//..damit die Seitenanzahl der Groesze des virtuellen Adressraumes entspricht
-  		  													//In jeder Seite stehen leere Strings: ""
-  		  for(int j = 0; j < this.pageSize; j++) {
-  			  content[j] = "";
-  		  }
-  		  
-  		  int swapAddr = this.swapFile.setPage(content);
-  		  allocateTable.add(swapAddr);                 	
+  		  													//..damit die Seitenanzahl der Groesze des virtuellen Adressraumes entspricht
+  		  allocateTable.add(ZERO_PAGE);						//Inhalt gibt es erst beim ersten Seitenfehler
           pageTable.add(new PageTableEntry());			 
         	
   	  }
@@ -288,12 +387,12 @@ public class MemoryManager implements MemoryManagerIF {
 	  
 	  }catch(NumberFormatException e) {
 		  
-		  SysLogger.writeLog( 0, "MemoryManager.loadProgram: Failure. Cannot read the size of program.");
+		  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.loadProgram: Failure. Cannot read the size of program.");
 	  }
 		  
 	  if( size/this.pageSize > this.addressSpaceSize ) { //passt das Programm in den virtuellen Adressraum?
     		  
-		  SysLogger.writeLog( 0, "MemoryManager.loadProgram: Failure. Size of program is too large.");
+		  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.loadProgram: Failure. Size of program is too large.");
 		  size = -1;
       }
 	  
@@ -311,8 +410,7 @@ public class MemoryManager implements MemoryManagerIF {
    * <p>
    * Die Arbeitsweise dieser Methode sieht wie folgt aus:<br/>
    * <ol>
-   * <li>die angeforderte Seite wird aus der Auslagerungsdatei geholt</li>
-   * <li>der entsprechene Eintrag in der Plattenzuordnungstabelle wird aktualisiert</li>
+   * <li>die angeforderte Seite wird aus der Auslagerungsdatei gelesen, ihr Platz dort bleibt belegt</li>
    * <li>es wird geprueft, ob noch Platz fuer einen Seitenrahmen im Hauptspeicher ist</li>
    * <li>wenn es Platz gibt,</li>
    * <ul>
@@ -322,7 +420,7 @@ public class MemoryManager implements MemoryManagerIF {
    * <ul>
    * <li>wird der Seitenersetzungsalgo. aufgerufen, der Infos zu der zu verdraengenden Seite zurueckgibt</li>
    * <li>diese Seite wird aus dem Hauptspeicher genommen</li>
-   * <li>und auf die Auslagerungsdatei geschrieben</li>
+   * <li>und, falls sie veraendert wurde, auf die Auslagerungsdatei geschrieben</li>
    * <li>nun wird die angeforderte Seite in den Hauptspeicher geladen</li>
    * </ul>
    * <li>die neue Seite wird beim Seitenersetzungsalgorithmus vermerkt</li>
@@ -337,16 +435,34 @@ public class MemoryManager implements MemoryManagerIF {
    * 
    * @see MemoryManager#getFrameFromMemory(int)
    * @see MemoryManager#getPageFromSwapFile(int, int)
-   * @see MemoryManager#isMemoryFull()
+   * @see MemoryManager#allocateFrame()
    * @see MemoryManager#loadPageToMemory(int, String[])
    * @see MemoryManager#replacePage()
    */
   public int pageFault(int pageNr, PageTableEntry entry, int allocateTableAddr, int pageTableAddr) {
-	
 	  
+	  long start = System.nanoTime();
+	  Lock lock = this.accessLock.writeLock();
+	  lock.lock();
+	  try {
+		  return this.pageFaultLocked(pageNr, entry, allocateTableAddr, pageTableAddr);
+	  } finally {
+		  lock.unlock();
+		  FAULT_NANOS.record(System.nanoTime() - start);
+	  }
+  }
+  
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer pageFault(), unter der Schreibsperre.</i></p>
+   */
+  private int pageFaultLocked(int pageNr, PageTableEntry entry, int allocateTableAddr, int pageTableAddr) {
+	  
+	  this.pageFaults++;
 	  String[] pageContent = this.getPageFromSwapFile(pageNr, allocateTableAddr);
 	  
-	  int frameNr = this.isMemoryFull();
+	  int frameNr = this.allocateFrame();
 	  
 	  if(frameNr != -1) { 				//Im Hauptspeicher ist noch ein Rahmen frei
 	  
@@ -355,7 +471,7 @@ public class MemoryManager implements MemoryManagerIF {
 	  
 	  else {   								//Hauptspeicher ist voll
 		  
-		  SysLogger.writeLog( 0, "MemoryManager.pageFault: MainMemory is full, running Clock now");
+		  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.pageFault: MainMemory is full, running Clock now");
           frameNr = this.replacePage();
 		  this.loadPageToMemory(frameNr, pageContent);
 	  }
@@ -364,21 +480,95 @@ public class MemoryManager implements MemoryManagerIF {
 	  
 	  //Neue Seite dem Seitenersetzungsalgorithmus bekannt machen
 	  entry.setFrameNr(frameNr);
+	  entry.setModified(false);						//frisch eingelagert = unveraendert
+	  entry.setReferenced(false);					//..und noch nicht wieder benutzt (R evtl. noch von vor dem Verdraengen)
+	  this.frameOwners[frameNr] = entry;
 	  this.pageReplacer.insert(allocateTableAddr, pageTableAddr, entry, pageNr);
 	  
 	  return frameNr;
 	  
   }
   
+  /**
+   * Gibt alle Betriebsmittel eines beendeten Prozesses frei:
+   * <ul>
+   * <li>seine Seitenrahmen im Hauptspeicher (zurueck in die Liste der freien Rahmen)</li>
+   * <li>seine Eintraege in den TLBs</li>
+   * <li>seine Seiten auf der Auslagerungsdatei</li>
+   * <li>seine Seiten beim Seitenersetzungsalgorithmus</li>
+   * <li>seine Seitentabelle, Plattenzuordnungstabelle und dekodierten Befehle</li>
+   * </ul>
+   * Wird die Methode fuer einen Prozess ein zweites Mal aufgerufen, passiert nichts.
+   * @param pcb Der Prozesskontrollblock des beendeten Prozesses
+   */
+  @Override
+  public void releaseProcess( PCB pcb ) {
+	  
+	  Lock lock = this.accessLock.writeLock();
+	  lock.lock();
+	  try {
+		  this.releaseProcessLocked(pcb);
+	  } finally {
+		  lock.unlock();
+	  }
+  }
+  
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer releaseProcess(), unter der Schreibsperre.</i></p>
+   */
+  private void releaseProcessLocked( PCB pcb ) {
+	  
+	  int pageTableAddr = pcb.getRegisterSet().getPageTableAddr();
+	  int allocateTableAddr = pcb.getRegisterSet().getAllocateTableAddr();
+	  
+	  ArrayList<PageTableEntry> pageTable = this.pageTables.remove(pageTableAddr);
+	  if(pageTable != null) {
+		  for(int pageNr = 0; pageNr < pageTable.size(); pageNr++) {
+			  PageTableEntry entry = pageTable.get(pageNr);
+			  int frameNr = entry.getFrameNr();
+			  if(frameNr != -1) {								//Seite liegt im Hauptspeicher
+				  this.memory.clearFrame(frameNr);
+				  this.frameOwners[frameNr] = null;
+				  this.releaseFrame(frameNr);
+				  for(int i = 0; i < this.tlbs.size(); i++) {
+					  this.tlbs.get(i).invalidate(pageTableAddr, pageNr);
+				  }
+				  entry.setFrameNr(-1);
+			  }
+		  }
+		  this.pageReplacer.remove(pageTableAddr);
+	  }
+	  
+	  ArrayList<Integer> allocateTable = this.allocateTables.remove(allocateTableAddr);
+	  if(allocateTable != null) {
+		  for(int i = 0; i < allocateTable.size(); i++) {
+			  int swapAddr = allocateTable.get(i);
+			  if(swapAddr >= 0) {								//Seite liegt (auch) auf der Auslagerungsdatei
+				  this.swapFile.freePage(swapAddr);
+			  }
+		  }
+	  }
+	  
+	  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "MemoryManager.releaseProcess: released pages of process " + pcb.getPid()
+			  + ", free frames: " + this.freeFrameCount);
+  }
+  
+  
+  
   /**
    * <p><i>Hilfsmethode fuer pageFault().</i></p>
    * Verdreangt einen Seitenrahmen aus dem Hauptspeicher.
    * <p>
    * <ul>
    * <li>Mit Hilfe des Seitenersetzungsalgorithmus wird ein Seiterahmen ausgewaehlt.</li>
-   * <li>Dieser Seitenrahmen wird dann zur Sicherung auf die Auslagerungsdatei geschrieben.</li>
+   * <li>Wurde der Seitenrahmen veraendert, wird er zur Sicherung auf die Auslagerungsdatei geschrieben,
+   * auf den bisherigen Platz der Seite oder, falls sie noch keinen hat, auf einen neuen.</li>
+   * <li>Sonst ist die Kopie auf der Auslagerungsdatei noch aktuell und es wird nichts geschrieben.</li>
    * <li>Die Festplattenadresse der Seite wird in der Plattenzuordungstabelle vermerkt</li>
    * <li>In der entsprechenden Seitetabelle wird die Seite als nicht praesent markiert</li>
+   * <li>Die Seite wird aus den TLBs entfernt</li>
    * <ul>
    * </p>
    * <p>
@@ -398,61 +588,151 @@ public class MemoryManager implements MemoryManagerIF {
 	  
 	  
 	  if(pageTables.get(pageTableAddr) == null) {
-		  SysLogger.writeLog( 0, "doaskjdoasjdasoldpoajd");
+		  SysLogger.writeLog( SysLogger.MEMORY, SysLogger.INFO, "doaskjdoasjdasoldpoajd");
 	  }
 	  
-	  String[] frameContent = this.getFrameFromMemory(frameNr);			//Hole Seitenrahmen aus dem Speicher
-	  int addr = this.swapFile.setPage(frameContent);					//Seite auf SwapFile sichern
+	  PageTableEntry entry = this.pageTables.get(pageTableAddr).get(pageNr);
+	  int addr = this.allocateTables.get(allocateTableAddr).get(pageNr);
+	  
+	  if(entry.isModified()) {
+		  addr = this.writeBack(frameNr, addr);
+		  this.writeBacks++;
+	  } else {
+		  this.cleanEvictions++;										//Kopie auf der Auslagerungsdatei ist noch aktuell
+	  }
 	  this.allocateTables.get(allocateTableAddr).set(pageNr, addr);	    //Festplattenadresse der Seite in Plattenzuordnungstabelle schreiben
-	  this.pageTables.get(pageTableAddr).get(pageNr).setFrameNr(-1);  	//Seite in der Seitentabelle als nicht present markieren 
+	  entry.setFrameNr(-1);  											//Seite in der Seitentabelle als nicht present markieren 
+	  this.frameOwners[frameNr] = null;
+	  
+	  for(int i = 0; i < this.tlbs.size(); i++) {						//und aus den TLBs entfernen
+		  this.tlbs.get(i).invalidate(pageTableAddr, pageNr);
+	  }
 	  
 	  return frameNr;
   }
   
   
   
+  /**
+   * <p><i>Hilfsmethode fuer replacePage().</i></p>
+   * Schreibt einen veraenderten Seitenrahmen auf die Auslagerungsdatei.
+   * Leere Seiten werden nicht gesichert, sondern wieder zur <code>ZERO_PAGE</code>.
+   * @param frameNr Die Rahmennummer
+   * @param addr Die bisherige Festplattenadresse der Seite oder <code>ZERO_PAGE</code>
+   * @return Die neue Festplattenadresse der Seite
+   */
+  private int writeBack(int frameNr, int addr) {
+	  
+	  String[] frameContent = this.getFrameFromMemory(frameNr);			//Hole Seitenrahmen aus dem Speicher
+	  
+	  if(this.isZeroPage(frameContent)) {								//leere Seiten muessen nicht gesichert werden
+		  if(addr >= 0) {
+			  this.swapFile.freePage(addr);
+		  }
+		  return ZERO_PAGE;
+	  }
+	  PAGE_OUTS.increment();
+	  if(addr >= 0) {
+		  this.swapFile.updatePage(addr, frameContent);					//auf den bisherigen Platz
+		  return addr;
+	  }
+	  return this.swapFile.setPage(frameContent);						//Seite auf SwapFile sichern
+  }
+  
+  
+  
   /**
    * <p><i>Hilfsmethode fuer pageFault().</i></p>
    * Laedt den uebergebenen Seiteninhalt in den Hauptspeicher
-   * an der Position framNr.
+   * an der Position framNr. Die Befehle der Seite dekodiert der Hauptspeicher
+   * erst beim Ausfuehren.
    * @param frameNr Rahmennummer, an die die Seite geladen werden soll
    * @param pageContent Der Seiteninhalt.
    */
   private void loadPageToMemory(int frameNr, String[] pageContent) {
 	  
-	  int index = frameNr * this.pageSize;
-	  
-	  for(int i = index, j = 0; j < this.pageSize; j++) {
-		  this.memory.setContent(i + j, pageContent[j]);
-	  }
+	  this.memory.loadFrame(frameNr, pageContent, null);
   }
   
   
   
   /**
    * <p><i>Hilfsmethode fuer pageFault().</i></p>
-   * Prueft ob im Hauptspeicher noch Platz fuer einen Seitenrahmen ist.
+   * Belegt einen freien Seitenrahmen im Hauptspeicher.
    * @return liefert die Rahmennummer des freien Rahmens, oder 
    * -1 wenn kein freier Rahmen mehr im Hauptspeicher ist.
    */
-  private int isMemoryFull() {
-	  
-	  int result = -1;
+  private int allocateFrame() {
 	  
-	  int memSize = this.memory.getSize();
-	  int i = 0;
-	  
-	  while( i < memSize) {
-		  
-		  if( "".equals(this.memory.getContent(i)) ) { //..pruefen ob es eine freie Speicherzelle gibt
-			  
-			    result = i / this.pageSize;
-			    break;
-		   }
-		   i = i + this.pageSize;						//der Hauptspeicher wird in pageSize-Schritten durchlaufen
+	  if(this.freeFrameCount == 0) {
+		  return -1;
 	  }
+	  int frameNr = this.freeFrames[--this.freeFrameCount];
+	  this.frameFree[frameNr] = false;
+	  return frameNr;
+  }
+  
+  
+  
+  /**
+   * Gibt einen Seitenrahmen wieder frei. Eine doppelte Freigabe wird ignoriert.
+   * @param frameNr die Rahmennummer
+   */
+  private void releaseFrame(int frameNr) {
 	  
-	  return result;
+	  if(this.frameFree[frameNr]) {
+		  return;
+	  }
+	  this.frameFree[frameNr] = true;
+	  this.freeFrames[this.freeFrameCount++] = frameNr;
+  }
+  
+  
+  
+  /**
+   * @return Anzahl der freien Seitenrahmen
+   */
+  public int getFreeFrameCount() {
+	  return this.freeFrameCount;
+  }
+  
+  
+  
+  /**
+   * Liefert den Seitentabelleneintrag der Seite, die in einem Rahmen liegt.
+   * @param frameNr die Rahmennummer
+   * @return der Seitentabelleneintrag oder null, wenn der Rahmen frei ist
+   */
+  public PageTableEntry getFrameOwner(int frameNr) {
+	  return this.frameOwners[frameNr];
+  }
+  
+  
+  
+  /**
+   * @return Anzahl der Seitenfehler
+   */
+  public long getPageFaultCount() {
+	  return this.pageFaults;
+  }
+  
+  
+  
+  /**
+   * @return Anzahl der verdraengten Seiten, die auf die Auslagerungsdatei geschrieben wurden
+   */
+  public long getWriteBackCount() {
+	  return this.writeBacks;
+  }
+  
+  
+  
+  /**
+   * @return Anzahl der verdraengten Seiten, die unveraendert waren und deshalb
+   * nicht geschrieben werden mussten
+   */
+  public long getCleanEvictionCount() {
+	  return this.cleanEvictions;
   }
   
   
@@ -465,38 +745,84 @@ public class MemoryManager implements MemoryManagerIF {
    */
   private String[] getFrameFromMemory(int frameNr) {
 	  
-	  String[] frameContent = new String[this.pageSize]; 
-	  int index = frameNr * this.pageSize;
-	  
-	  for(int i = index, j = 0; j < this.pageSize; j++, i++) {
-		
-		  frameContent[j] = this.memory.getContent(i);
-	  }
-	  
-	  return frameContent;
+	  return this.memory.getFrame(frameNr);
 	  
   }
-
+  
   
   
   /**
    * <p><i>Hilfsmethode fuer pageFault().</i></p>
-   * Holt eine Seite aus der Auslagerungsdatei und loescht die Festplattenadresse
-   * dieser Seite in der entsprechenden Plattenzuordnungstabelle.
+   * Liest eine Seite aus der Auslagerungsdatei. Die Festplattenadresse in der
+   * Plattenzuordnungstabelle bleibt gueltig, solange die Seite im Hauptspeicher liegt.
    * @param pageNr Die Seitennummer der Seite, die geholt werden soll
    * @param allocateTableAddr Adresse der Plattenzuordnungstabelle
    * @return Liefert den Inhalt der Seite zurueck, die aus der Auslagerungsdatei 
-   * genommen wurde.
+   * gelesen wurde.
    */
   private String[] getPageFromSwapFile(int pageNr, int allocateTableAddr) {
 	  
 	  ArrayList<Integer> allocateTable = this.allocateTables.get(allocateTableAddr); //Hole Plattenzuordnungstabelle
 	  int pageSwapFileAddr = allocateTable.get(pageNr); //Hole Festplattenaddresse von der Seite
 	  
-	  allocateTable.set(pageNr, -1); //loesche Adresse in der Plattenzuordnungstabelle
+	  if(pageSwapFileAddr == ZERO_PAGE) {				//Seite wurde noch nie benutzt -> leere Seite
+		  ZERO_FILLS.increment();
+		  return this.zeroPage();
+	  }
 	  
-	  return this.swapFile.getPage(pageSwapFileAddr); // Hole die Seite von der Festplatte
+	  PAGE_INS.increment();
+	  return this.swapFile.readPage(pageSwapFileAddr); // Lies die Seite von der Festplatte
 	 
   }
   
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer getPageFromSwapFile().</i></p>
+   * @return eine Seite, in der in jeder Zelle ein leerer String "" steht.
+   */
+  private String[] zeroPage() {
+	  
+	  String[] content = new String[this.pageSize];
+	  for(int j = 0; j < this.pageSize; j++) {
+		  content[j] = "";
+	  }
+	  return content;
+  }
+  
+  
+  
+  /**
+   * <p><i>Hilfsmethode fuer replacePage().</i></p>
+   * @return true, wenn in jeder Zelle der Seite ein leerer String "" steht.
+   */
+  private boolean isZeroPage(String[] content) {
+	  
+	  for(int j = 0; j < content.length; j++) {
+		  if(!"".equals(content[j])) {
+			  return false;
+		  }
+	  }
+	  return true;
+  }
+  
+  
+  
+  
+  /**
+   * Sperre, die nichts tut, fuer den Betrieb mit nur einer CPU.
+   */
+  private static final NoLock NO_LOCK = new NoLock();
+  
+  private static final class NoLock implements ReadWriteLock, Lock {
+	  public Lock readLock() { return this; }
+	  public Lock writeLock() { return this; }
+	  public void lock() { }
+	  public void lockInterruptibly() { }
+	  public boolean tryLock() { return true; }
+	  public boolean tryLock(long time, TimeUnit unit) { return true; }
+	  public void unlock() { }
+	  public Condition newCondition() { throw new UnsupportedOperationException(); }
+  }
+  
 }
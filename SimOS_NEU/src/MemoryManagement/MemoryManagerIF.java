@@ -14,6 +14,11 @@ public interface MemoryManagerIF {
    */
   boolean loadProgram( String file, PCB pcb );
   
+  /**
+   * @see MemoryManager#releaseProcess(PCB)
+   */
+  void releaseProcess( PCB pcb );
+  
   
   void setPageSize(int pageSize);
   
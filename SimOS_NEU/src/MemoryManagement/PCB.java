@@ -12,6 +12,11 @@ public class PCB {
   private int priority;
   private String state;
   private RegisterSet reg;
+  private String program;   //Datei, aus der der Prozess geladen wurde
+  
+  private final long createTime = System.nanoTime();  //Zeitpunkte in ns fuer die Statistik (BatchRunner)
+  private long firstRunTime = -1;
+  private long endTime = -1;
 
   /**
    * Erzeugt einen neuen Prozesskontrollblock.
@@ -50,6 +55,51 @@ public class PCB {
   public RegisterSet getRegisterSet(){
     return reg;
   }
+  
+  public String getProgram(){
+    return this.program;
+  }
+  public void setProgram(String program){
+    this.program = program;
+  }
+  
+  /**
+   * Wird vom Scheduler aufgerufen, wenn er den Prozess auf die CPU bringt.
+   * Gemerkt wird nur das erste Mal, fuer die Antwortzeit.
+   */
+  public void markRunning(){
+    if( firstRunTime < 0 ) {
+      firstRunTime = System.nanoTime();
+    }
+  }
+  
+  /**
+   * Wird vom ProcessManager aufgerufen, wenn der Prozess zerstoert wird.
+   */
+  public void markEnded(){
+    endTime = System.nanoTime();
+  }
+  
+  /**
+   * @return Zeitpunkt (System.nanoTime) der Erzeugung
+   */
+  public long getCreateTime(){
+    return createTime;
+  }
+  
+  /**
+   * @return Zeitpunkt, zu dem der Prozess das erste Mal lief, oder -1
+   */
+  public long getFirstRunTime(){
+    return firstRunTime;
+  }
+  
+  /**
+   * @return Zeitpunkt, zu dem der Prozess beendet wurde, oder -1
+   */
+  public long getEndTime(){
+    return endTime;
+  }
  
   public String toString(){
    return "[pid " + pid + " priority " + priority + " pageTableAddress " + reg.getPageTableAddr() 
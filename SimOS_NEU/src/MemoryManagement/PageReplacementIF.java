@@ -4,4 +4,10 @@ public interface PageReplacementIF {
 	
 	void insert(int allocateTableAddr,int pageTableAddr, PageTableEntry entry, int pageNr);
 	int[] execute();
+	
+	/**
+	 * Entfernt alle Seiten eines Prozesses, z.B. weil er beendet wurde.
+	 * @param pageTableAddr Adresse der Seitentabelle des Prozesses
+	 */
+	void remove(int pageTableAddr);
 }
@@ -4,11 +4,9 @@ package MemoryManagement;
  * <b>Aufgabe:</b> Klasse die einen Seitentabelleneintrag repraesentiert.
  * <br/>
  * <b>Info: </b><br/>
- * Das M-Bit (modified) brauchen wir nicht, da wir die Seiten niemals
- * redundant speichern. Die Seiten sind wenn sie Im Hauptspeicher sind, nicht mehr
- * in  der Auslagerungsdatei und umgekehrt.
- * Der Grund dafuer ist, das wir als Hintergrundspeicher einen dynamischen SwapFile
- * mit Plattenzuordnungstabelle gewaehlt haben.
+ * Das R-Bit (referenced) setzt die MMU bei jedem Zugriff, das M-Bit (modified) bei
+ * jedem Schreibzugriff. Beide werten die Seitenersetzungsalgorithmen aus, z.B.
+ * bevorzugt {@link EnhancedClock} unveraenderte Seiten.
  * @author Johann Mantler, Hicham Belmoquadem, Hoang Anh Duong
  *
  */
@@ -16,6 +14,7 @@ public class PageTableEntry {
 
 	private int frameNr;
 	private boolean referenced;    
+	private boolean modified;
 	
 	/**
 	 * Beim erzeugen eines Seitentabelleneintrages, wird die
@@ -26,6 +25,7 @@ public class PageTableEntry {
 		
 		this.frameNr = -1;
 		this.referenced = false;
+		this.modified = false;
 	}
 
 	public final int getFrameNr() {
@@ -45,5 +45,13 @@ public class PageTableEntry {
 		this.referenced = referenced;
 	}
 
+	public final boolean isModified() {
+		return modified;
+	}
+
+	public final void setModified(boolean modified) {
+		this.modified = modified;
+	}
+
 	
 }
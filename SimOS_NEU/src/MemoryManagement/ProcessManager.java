@@ -1,9 +1,14 @@
 
 
 package MemoryManagement;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import Scheduler.SchedulerIF;
-import Hardware.SysConsole;
+import Hardware.ConsoleIF;
+import MainBoot.Histogram;
+import MainBoot.Metrics;
+import MainBoot.StripedCounter;
 import MainBoot.SysLogger;
 
 /**
@@ -13,6 +18,11 @@ import MainBoot.SysLogger;
  */
 public class ProcessManager {
   
+  /* Metriken */
+  private static final StripedCounter CREATED = Metrics.counter("process", "created");
+  private static final StripedCounter ENDED = Metrics.counter("process", "ended");
+  private static final Histogram TURNAROUND_MICROS = Metrics.histogram("process", "turnaroundMicros");
+  
   private int pageSize;
   private int addressSpaceSize;
   private SchedulerIF scheduler;
@@ -20,6 +30,8 @@ public class ProcessManager {
   
   private Hashtable<Integer, PCB> PCBTable = new Hashtable<Integer, PCB>();
   private int pidCounter = 0;
+  private File programDir;                //null = Programme relativ zum Arbeitsverzeichnis
+  private ArrayList<PCB> finished;        //beendete Prozesse fuer die Statistik, null = nicht merken
   
   static final int initPid = 1;
   
@@ -68,30 +80,49 @@ public class ProcessManager {
    * @return Gibt die Prozess-ID des erzeugten Prozesses zurueck
    * @see MemoryManager#loadProgram(String, PCB)
    */
-  public int createProcess( String file ) {
+  public synchronized int createProcess( String file ) {
+    // Der erste Prozess hat keinen Vater, alle anderen erzeugt der laufende Prozess
+    return createProcess( file, pidCounter + 1 == initPid ? 0 : scheduler.getRunningPid() );
+  }
+  
+  /**
+   * Erzeugt einen Prozess wie {@link #createProcess(String)}, aber mit einem
+   * angegebenen Vater, z.B. wenn nicht der laufende Prozess, sondern der BatchRunner
+   * den Prozess startet.
+   * @param file Der Programmcode des Prozesses wird aus der Datei gelesen
+   * @param parentPid Der Prozess, dessen Konsole geerbt wird. Gibt es ihn nicht
+   * (z.B. 0), hat der neue Prozess keine Konsole.
+   * @return Gibt die Prozess-ID des erzeugten Prozesses zurueck
+   */
+  public synchronized int createProcess( String file, int parentPid ) {
     
-	SysLogger.writeLog( 0, "ProcessManagment.createProcess: creating new Process..");  
+	SysLogger.writeLog( SysLogger.PROCESS, SysLogger.INFO, "ProcessManagment.createProcess: creating new Process..");  
 	  
 	pidCounter++; // PID 0 ist reserviert fuer den Idle-Prozess
     int priority = 0;
     String state = "fresh";
     
     PCB pcb = new PCB( pidCounter, priority, state );
+    pcb.setProgram( file );
+    if( programDir != null && !new File(file).isAbsolute() ) {
+      file = new File( programDir, file ).getPath();
+    }
     memoryManager.loadProgram( file, pcb );
     
-    if( pidCounter != initPid ) { // ist es nicht der erste Prozess? dann..
-    							  // ..neuer Prozess erbt die Konsole seines Erzeugers
-      int parentPid = scheduler.getRunningPid();
-      PCB parent = PCBTable.get( parentPid );
-      SysConsole parentConsole = parent.getRegisterSet().getConsole();
-      pcb.getRegisterSet().setConsole( parentConsole );
-      parentConsole.incRefCount();
+    PCB parent = PCBTable.get( parentPid );
+    if( parent != null ) {        // neuer Prozess erbt die Konsole seines Erzeugers
+      ConsoleIF parentConsole = parent.getRegisterSet().getConsole();
+      if( parentConsole != null ) {   //der Vater hat evtl. noch keine Konsole erzeugt
+        pcb.getRegisterSet().setConsole( parentConsole );
+        parentConsole.incRefCount();
+      }
     }
     
     
     PCBTable.put( pidCounter, pcb ); //Eintrag in der Prozesstabelle machen
+    CREATED.increment();
     
-    SysLogger.writeLog( 0, "ProcessManagment.createProcess: " + pcb.toString() + "\n");
+    SysLogger.writeLog( SysLogger.PROCESS, SysLogger.INFO, "ProcessManagment.createProcess: " + pcb.toString() + "\n");
     
     scheduler.addProcess( pcb );     // Beim Scheduler anmelden
     return pidCounter;
@@ -99,27 +130,76 @@ public class ProcessManager {
   
   
   /**
-   * Zerstoert den Prozess mit der pid.
+   * Zerstoert den Prozess mit der pid und gibt seinen Speicher frei.
    * @param pid Die Prozess-ID, des Prozesses der zerstoert werden soll.
    */
-  public void destroyProcess( int pid ) {
+  public synchronized void destroyProcess( int pid ) {
 	  
     PCB pcb = PCBTable.get( pid );
-    SysLogger.writeLog( 0, "ProcessManagment.destroyProcess: " + pcb.toString() );
+    SysLogger.writeLog( SysLogger.PROCESS, SysLogger.INFO, "ProcessManagment.destroyProcess: " + pcb.toString() );
     
     // Falls der Prozess eine Konsole hatte, wird diese nun zerstoert
-    SysConsole console = pcb.getRegisterSet().getConsole();
+    ConsoleIF console = pcb.getRegisterSet().getConsole();
    
     if( console != null ) {
       console.decRefcount();
       if( console.zeroRefCount() ) {
-        SysLogger.writeLog( 0, "ProcessManagment.destroyProcess: destroying console " + console.getId() );
+        SysLogger.writeLog( SysLogger.PROCESS, SysLogger.INFO, "ProcessManagment.destroyProcess: destroying console " + console.getId() );
 	    console.dispose();
       }
     }
     
+    memoryManager.releaseProcess( pcb ); // Rahmen, Swap-Platz und Tabellen freigeben
+    
     //TODO Scheduler ??
     PCBTable.remove(pid);
+    pcb.markEnded();
+    ENDED.increment();
+    TURNAROUND_MICROS.record( (pcb.getEndTime() - pcb.getCreateTime()) / 1000 );
+    if( finished != null ) {
+      finished.add( pcb );
+    }
+  }
+  
+  /**
+   * Programme (auch die von <code>create_process</code>) werden ab jetzt relativ zu
+   * diesem Verzeichnis gesucht.
+   * @param programDir das Verzeichnis, null = Arbeitsverzeichnis
+   */
+  public void setProgramDir( File programDir ) {
+    this.programDir = programDir;
+  }
+  
+  /**
+   * Ab jetzt werden beendete Prozesse fuer die Statistik gemerkt, siehe
+   * {@link #getFinishedProcesses()}.
+   */
+  public synchronized void recordFinishedProcesses() {
+    if( finished == null ) {
+      finished = new ArrayList<PCB>();
+    }
+  }
+  
+  /**
+   * @return die beendeten Prozesse in der Reihenfolge ihres Endes, oder null, wenn
+   * {@link #recordFinishedProcesses()} nicht aufgerufen wurde
+   */
+  public synchronized ArrayList<PCB> getFinishedProcesses() {
+    return finished;
+  }
+  
+  /**
+   * @return true, wenn der Prozess existiert, also noch nicht beendet ist
+   */
+  public boolean isAlive( int pid ) {
+    return PCBTable.containsKey( pid );
+  }
+  
+  /**
+   * @return Anzahl der Prozesse, die noch nicht beendet sind
+   */
+  public int getProcessCount() {
+    return PCBTable.size();
   }
 
   
@@ -0,0 +1,209 @@
+package MemoryManagement;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Eine Folge von Seitenzugriffen (reference trace), z.B. von der MMU
+ * aufgezeichnet, um Seitenersetzungsalgorithmen spaeter mit dem {@link TraceSimulator}
+ * zu vergleichen.
+ * <p>
+ * Dateiformat: Kopf aus <code>MAGIC</code> und <code>VERSION</code> (je ein int), dann
+ * pro Zugriff 8 Bytes: die Adresse der Seitentabelle (= pid) als int und ein int mit
+ * der Seitennummer in den oberen 30 Bits, dem Bit <code>WRITE</code> und dem Bit
+ * <code>FAULT</code> (der Zugriff hat einen Seitenfehler ausgeloest).
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public final class ReferenceTrace {
+
+	public static final int MAGIC = 0x534D5452;		//"SMTR"
+	public static final int VERSION = 1;
+	
+	private static final int WRITE = 1;
+	private static final int FAULT = 2;
+	private static final int FLAG_BITS = 2;
+	
+	private int[] pageTableAddrs;
+	private int[] words;		//Seitennummer und Flags wie in der Datei
+	private int size;
+	
+	
+	/**
+	 * Erzeugt eine leere Folge.
+	 */
+	public ReferenceTrace() {
+		this.pageTableAddrs = new int[64];
+		this.words = new int[64];
+	}
+	
+	
+	/**
+	 * Haengt einen Zugriff an.
+	 */
+	public void add(int pageTableAddr, int pageNr, boolean write, boolean fault) {
+		if(this.size == this.words.length) {
+			this.pageTableAddrs = Arrays.copyOf(this.pageTableAddrs, this.size * 2);
+			this.words = Arrays.copyOf(this.words, this.size * 2);
+		}
+		this.pageTableAddrs[this.size] = pageTableAddr;
+		this.words[this.size] = encode(pageNr, write, fault);
+		this.size++;
+	}
+	
+	
+	public int size() {
+		return this.size;
+	}
+	
+	public int getPageTableAddr(int i) {
+		return this.pageTableAddrs[i];
+	}
+	
+	public int getPageNr(int i) {
+		return this.words[i] >>> FLAG_BITS;
+	}
+	
+	public boolean isWrite(int i) {
+		return (this.words[i] & WRITE) != 0;
+	}
+	
+	/**
+	 * @return true, wenn der Zugriff bei der Aufzeichnung einen Seitenfehler ausgeloest hat
+	 */
+	public boolean isFault(int i) {
+		return (this.words[i] & FAULT) != 0;
+	}
+	
+	
+	/**
+	 * Liest eine Folge aus einer Datei.
+	 * @param file die Datei, geschrieben von einem {@link Writer}
+	 * @return die Folge der Zugriffe
+	 * @throws IOException falls die Datei nicht gelesen werden kann oder kein Trace ist
+	 */
+	public static ReferenceTrace read(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a reference trace");
+			}
+			ReferenceTrace trace = new ReferenceTrace();
+			while(true) {
+				int pageTableAddr;
+				try {
+					pageTableAddr = in.readInt();
+				} catch(EOFException e) {
+					return trace;
+				}
+				int word = in.readInt();
+				trace.add(pageTableAddr, word >>> FLAG_BITS, (word & WRITE) != 0, (word & FAULT) != 0);
+			}
+		} finally {
+			in.close();
+		}
+	}
+	
+	
+	private static int encode(int pageNr, boolean write, boolean fault) {
+		return (pageNr << FLAG_BITS) | (write ? WRITE : 0) | (fault ? FAULT : 0);
+	}
+	
+	
+	
+	/**
+	 * Schreibt die Zugriffe gepuffert in eine Datei.
+	 * <p>
+	 * Tritt beim Schreiben ein Fehler auf, wird er protokolliert und die Aufzeichnung
+	 * beendet, der Simulator laeuft weiter. {@link #close()} wirft den Fehler dann.
+	 * </p>
+	 * <p>
+	 * Bei mehreren CPUs schreiben alle MMUs in denselben Writer, die Methoden sind
+	 * deshalb synchronisiert.
+	 * </p>
+	 */
+	public static final class Writer {
+		
+		private DataOutputStream out;
+		private IOException error;
+		private long count;
+		
+		/**
+		 * Legt die Datei an und schreibt den Kopf.
+		 * @throws IOException falls die Datei nicht angelegt werden kann
+		 */
+		public Writer(File file) throws IOException {
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		}
+		
+		
+		/**
+		 * Zeichnet einen Zugriff auf.
+		 * @param pageTableAddr Adresse der Seitentabelle (= pid)
+		 * @param pageNr Seitennummer
+		 * @param write true bei einem Schreibzugriff
+		 * @param fault true, wenn der Zugriff einen Seitenfehler ausgeloest hat
+		 */
+		public synchronized void record(int pageTableAddr, int pageNr, boolean write, boolean fault) {
+			if(this.out == null) {
+				return;
+			}
+			try {
+				this.out.writeInt(pageTableAddr);
+				this.out.writeInt(encode(pageNr, write, fault));
+				this.count++;
+			} catch(IOException e) {
+				SysLogger.writeLog( SysLogger.MMU, SysLogger.INFO, "ReferenceTrace: recording stopped, " + e );
+				this.error = e;
+				this.closeQuietly();
+			}
+		}
+		
+		
+		/**
+		 * @return Anzahl der aufgezeichneten Zugriffe
+		 */
+		public synchronized long getCount() {
+			return this.count;
+		}
+		
+		
+		/**
+		 * Schreibt den Puffer und schlieszt die Datei.
+		 * @throws IOException falls beim Aufzeichnen oder Schlieszen ein Fehler auftrat
+		 */
+		public synchronized void close() throws IOException {
+			if(this.out != null) {
+				DataOutputStream o = this.out;
+				this.out = null;
+				o.close();
+			}
+			if(this.error != null) {
+				throw this.error;
+			}
+		}
+		
+		
+		private void closeQuietly() {
+			try {
+				this.out.close();
+			} catch(IOException e) {
+				//der erste Fehler ist gemerkt
+			}
+			this.out = null;
+		}
+	}
+}
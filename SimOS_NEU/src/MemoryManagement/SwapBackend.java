@@ -0,0 +1,39 @@
+package MemoryManagement;
+
+/**
+ * <b>Aufgabe:</b> Speicher fuer die Seiten der Auslagerungsdatei.
+ * <p>
+ * Die {@link SwapFile} entscheidet, auf welchen Platz (slot) eine Seite kommt und
+ * welche Plaetze frei sind. Das Backend speichert nur den Inhalt der Plaetze, z.B.
+ * auf dem Heap ({@link HeapSwapBackend}) oder in einer Datei
+ * ({@link MappedSwapBackend}).
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public interface SwapBackend {
+
+	/**
+	 * Liest die Seite auf einem Platz.
+	 * @param slot die Festplattenadresse
+	 * @return die Seite, Zellen duerfen null sein
+	 */
+	String[] read(int slot);
+	
+	/**
+	 * Schreibt eine Seite auf einen Platz.
+	 * @param slot die Festplattenadresse
+	 * @param page die Seite, Zellen duerfen null sein
+	 */
+	void write(int slot, String[] page);
+	
+	/**
+	 * Der Platz wird nicht mehr gebraucht.
+	 */
+	void clear(int slot);
+	
+	/**
+	 * Gibt alle Betriebsmittel des Backends frei.
+	 */
+	void close();
+}
@@ -1,7 +1,5 @@
 package MemoryManagement;
 
-import java.util.ArrayList;
-
 import MainBoot.BootLoader;
 import MainBoot.SysLogger;
 
@@ -13,11 +11,16 @@ import MainBoot.SysLogger;
  * pro Prozess, sonder alle Prozesse teilen sich einen Bereich.
  * <br/>
  * Fuer jede Seite, egal von welchem Prozess, wird einzeln Platz auf
- * der Auslagerungsdatei reserviert, wenn sie ausgelagert wird.
- * Sobald die Seite wieder eingelagert wird, wird ihr Platz freigegeben.
+ * der Auslagerungsdatei reserviert, wenn sie zum ersten Mal ausgelagert wird.
+ * Wird die Seite wieder eingelagert, behaelt sie ihren Platz: Die Kopie bleibt
+ * gueltig, solange die Seite im Hauptspeicher nicht veraendert wird, und beim
+ * Verdraengen muss dann nichts geschrieben werden. Eine veraenderte Seite wird
+ * beim Verdraengen auf denselben Platz zurueckgeschrieben.
+ * Freigegeben wird der Platz erst, wenn die Seite beim Zurueckschreiben leer ist
+ * oder der Prozess beendet wird.
  * <br/>
- * <br/>->Prozesse im Speicher belegen berhaupt keinen Platz auf der Festplatte.
- * <br/>->Jede Seite braucht ihre eigene Festplattenadresse, die in einer Plattenzuordnungstabelle
+ * <br/>->Seiten, die nie ausgelagert wurden, belegen berhaupt keinen Platz auf der Festplatte.
+ * <br/>->Jede ausgelagerte Seite braucht ihre eigene Festplattenadresse, die in einer Plattenzuordnungstabelle
  * gespeichert werden muss.
  * 
  * </p>
@@ -26,42 +29,50 @@ import MainBoot.SysLogger;
  */
 public class SwapFile {
 
-	private ArrayList<SwapFileUnit> swap;
+	private SwapBackend swap;		//die Seiten, Index = Festplattenadresse
+	private boolean[] present;		//bei true, Seite ist nur Im SwapFile ->darf nicht ueberschrieben werden
 	private int swapFileSize;
 	
 	/**
-	 * Erzeugt ein SwapFile mit der uebergebenen Groesze.
+	 * Freigegebene Adressen in der Reihenfolge ihrer Freigabe (Ringpuffer).
+	 * Sie werden vor allen noch nie benutzten Adressen wiederverwendet.
+	 */
+	private int[] freeSlots;
+	private int freeHead;			//naechste freie Adresse im Ringpuffer
+	private int freeCount;
+	
+	private int highWaterMark;		//Adressen ab hier wurden noch nie benutzt
+	
+	private long reads;				//gelesene Seiten
+	private long writes;			//geschriebene Seiten
+	
+	/**
+	 * Erzeugt ein SwapFile mit der uebergebenen Groesze, die Seiten liegen auf dem Heap.
+	 * Alle Plaetze werden gleich angelegt.
 	 * @param size Groesze der Auslagerungsdatei
 	 */
 	public SwapFile(int size) {
-		this.swapFileSize = size;
-		this.swap = new ArrayList<SwapFileUnit>();
+		this(size, new HeapSwapBackend(size));
 	}
 	
 	/**
-	 * Erzeugt ein SwapFile mit der Default-Groesze.
-	 * Die Default-Groesze ist typischerweise 320.
+	 * Erzeugt ein SwapFile mit der uebergebenen Groesze und einem eigenen Backend.
+	 * @param size Groesze der Auslagerungsdatei
+	 * @param backend speichert die Seiten, muss mindestens <code>size</code> Plaetze haben
 	 */
-	public SwapFile() {
-		this.swapFileSize = BootLoader.swapFileSize;
-		this.swap = new ArrayList<SwapFileUnit>();
+	public SwapFile(int size, SwapBackend backend) {
+		this.swapFileSize = size;
+		this.swap = backend;
+		this.present = new boolean[size];
+		this.freeSlots = new int[size];
 	}
 	
 	/**
-	 * Die Auslagerungsdatei besteht aus einer Liste von
-	 * diesen Objekten. Zusaetzlich zu jeder Seite wird die Information
-	 * gespeichert ob diese Seite ueberschrieben werden darf oder nicht.
-	 * @author Johann Mantler, Hoang Anh Duong, Hicham Belmoquadem
-	 *
+	 * Erzeugt ein SwapFile mit der Default-Groesze.
+	 * Die Default-Groesze ist typischerweise 320.
 	 */
-	private class SwapFileUnit {
-		String[] page;
-		boolean present;	//bei true, Seite ist nur Im SwapFile ->darf nicht ueberschrieben werden
-		
-		SwapFileUnit(String[] page) {
-			this.page = page;
-			present = true;
-		}
+	public SwapFile() {
+		this(BootLoader.swapFileSize);
 	}
 	
 	
@@ -69,11 +80,9 @@ public class SwapFile {
 	 * Liefert eine Seite aus der Auslagerungsdatei, um sie
 	 * dann im Hauptspeicher unterzubringen.
 	 * <p>
-	 * Die Seite befindet sich danach immer noch auf der Auslagerungsdatei,
-	 * wird aber als nicht mehr praesent markiert ->
-	 * das <code>present</code> Attribut der Seite wird auf false gesetzt.
-	 * Nun kann die Seite ueberschrieben werden, um der Fragmentierung vorzubeugen
-	 * und Plattenspeicher zu sparen.
+	 * Die Seite wird danach als nicht mehr praesent markiert und ihr Platz
+	 * freigegeben. Nun kann der Platz ueberschrieben werden, um der Fragmentierung
+	 * vorzubeugen und Plattenspeicher zu sparen.
 	 * </p>
 	 * <p>
 	 * Wichtig! Der pageSwapFileAddr ist danach nicht mehr gueltig!
@@ -83,51 +92,140 @@ public class SwapFile {
 	 */
 	public String[] getPage(int pageSwapFileAddr) {
 	
-		SwapFileUnit unit = this.swap.get(pageSwapFileAddr);
-		unit.present = false;
+		String[] page = this.swap.read(pageSwapFileAddr);
+		this.reads++;
+		this.freePage(pageSwapFileAddr);
+		
+		return page;
+	}
+
+	
+	/**
+	 * Liefert eine Seite aus der Auslagerungsdatei, ohne ihren Platz freizugeben.
+	 * <p>
+	 * Die Kopie auf der Auslagerungsdatei bleibt gueltig, solange die Seite im
+	 * Hauptspeicher liegt. Wird die Seite dort nicht veraendert, muss sie beim
+	 * Verdraengen nicht zurueckgeschrieben werden.
+	 * </p>
+	 * @param pageSwapFileAddr Adresse der Seite auf dem Swapbereich
+	 * @return gibt die Seite als String-Array zurueck.
+	 */
+	public String[] readPage(int pageSwapFileAddr) {
+		
+		this.reads++;
+		return this.swap.read(pageSwapFileAddr);
+	}
+	
+	
+	/**
+	 * Ueberschreibt eine Seite auf ihrem bisherigen Platz, z.B. wenn sie im
+	 * Hauptspeicher veraendert wurde.
+	 * @param pageSwapFileAddr Adresse der Seite auf dem Swapbereich, muss belegt sein
+	 * @param page der neue Inhalt der Seite
+	 */
+	public void updatePage(int pageSwapFileAddr, String[] page) {
+		
+		if( ! this.present[pageSwapFileAddr] ) {
+			throw new IllegalStateException("swap slot " + pageSwapFileAddr + " is not in use");
+		}
+		this.swap.write(pageSwapFileAddr, page);
+		this.writes++;
+	}
+
+	
+	/**
+	 * Gibt den Platz einer Seite auf der Auslagerungsdatei frei, ohne sie zu lesen,
+	 * z.B. weil der Prozess beendet wurde. Eine doppelte Freigabe wird ignoriert.
+	 * <p>
+	 * Wichtig! Der pageSwapFileAddr ist danach nicht mehr gueltig!
+	 * </p>
+	 * @param pageSwapFileAddr Adresse der Seite auf dem Swapbereich
+	 */
+	public void freePage(int pageSwapFileAddr) {
+		
+		if( ! this.present[pageSwapFileAddr] ) {
+			return;
+		}
+		this.present[pageSwapFileAddr] = false;
+		this.swap.clear(pageSwapFileAddr);
 		
-		return unit.page;
+		this.freeSlots[(this.freeHead + this.freeCount) % this.swapFileSize] = pageSwapFileAddr;
+		this.freeCount++;
 	}
 
 	
 	/**
 	 * Lagert eine Seite in die Auslagerungsdatei ein.
-	 * Die Seite wird in die naechste freie Luecke eingefuegt.
+	 * Die Seite kommt auf den Platz, der als erster freigegeben wurde, sonst auf
+	 * den ersten noch nie benutzten Platz. Beides geht in O(1).
 	 * @param page die Seite, die eingelagert werden soll
 	 * @return Die Festplattenadresse der Seite als int oder -1 wenn kein
 	 * Platz mehr auf der Auslagerungsdatei vorhanden ist.
 	 */
 	public int setPage(String[] page) {
 		
-		boolean overwrite = false;
-		int addr = -1;
+		int addr;
 		
-		if(this.swap.size() >= this.swapFileSize) {
+		if(this.freeCount > 0) {
 			
-			SysLogger.writeLog( 0, "SwapFile.setPage: SwapFile is full!");
-			return addr;
-		}
-		
-		for(int i = 0; i < this.swap.size(); i++) {
+			addr = this.freeSlots[this.freeHead];
+			this.freeHead = (this.freeHead + 1) % this.swapFileSize;
+			this.freeCount--;
+			
+		} else if(this.highWaterMark < this.swapFileSize) {
+			
+			addr = this.highWaterMark++;
 			
-			if ( ! this.swap.get(i).present ) {
-				this.swap.set(i, new SwapFileUnit(page));
-				overwrite = true;
-				addr = i;
-				break;
-			}
-	         
-				
+		} else {
+			
+			SysLogger.writeLog( SysLogger.SWAP, SysLogger.INFO, "SwapFile.setPage: SwapFile is full!");
+			return -1;
 		}
 		
-		if(!overwrite) {
-			this.swap.add(new SwapFileUnit(page));
-			addr = this.swap.size()-1;
+		this.present[addr] = true;
+		try {
+			this.swap.write(addr, page);
+		} catch(RuntimeException e) {
+			this.freePage(addr);						//der Platz darf nicht verloren gehen
+			throw e;
 		}
-		
+		this.writes++;
 		
 		return addr;
 	}
 	
 	
+	/**
+	 * Schlieszt die Auslagerungsdatei, z.B. beim Herunterfahren.
+	 */
+	public void close() {
+		this.swap.close();
+	}
+	
+	
+	/**
+	 * @return Anzahl der belegten Plaetze
+	 */
+	public int getUsedCount() {
+		return this.highWaterMark - this.freeCount;
+	}
+	
+	
+	/**
+	 * @return Anzahl der Seiten, die von der Auslagerungsdatei gelesen wurden
+	 */
+	public long getReadCount() {
+		return this.reads;
+	}
+	
+	
+	/**
+	 * @return Anzahl der Seiten, die auf die Auslagerungsdatei geschrieben wurden,
+	 * einschlieszlich der Seiten, die beim Laden eines Programmes ausgelagert werden
+	 */
+	public long getWriteCount() {
+		return this.writes;
+	}
+	
+	
 } //end class
@@ -0,0 +1,219 @@
+package MemoryManagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+import MainBoot.BootLoader;
+
+/**
+ * <b>Aufgabe:</b> Spielt eine aufgezeichnete Folge von Seitenzugriffen ({@link ReferenceTrace})
+ * offline gegen Seitenersetzungsalgorithmen ab.
+ * <p>
+ * Es werden nur die Seitentabellen, die freien Rahmen und der Algorithmus nachgebildet,
+ * wie es der MemoryManager bei einem Seitenfehler macht, ohne Hauptspeicher und
+ * Auslagerungsdatei. Zum Vergleich wird die Anzahl der Seitenfehler des optimalen
+ * Algorithmus nach Belady (OPT) berechnet, die untere Grenze fuer jeden Algorithmus.
+ * </p>
+ * <p>
+ * Aufruf: <code>TraceSimulator &lt;trace&gt; &lt;frames,...&gt; [&lt;policy,...&gt;]</code>,
+ * ohne Algorithmen werden alle aus {@link BootLoader#pageReplacementNames} verglichen.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class TraceSimulator {
+
+	/**
+	 * Ergebnis eines Durchlaufes.
+	 */
+	public static final class Result {
+		private final long references;
+		private final long faults;
+		private final long writeBacks;
+		
+		Result(long references, long faults, long writeBacks) {
+			this.references = references;
+			this.faults = faults;
+			this.writeBacks = writeBacks;
+		}
+		
+		public long getReferences() {
+			return references;
+		}
+		
+		public long getFaults() {
+			return faults;
+		}
+		
+		/**
+		 * @return Anzahl der verdraengten Seiten, die veraendert waren
+		 */
+		public long getWriteBacks() {
+			return writeBacks;
+		}
+		
+		/**
+		 * @return Anteil der Seitenfehler an allen Zugriffen, 0 ohne Zugriffe
+		 */
+		public double getFaultRate() {
+			return references == 0 ? 0 : (double) faults / references;
+		}
+	}
+	
+	
+	
+	/**
+	 * Spielt die Folge gegen einen Algorithmus ab.
+	 * @param trace die Zugriffe
+	 * @param policy der Algorithmus, noch ohne Seiten
+	 * @param frames Anzahl der Rahmen
+	 * @return das Ergebnis
+	 */
+	public static Result simulate(ReferenceTrace trace, PageReplacementIF policy, int frames) {
+		checkFrames(frames);
+		HashMap<Long, PageTableEntry> entries = new HashMap<Long, PageTableEntry>();
+		int usedFrames = 0;
+		long faults = 0;
+		long writeBacks = 0;
+		
+		for(int i = 0; i < trace.size(); i++) {
+			int pageTableAddr = trace.getPageTableAddr(i);
+			int pageNr = trace.getPageNr(i);
+			Long key = Long.valueOf(key(pageTableAddr, pageNr));
+			PageTableEntry entry = entries.get(key);
+			if(entry == null) {
+				entry = new PageTableEntry();
+				entries.put(key, entry);
+			}
+			
+			if(entry.getFrameNr() == -1) {							//Seitenfehler
+				faults++;
+				int frameNr;
+				if(usedFrames < frames) {
+					frameNr = usedFrames++;
+				} else {
+					int[] victim = policy.execute();
+					PageTableEntry victimEntry = entries.get(Long.valueOf(key(victim[3], victim[0])));
+					if(victimEntry.isModified()) {
+						writeBacks++;
+					}
+					victimEntry.setFrameNr(-1);
+					frameNr = victim[1];
+				}
+				entry.setFrameNr(frameNr);
+				entry.setModified(false);
+				entry.setReferenced(false);
+				policy.insert(pageTableAddr, pageTableAddr, entry, pageNr);
+			} else {
+				entry.setReferenced(true);							//wie die MMU: nicht beim Zugriff mit Seitenfehler
+			}
+			
+			if(trace.isWrite(i)) {
+				entry.setModified(true);
+			}
+		}
+		return new Result(trace.size(), faults, writeBacks);
+	}
+	
+	
+	
+	/**
+	 * Berechnet die Seitenfehler des optimalen Algorithmus: Verdraengt wird die Seite,
+	 * die am spaetesten wieder gebraucht wird.
+	 * @param trace die Zugriffe
+	 * @param frames Anzahl der Rahmen
+	 * @return das Ergebnis, ohne Zaehlung der zurueckgeschriebenen Seiten
+	 */
+	public static Result simulateOPT(ReferenceTrace trace, int frames) {
+		checkFrames(frames);
+		int n = trace.size();
+		int[] nextUse = new int[n];								//naechster Zugriff auf dieselbe Seite
+		HashMap<Long, Integer> following = new HashMap<Long, Integer>();
+		for(int i = n - 1; i >= 0; i--) {
+			Long key = Long.valueOf(key(trace.getPageTableAddr(i), trace.getPageNr(i)));
+			Integer next = following.put(key, Integer.valueOf(i));
+			nextUse[i] = next == null ? Integer.MAX_VALUE : next.intValue();
+		}
+		
+		HashMap<Long, Integer> resident = new HashMap<Long, Integer>();	//Seite -> naechster Zugriff
+		PriorityQueue<long[]> farthest = new PriorityQueue<long[]>(frames * 2, new Comparator<long[]>() {
+			public int compare(long[] a, long[] b) {
+				return a[0] < b[0] ? 1 : (a[0] > b[0] ? -1 : 0);
+			}
+		});
+		long faults = 0;
+		
+		for(int i = 0; i < n; i++) {
+			Long key = Long.valueOf(key(trace.getPageTableAddr(i), trace.getPageNr(i)));
+			if(!resident.containsKey(key)) {
+				faults++;
+				if(resident.size() == frames) {
+					while(true) {								//veraltete Eintraege ueberspringen
+						long[] top = farthest.poll();
+						Long victim = Long.valueOf(top[1]);
+						Integer next = resident.get(victim);
+						if(next != null && next.intValue() == top[0]) {
+							resident.remove(victim);
+							break;
+						}
+					}
+				}
+			}
+			resident.put(key, Integer.valueOf(nextUse[i]));
+			farthest.add(new long[] { nextUse[i], key.longValue() });
+		}
+		return new Result(n, faults, 0);
+	}
+	
+	
+	
+	private static void checkFrames(int frames) {
+		if(frames < 1) {
+			throw new IllegalArgumentException("frames: " + frames);
+		}
+	}
+	
+	
+	private static long key(int pageTableAddr, int pageNr) {
+		return ((long) pageTableAddr << 32) | (pageNr & 0xFFFFFFFFL);
+	}
+	
+	
+	
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("usage: TraceSimulator <trace> <frames,...> [<policy,...>]");
+			System.exit(1);
+		}
+		ReferenceTrace trace = ReferenceTrace.read(new File(args[0]));
+		String[] frameList = args[1].split(",");
+		String[] policies = args.length > 2 ? args[2].split(",") : BootLoader.pageReplacementNames;
+		
+		long recordedFaults = 0;
+		for(int i = 0; i < trace.size(); i++) {
+			if(trace.isFault(i)) {
+				recordedFaults++;
+			}
+		}
+		System.out.println(trace.size() + " references, " + recordedFaults + " faults when recorded");
+		System.out.println(String.format("%-16s %8s %12s %10s %12s", "policy", "frames", "faults", "rate", "write-backs"));
+		
+		for(int f = 0; f < frameList.length; f++) {
+			int frames = Integer.parseInt(frameList[f].trim());
+			print("opt", frames, simulateOPT(trace, frames));
+			for(int p = 0; p < policies.length; p++) {
+				PageReplacementIF policy = BootLoader.createPageReplacement(policies[p], frames);
+				print(policies[p], frames, simulate(trace, policy, frames));
+			}
+		}
+	}
+	
+	
+	private static void print(String name, int frames, Result result) {
+		System.out.println(String.format("%-16s %8d %12d %10.4f %12d",
+				name, frames, result.getFaults(), result.getFaultRate(), result.getWriteBacks()));
+	}
+}
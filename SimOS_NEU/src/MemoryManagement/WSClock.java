@@ -0,0 +1,61 @@
+package MemoryManagement;
+
+/**
+ * <b>Aufgabe:</b> Seitenersetzung nach WSClock (Working Set Clock).
+ * <p>
+ * Jede Seite merkt sich den Zeitpunkt ihres letzten bekannten Zugriffs. Der Uhrzeiger
+ * loescht das R-Bit referenzierter Seiten und setzt ihren Zeitpunkt auf jetzt.
+ * Eine Seite, deren letzter Zugriff laenger als <code>tau</code> zurueckliegt, gehoert
+ * nicht mehr zum Working Set: Ist sie unveraendert, wird sie verdraengt. Veraenderte
+ * Seiten werden nur gewaehlt, wenn es nach einer ganzen Runde keine unveraenderte gibt,
+ * sonst die Seite mit dem aeltesten Zugriff.
+ * </p>
+ * <p>
+ * Die Zeit ist die virtuelle Zeit aus {@link AbstractPageReplacement}, also die Anzahl
+ * der Seitenfehler.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class WSClock extends EnhancedClock {
+
+	private final long tau;		//Groesze des Working-Set-Fensters
+	
+	/**
+	 * @param tau Groesze des Working-Set-Fensters in Seitenfehlern
+	 */
+	public WSClock(long tau) {
+		this.tau = tau;
+	}
+	
+	
+	public int[] execute() {
+		if(ring.isEmpty()) {
+			return null;
+		}
+		long now = now();
+		Page oldDirty = null;		//erste veraltete, veraenderte Seite
+		Page oldest = null;
+		for(int i = 0; i < ring.size(); i++) {
+			Page page = ring.get(hand);
+			if(page.isReferenced()) {
+				page.entry.setReferenced(false);
+				page.lastUse = now;
+			} else if(now - page.lastUse > tau) {
+				if(!page.isModified()) {
+					return victim(evict());
+				}
+				if(oldDirty == null) {
+					oldDirty = page;
+				}
+			}
+			if(oldest == null || page.lastUse < oldest.lastUse) {
+				oldest = page;
+			}
+			advance();
+		}
+		Page page = oldDirty != null ? oldDirty : oldest;
+		hand = ring.indexOf(page);
+		return victim(evict());
+	}
+}
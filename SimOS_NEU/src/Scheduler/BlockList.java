@@ -0,0 +1,77 @@
+package Scheduler;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import MemoryManagement.PCB;
+
+/**
+ * <b>Aufgabe:</b> Verwaltet die blockierten Prozesse des Schedulers.
+ * <p>
+ * Die Prozesse liegen in Warteschlangen, eine pro (Event-Typ, ID), z.B. alle Prozesse,
+ * die mit <code>wait</code> auf das Ende desselben Prozesses warten. Beim Aufwecken wird
+ * nur diese eine Warteschlange angefasst, unabhaengig davon, wie viele andere Prozesse
+ * blockiert sind. Innerhalb einer Warteschlange werden die Prozesse in der Reihenfolge
+ * aufgeweckt, in der sie blockiert wurden.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class BlockList {
+
+  private HashMap<Long, LinkedList<EventPCB>> queues = new HashMap<Long, LinkedList<EventPCB>>();
+  private volatile int size;    //geschrieben nur unter der Sperre des Schedulers, gelesen auch ohne
+  
+  /**
+   * Blockiert einen Prozess bis zu seinem Event.
+   */
+  public void add( EventPCB blocked ) {
+    Long key = key( blocked.getEvent().getType(), blocked.getEvent().getID() );
+    LinkedList<EventPCB> queue = queues.get( key );
+    if( queue == null ) {
+      queue = new LinkedList<EventPCB>();
+      queues.put( key, queue );
+    }
+    queue.addLast( blocked );
+    size++;
+  }
+  
+  /**
+   * Entfernt alle Prozesse, die auf das Event warten.
+   * @param type der Event-Typ, z.B. <code>Event.wait</code>
+   * @param id die ID des Events, z.B. die pid des Prozesses, auf dessen Ende gewartet wird
+   * @return die aufgeweckten Prozesse in der Reihenfolge, in der sie blockiert wurden,
+   * oder eine leere Liste
+   */
+  public LinkedList<EventPCB> wakeUp( int type, int id ) {
+    LinkedList<EventPCB> queue = queues.remove( key(type, id) );
+    if( queue == null ) {
+      return new LinkedList<EventPCB>();
+    }
+    size -= queue.size();
+    return queue;
+  }
+  
+  /**
+   * @return Anzahl der blockierten Prozesse. Braucht keine Sperre, z.B. fuer die Metriken.
+   */
+  public int size() {
+    return size;
+  }
+  
+  /**
+   * @return alle blockierten Prozesse, in keiner bestimmten Reihenfolge
+   */
+  public ArrayList<PCB> getProcesses() {
+    ArrayList<PCB> processes = new ArrayList<PCB>( size );
+    for( LinkedList<EventPCB> queue : queues.values() ) {
+      for( EventPCB blocked : queue ) {
+        processes.add( blocked.getPCB() );
+      }
+    }
+    return processes;
+  }
+  
+  private static Long key( int type, int id ) {
+    return Long.valueOf( ((long) type << 32) | (id & 0xFFFFFFFFL) );
+  }
+}
@@ -7,14 +7,14 @@ package Scheduler;
  * hineingebracht werden.
  */
 
-import Hardware.SysConsole;
+import Hardware.ConsoleIF;
 
 public class Event {
     private int type; // Typ des Events
     private int id; // Zusatzinfo, z.B. PID
     private int address; // Hauptspeicheradresse für DMA
     private String content; // Rückgabewert/Ergebnis des Events
-    private SysConsole console;
+    private ConsoleIF console;
     
     /*EventType definitionen */
     public static final int undefiniert = -1;
@@ -67,10 +67,10 @@ public class Event {
         this.content = content;
     }
     
-    public SysConsole getConsole() {
+    public ConsoleIF getConsole() {
         return console;
     }
-    public void setConsole( SysConsole console ) {
+    public void setConsole( ConsoleIF console ) {
         this.console = console;
     }
 }
@@ -0,0 +1,269 @@
+package Scheduler;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import Hardware.CPU;
+import Hardware.RegisterSet;
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Scheduler mit mehreren Prioritaetsstufen (multilevel feedback queue).
+ * <p>
+ * Jede Stufe hat eine eigene Warteschlange, Stufe 0 ist die hoechste Prioritaet. Die
+ * Stufe eines Prozesses steht in seiner Prioritaet im PCB.
+ * <ul>
+ * <li>Es laeuft immer ein Prozess aus der hoechsten nicht leeren Stufe, innerhalb
+ * einer Stufe reihum (round robin).</li>
+ * <li>Neue Prozesse beginnen in Stufe 0.</li>
+ * <li>Wer seine Zeitscheibe ganz verbraucht, rutscht eine Stufe nach unten. Dafuer
+ * ist die Zeitscheibe jeder Stufe doppelt so lang wie die der Stufe darueber.</li>
+ * <li>Wer blockiert (<code>read</code>, <code>wait</code>), steigt eine Stufe auf.
+ * Interaktive Prozesse bleiben dadurch oben.</li>
+ * <li>Alle <code>boostInterval</code> Zeitscheiben kommen alle Prozesse wieder in
+ * Stufe 0, damit rechenintensive Prozesse nicht verhungern.</li>
+ * </ul>
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class MLFQScheduler implements SchedulerIF {
+  
+  private BlockList blocklist;
+  private ArrayList<LinkedList<PCB>> readylists;   //eine Warteschlange pro Stufe
+  private int readyCount;
+  private int[] timeslices;                        //Zeitscheibe pro Stufe
+  private int boostInterval;
+  private long slices;                             //Anzahl der bisherigen Zeitscheiben
+  private PCB running;
+  private PCB idleProcess;
+  private CPU cpu;
+  private ProcessManager processManager;
+
+  
+  /**
+   * Erzeugt den Scheduler. Wie beim {@link Scheduler} laeuft ggf. der Idle-Pseudoprozess.
+   * @param cpu der Scheduler muss eine CPU kennen
+   * @param processManager Der ProcessManager, damit der Scheduler ggf. Prozesse zerstoeren kann.
+   * @param levels Anzahl der Stufen, mindestens 1
+   * @param timeslice Zeitscheibe der Stufe 0 in Befehlen
+   * @param boostInterval nach so vielen Zeitscheiben kommen alle Prozesse in Stufe 0
+   */
+  public MLFQScheduler( CPU cpu, ProcessManager processManager, int levels, int timeslice, int boostInterval ) {
+    if( levels < 1 || timeslice < 1 || boostInterval < 1 ) {
+      throw new IllegalArgumentException( "levels: " + levels + ", timeslice: " + timeslice + ", boostInterval: " + boostInterval );
+    }
+    this.cpu = cpu;
+    this.processManager = processManager;
+    this.boostInterval = boostInterval;
+    blocklist = new BlockList();
+    readylists = new ArrayList<LinkedList<PCB>>();
+    timeslices = new int[levels];
+    for( int i = 0; i < levels; i++ ) {
+      readylists.add( new LinkedList<PCB>() );
+      timeslices[i] = timeslice << Math.min( i, 16 );
+    }
+    idleProcess = new PCB( 0, 0, "idle" );
+
+    idleProcess.getRegisterSet().setProgramCounter( RegisterSet.NO_PROGRAM_COUNTER );
+    running = idleProcess;
+    cpu.restoreRegisters( running.getRegisterSet() );
+  }
+
+  public int getRunningPid() {
+    return running.getPid();
+  }
+  
+  /**
+   * @return die Zeitscheibe der Stufe des laufenden Prozesses
+   */
+  public int getTimeslice() {
+    return timeslices[ running.getPriority() ];
+  }
+
+  /**
+   * Der laufende Prozess hat seine Zeitscheibe verbraucht und rutscht eine Stufe
+   * nach unten. Er laeuft weiter, wenn kein anderer Prozess in seiner oder einer
+   * hoeheren Stufe rechenbereit ist.
+   */
+  public void timesliceOver() {
+    
+    if( running != idleProcess ) {
+      running.setPriority( Math.min(running.getPriority() + 1, timeslices.length - 1) );
+    }
+    countSlice();
+    
+    int level = highestReadyLevel();
+    if( level == -1 || (running != idleProcess && running.getPriority() < level) ) {
+      if( running.getPid() > 0 ) {
+        SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.timesliceOver: no one else is waiting, process "
+            + running.getPid() + " continues at level " + running.getPriority() );
+      }
+      return;
+    }
+    
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.timesliceOver: process " + running.getPid() + " is suspended" );
+    if( running != idleProcess ) {    // Der Idle-Prozess wird nicht ge-scheduled
+      cpu.saveRegisters( running.getRegisterSet() );
+      enqueue( running );
+    }
+    switchToNext( "timesliceOver" );
+  }
+  
+  /**
+   * Zerstoert den aktuell laufenden Prozess.
+   */
+  public void endProcess() {
+    
+    int pid = running.getPid();
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: process " + pid + " is ending" );
+    // Die aktuellen Registerinhalte werden beim Zerstoeren noch benoetigt.
+    cpu.saveRegisters( running.getRegisterSet() );
+    processManager.destroyProcess( pid );
+    
+    for( Iterator<EventPCB> it = blocklist.wakeUp(Event.wait, pid).iterator(); it.hasNext(); ) {
+      EventPCB blocked = it.next();
+      enqueue( blocked.getPCB() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: process " + blocked.getPCB().getPid() + " is returning from sleeping");
+    }
+    switchToNext( "endProcess" );
+  }
+  
+  /**
+   * Fuegt einen neuen rechenbereiten Prozess in Stufe 0 ein.
+   * @param pcb der Prozess als Prozesskontrollblock(PCB)
+   */
+  public void addProcess( PCB pcb ) {
+    pcb.setPriority(0);
+    pcb.setState("ready");
+    enqueue( pcb );
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.addProcess: new process " + pcb.getPid()
+                         + " added, ready processes: " + readyCount + "\n" );
+  }
+  
+  /**
+   * Loest die Blockade eines Prozesses, er kommt in die Warteschlange seiner Stufe.
+   * <b> Als Argument darf nur ein abgearbeitetes Event uebergeben werden!
+   * </b>
+   */
+  public void unblock( Event event ) {
+
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.unblock: received event " + event.toString() );
+    
+    for( Iterator<EventPCB> it = blocklist.wakeUp(event.getType(), event.getID()).iterator(); it.hasNext(); ) {
+      EventPCB blocked = it.next();
+      enqueue( blocked.getPCB() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.unblock: process " + blocked.getPCB().getPid() + " is returning from sleeping");
+    }
+  }
+  
+  /**
+   * Blockiert den aktuell laufenden Prozess. Er steigt dabei eine Stufe auf,
+   * weil er seine Zeitscheibe nicht verbraucht hat.
+   * @param event Das Event, warum der Prozess blockiert wurde.
+   */
+  public void block( Event event ) {
+    int pid = running.getPid();
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.block: process " + pid + " is waiting for event " + event.toString() );
+    cpu.saveRegisters( running.getRegisterSet() );
+    running.setPriority( Math.max(running.getPriority() - 1, 0) );
+    blocklist.add( new EventPCB(event, running) );
+    countSlice();
+    switchToNext( "block" );
+  }
+  
+  /**
+   * Wie {@link #block(Event)}, aber nur, wenn der Prozess, auf den gewartet wird, noch lebt.
+   * @param event ein <code>wait</code>-Event
+   * @return true, wenn der Prozess blockiert wurde
+   */
+  public boolean waitFor( Event event ) {
+    if( !processManager.isAlive(event.getID()) ) {
+      return false;
+    }
+    block( event );
+    return true;
+  }
+  
+  /**
+   * Schaltet zum ersten Prozess der hoechsten nicht leeren Stufe, sonst zum Idle-Prozess.
+   */
+  private void switchToNext( String caller ) {
+    int level = highestReadyLevel();
+    if( level == -1 ) {
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler." + caller + ": switching to idle process" );
+      running = idleProcess;
+    } else {
+      running = readylists.get(level).removeFirst();
+      readyCount--;
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler." + caller + ": switching to process " + running.getPid()
+          + " at level " + level );
+    }
+    running.markRunning();
+    cpu.restoreRegisters( running.getRegisterSet() );
+  }
+  
+  private void enqueue( PCB pcb ) {
+    readylists.get( pcb.getPriority() ).addLast( pcb );
+    readyCount++;
+  }
+  
+  /**
+   * @return die hoechste Stufe mit einem rechenbereiten Prozess oder -1
+   */
+  private int highestReadyLevel() {
+    if( readyCount == 0 ) {
+      return -1;
+    }
+    for( int i = 0; i < readylists.size(); i++ ) {
+      if( !readylists.get(i).isEmpty() ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * Zaehlt eine Zeitscheibe und hebt alle <code>boostInterval</code> Zeitscheiben
+   * alle Prozesse in Stufe 0 an.
+   */
+  private void countSlice() {
+    if( ++slices % boostInterval != 0 ) {
+      return;
+    }
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler: priority boost" );
+    LinkedList<PCB> top = readylists.get(0);
+    for( int i = 1; i < readylists.size(); i++ ) {
+      LinkedList<PCB> list = readylists.get(i);
+      while( !list.isEmpty() ) {
+        PCB pcb = list.removeFirst();
+        pcb.setPriority(0);
+        top.addLast( pcb );
+      }
+    }
+    ArrayList<PCB> blocked = blocklist.getProcesses();
+    for( int i = 0; i < blocked.size(); i++ ) {
+      blocked.get(i).setPriority(0);
+    }
+    running.setPriority(0);
+  }
+  
+  /**
+   * @return Anzahl der rechenbereiten Prozesse in einer Stufe
+   */
+  public int getReadyCount( int level ) {
+    return readylists.get(level).size();
+  }
+  
+  /**
+   * @return Anzahl der rechenbereiten Prozesse in allen Stufen
+   */
+  public int getReadyCount() {
+    return readyCount;
+  }
+  
+  public int getBlockedCount() {
+    return blocklist.size();
+  }
+}
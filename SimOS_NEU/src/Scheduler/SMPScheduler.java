@@ -0,0 +1,356 @@
+package Scheduler;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import Hardware.CPU;
+import Hardware.RegisterSet;
+import MainBoot.BootLoader;
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Round-Robin-Scheduler fuer mehrere CPUs (symmetric multiprocessing).
+ * <p>
+ * Jede CPU hat ihre eigene Warteschlange und ihren eigenen laufenden Prozess. Ihre
+ * Sicht auf den Scheduler liefert {@link #getScheduler(int)}, diese Sicht bekommt die
+ * CPU mit <code>setScheduler</code>. Ausser der CPU selbst greifen nur andere CPUs
+ * beim Stehlen auf eine Warteschlange zu, jede Warteschlange hat deshalb ihre eigene
+ * Sperre. Die Blockliste ist gemeinsam.
+ * <ul>
+ * <li>Neue und aufgeweckte Prozesse kommen in die Warteschlange der CPU, auf der
+ * <code>create_process</code>, das Ende des Prozesses oder die Eingabe behandelt wurde.</li>
+ * <li>Hat eine CPU nichts zu tun, stiehlt sie den letzten Prozess aus der Warteschlange
+ * einer anderen CPU (work stealing). Eine CPU, die einen Prozess ausfuehrt, stiehlt
+ * nicht, der Prozess laeuft dann einfach weiter.</li>
+ * <li>Kommt ein Prozess in eine Warteschlange, wird eine CPU ohne Arbeit ueber ihren
+ * Interrupt-Controller geweckt, damit sie ihn sofort stehlen kann.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Der ProcessManager kennt nur das SMPScheduler-Objekt selbst. Dessen Methoden
+ * arbeiten mit der Sicht der CPU, auf deren Thread sie aufgerufen werden (beim Booten
+ * ist das noch keine CPU, dann mit der Sicht von CPU 0).
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+public class SMPScheduler implements SchedulerIF {
+  
+  private Core[] cores;
+  private BlockList blocklist;                     //gemeinsam, Sperre ist die Liste selbst
+  private ProcessManager processManager;
+  private AtomicLong steals = new AtomicLong();
+
+  
+  /**
+   * Erzeugt den Scheduler. Jede CPU bekommt ihren eigenen Idle-Pseudoprozess (pid 0).
+   * @param cpus die CPUs, mindestens eine
+   * @param processManager Der ProcessManager, damit der Scheduler ggf. Prozesse zerstoeren kann.
+   */
+  public SMPScheduler( CPU[] cpus, ProcessManager processManager ) {
+    if( cpus.length < 1 ) {
+      throw new IllegalArgumentException( "no cpu" );
+    }
+    this.processManager = processManager;
+    blocklist = new BlockList();
+    cores = new Core[cpus.length];
+    for( int i = 0; i < cpus.length; i++ ) {
+      cores[i] = new Core( i, cpus[i] );
+    }
+  }
+  
+  /**
+   * @return die Sicht der CPU <code>cpuId</code> auf den Scheduler
+   */
+  public SchedulerIF getScheduler( int cpuId ) {
+    return cores[cpuId];
+  }
+  
+  /**
+   * @return Anzahl der rechenbereiten Prozesse in der Warteschlange der CPU
+   */
+  public int getReadyCount( int cpuId ) {
+    return cores[cpuId].getReadyCount();
+  }
+  
+  /**
+   * @return Anzahl der rechenbereiten Prozesse in allen Warteschlangen
+   */
+  public int getReadyCount() {
+    int count = 0;
+    for( int i = 0; i < cores.length; i++ ) {
+      count += cores[i].getReadyCount();
+    }
+    return count;
+  }
+  
+  /**
+   * @return Anzahl der blockierten Prozesse, ohne die Blockliste zu sperren
+   */
+  public int getBlockedCount() {
+    return blocklist.size();
+  }
+  
+  /**
+   * @return wie oft eine CPU einer anderen einen Prozess gestohlen hat
+   */
+  public long getStealCount() {
+    return steals.get();
+  }
+  
+  /**
+   * @return die Sicht der CPU, auf deren Thread die Methode aufgerufen wird, sonst CPU 0
+   */
+  private Core current() {
+    Thread thread = Thread.currentThread();
+    for( int i = 0; i < cores.length; i++ ) {
+      if( cores[i].cpu == thread ) {
+        return cores[i];
+      }
+    }
+    return cores[0];
+  }
+  
+  public int getRunningPid() {
+    return current().getRunningPid();
+  }
+  
+  public void timesliceOver() {
+    current().timesliceOver();
+  }
+  
+  public void endProcess() {
+    current().endProcess();
+  }
+  
+  public void addProcess( PCB pcb ) {
+    current().addProcess( pcb );
+  }
+  
+  public void unblock( Event event ) {
+    current().unblock( event );
+  }
+  
+  public void block( Event event ) {
+    current().block( event );
+  }
+  
+  public boolean waitFor( Event event ) {
+    return current().waitFor( event );
+  }
+  
+  public int getTimeslice() {
+    return BootLoader.timeslice;
+  }
+  
+  
+  
+  /**
+   * Die Sicht einer CPU auf den Scheduler. Alle Methoden ausser dem Stehlen werden nur
+   * auf dem Thread dieser CPU aufgerufen, <code>running</code> braucht deshalb keine Sperre.
+   * Andere CPUs lesen es nur, um eine CPU ohne Arbeit zu finden.
+   */
+  private class Core implements SchedulerIF {
+    
+    private final int id;
+    private final CPU cpu;
+    private final ArrayDeque<PCB> readylist = new ArrayDeque<PCB>();  //Sperre ist die Liste selbst
+    private volatile int readyCount;                                    //Laenge von readylist, lesen ohne Sperre
+    private final PCB idleProcess;
+    private volatile PCB running;
+    
+    Core( int id, CPU cpu ) {
+      this.id = id;
+      this.cpu = cpu;
+      idleProcess = new PCB( 0, 0, "idle" );
+      idleProcess.getRegisterSet().setProgramCounter( RegisterSet.NO_PROGRAM_COUNTER );
+      running = idleProcess;
+      cpu.restoreRegisters( running.getRegisterSet() );
+    }
+    
+    public int getRunningPid() {
+      return running.getPid();
+    }
+    
+    public int getTimeslice() {
+      return BootLoader.timeslice;
+    }
+    
+    /**
+     * Wie beim {@link Scheduler}. Ist die eigene Warteschlange leer und laeuft der
+     * Idle-Prozess, wird bei einer anderen CPU gestohlen.
+     */
+    public void timesliceOver() {
+      PCB next = poll();
+      if( next == null && running == idleProcess ) {
+        next = steal();
+      }
+      if( next == null ) {
+        return;
+      }
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.timesliceOver: cpu " + id + ", process " + running.getPid() + " is suspended" );
+      if( running != idleProcess ) {
+        cpu.saveRegisters( running.getRegisterSet() );   //erst sichern, dann sieht ihn ggf. eine andere CPU
+        enqueue( running );
+      }
+      switchTo( next );
+    }
+    
+    /**
+     * Zerstoert den aktuell laufenden Prozess und weckt die Prozesse, die auf sein Ende
+     * warten. Beides geschieht unter der Sperre der Blockliste, sonst koennte
+     * {@link #waitFor(Event)} auf einer anderen CPU den Prozess noch lebend sehen,
+     * sich aber erst nach dem Aufwecken blockieren und nie wieder geweckt werden.
+     */
+    public void endProcess() {
+      int pid = running.getPid();
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.endProcess: cpu " + id + ", process " + pid + " is ending" );
+      cpu.saveRegisters( running.getRegisterSet() );
+      LinkedList<EventPCB> woken;
+      synchronized( blocklist ) {
+        processManager.destroyProcess( pid );
+        woken = blocklist.wakeUp( Event.wait, pid );
+      }
+      enqueueAll( woken );
+      switchTo( next() );
+    }
+    
+    public void addProcess( PCB pcb ) {
+      pcb.setPriority(4);
+      pcb.setState("ready");
+      enqueue( pcb );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.addProcess: new process " + pcb.getPid()
+                           + " added to cpu " + id + "\n" );
+    }
+    
+    public void unblock( Event event ) {
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.unblock: cpu " + id + " received event " + event.toString() );
+      wakeUp( event.getType(), event.getID() );
+    }
+    
+    public void block( Event event ) {
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.block: cpu " + id + ", process " + running.getPid() + " is waiting for event " + event.toString() );
+      cpu.saveRegisters( running.getRegisterSet() );
+      synchronized( blocklist ) {
+        blocklist.add( new EventPCB(event, running) );
+      }
+      switchTo( next() );
+    }
+    
+    /**
+     * Prueft unter der Sperre der Blockliste, ob der Prozess noch lebt, und blockiert
+     * nur dann. Siehe {@link #endProcess()}.
+     */
+    public boolean waitFor( Event event ) {
+      synchronized( blocklist ) {
+        if( !processManager.isAlive(event.getID()) ) {
+          return false;
+        }
+        SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.waitFor: cpu " + id + ", process " + running.getPid() + " is waiting for event " + event.toString() );
+        cpu.saveRegisters( running.getRegisterSet() );
+        blocklist.add( new EventPCB(event, running) );
+      }
+      switchTo( next() );
+      return true;
+    }
+    
+    /**
+     * Weckt alle Prozesse auf, die auf das Ereignis warten. Sie kommen in die eigene Warteschlange.
+     */
+    private void wakeUp( int type, int eventId ) {
+      LinkedList<EventPCB> woken;
+      synchronized( blocklist ) {
+        woken = blocklist.wakeUp( type, eventId );
+      }
+      enqueueAll( woken );
+    }
+    
+    private void enqueueAll( LinkedList<EventPCB> woken ) {
+      for( Iterator<EventPCB> it = woken.iterator(); it.hasNext(); ) {
+        PCB pcb = it.next().getPCB();
+        enqueue( pcb );
+        SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.wakeUp: process " + pcb.getPid() + " is returning from sleeping" );
+      }
+    }
+    
+    /**
+     * @return der naechste Prozess aus der eigenen Warteschlange, sonst ein gestohlener,
+     * sonst der Idle-Prozess
+     */
+    private PCB next() {
+      PCB next = poll();
+      if( next == null ) {
+        next = steal();
+      }
+      return next != null ? next : idleProcess;
+    }
+    
+    private void switchTo( PCB next ) {
+      running = next;
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler: cpu " + id + " switching to process " + running.getPid() );
+      running.markRunning();
+      cpu.restoreRegisters( running.getRegisterSet() );
+    }
+    
+    /**
+     * Stiehlt den zuletzt eingereihten Prozess einer anderen CPU, beginnend bei der
+     * naechsten CPU. Der zuletzt eingereihte hat am laengsten zu warten.
+     * @return der gestohlene Prozess oder null
+     */
+    private PCB steal() {
+      for( int i = 1; i < cores.length; i++ ) {
+        Core victim = cores[(id + i) % cores.length];
+        PCB pcb;
+        synchronized( victim.readylist ) {
+          pcb = victim.readylist.pollLast();
+          victim.readyCount = victim.readylist.size();
+        }
+        if( pcb != null ) {
+          steals.incrementAndGet();
+          SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "SMPScheduler.steal: cpu " + id + " stole process " + pcb.getPid() + " from cpu " + victim.id );
+          return pcb;
+        }
+      }
+      return null;
+    }
+    
+    private PCB poll() {
+      synchronized( readylist ) {
+        PCB pcb = readylist.pollFirst();
+        readyCount = readylist.size();
+        return pcb;
+      }
+    }
+    
+    private void enqueue( PCB pcb ) {
+      synchronized( readylist ) {
+        readylist.addLast( pcb );
+        readyCount = readylist.size();
+      }
+      wakeIdleCpu();
+    }
+    
+    /**
+     * Weckt eine andere CPU, die den Idle-Prozess ausfuehrt.
+     */
+    private void wakeIdleCpu() {
+      for( int i = 1; i < cores.length; i++ ) {
+        Core other = cores[(id + i) % cores.length];
+        if( other.running == other.idleProcess ) {
+          other.cpu.getInterruptController().wakeUp();
+          return;
+        }
+      }
+    }
+    
+    public int getReadyCount() {
+      return readyCount;
+    }
+    
+    public int getBlockedCount() {
+      return SMPScheduler.this.getBlockedCount();
+    }
+  }
+}
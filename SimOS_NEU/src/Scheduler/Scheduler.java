@@ -1,13 +1,16 @@
 package Scheduler;
 import java.util.LinkedList;
+import java.util.Iterator;
 import MemoryManagement.PCB;
 import MemoryManagement.ProcessManager;
 import Hardware.CPU;
+import Hardware.RegisterSet;
+import MainBoot.BootLoader;
 import MainBoot.SysLogger;
 
 public class Scheduler implements SchedulerIF {
   
-  private LinkedList<EventPCB> blocklist;
+  private BlockList blocklist;
   private LinkedList<PCB> readylist;
   private PCB running;
   private PCB idleProcess;
@@ -26,11 +29,11 @@ public class Scheduler implements SchedulerIF {
   public Scheduler( CPU cpu, ProcessManager processManager ) {
     this.cpu = cpu;
     this.processManager = processManager;
-    blocklist = new LinkedList<EventPCB>();
+    blocklist = new BlockList();
     readylist = new LinkedList<PCB>();
     idleProcess = new PCB( 0, 0, "idle" );
 
-    idleProcess.getRegisterSet().setProgramCounter( null );
+    idleProcess.getRegisterSet().setProgramCounter( RegisterSet.NO_PROGRAM_COUNTER );
     running = idleProcess;
     cpu.restoreRegisters( running.getRegisterSet() );
   }
@@ -43,6 +46,21 @@ public class Scheduler implements SchedulerIF {
     return running.getPid();
   }
 
+  /**
+   * @return Alle Prozesse bekommen gleich lange Zeitscheiben.
+   */
+  public int getTimeslice() {
+    return BootLoader.timeslice;
+  }
+
+  public int getReadyCount() {
+    return readylist.size();
+  }
+
+  public int getBlockedCount() {
+    return blocklist.size();
+  }
+
   /**
    * Scheduld den aktuell laufenden Prozess.
    * Der naechste, in der Warteschlange rechenbereite Prozess
@@ -52,7 +70,7 @@ public class Scheduler implements SchedulerIF {
 	  
     if ( ! readylist.isEmpty() ) {    // Ein anderer Prozess ist rechenbereit
      
-      SysLogger.writeLog( 0,  "Scheduler.timesliceOver: process " + running.getPid() + " is suspended" );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.timesliceOver: process " + running.getPid() + " is suspended" );
       
       if( running != idleProcess ) {  // Der Idle-Prozess wird nicht ge-scheduled
         readylist.addLast(running);
@@ -62,13 +80,14 @@ public class Scheduler implements SchedulerIF {
       running = readylist.get(0); //Hole Prozess aus der Warteschlange
       readylist.remove(0);
       
-      SysLogger.writeLog( 0, "Scheduler.timesliceOver: switching to process " + running.getPid() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.timesliceOver: switching to process " + running.getPid() );
       
+      running.markRunning();
       cpu.restoreRegisters( running.getRegisterSet() );
       
     } else if( running.getPid() > 0 ) {
     	
-      SysLogger.writeLog( 0,  "Scheduler.timesliceOver: no one else is waiting" );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.timesliceOver: no one else is waiting" );
     }
   }
   
@@ -78,32 +97,28 @@ public class Scheduler implements SchedulerIF {
   public void endProcess() {
 	  
     int pid = running.getPid();
-    SysLogger.writeLog( 0, "Scheduler.endProcess: process " + pid + " is ending" );
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: process " + pid + " is ending" );
     // Die aktuellen Registerinhalte werden beim Zerstören noch benötigt.
     cpu.saveRegisters( running.getRegisterSet() );
     processManager.destroyProcess( pid );
     
-    for( int i = 0; i < blocklist.size(); i++ ) {
+    for( Iterator<EventPCB> it = blocklist.wakeUp(Event.wait, pid).iterator(); it.hasNext(); ) {
     	
-      EventPCB blocked = blocklist.get(i);
-      Event event = blocked.getEvent();
-      
-      if( event.getType() == Event.wait && event.getID() == pid ) {
-        readylist.add( blocked.getPCB() );
-        blocklist.remove(i);
-        SysLogger.writeLog( 0, "Scheduler.endProcess: process " + blocked.getPCB().getPid() + " is returning from sleeping");
-      }
+      EventPCB blocked = it.next();
+      readylist.add( blocked.getPCB() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: process " + blocked.getPCB().getPid() + " is returning from sleeping");
     }
     
     if( readylist.isEmpty() ) {
       // Es muss zum Idle-Prozess geschaltet werden
-      SysLogger.writeLog( 0, "Scheduler.endProcess: switching to idle process" );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: switching to idle process" );
       running = idleProcess;
       cpu.restoreRegisters( running.getRegisterSet() );
     } else {
       running = readylist.get(0);
       readylist.remove(0);
-      SysLogger.writeLog( 0, "Scheduler.endProcess: switching to process " + running.getPid() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.endProcess: switching to process " + running.getPid() );
+      running.markRunning();
       cpu.restoreRegisters( running.getRegisterSet() );
     }
   }
@@ -116,7 +131,7 @@ public class Scheduler implements SchedulerIF {
     pcb.setPriority(4); // Reine Willkür (vorerst)
     pcb.setState("ready");
     readylist.add(pcb);
-    SysLogger.writeLog( 0,  "Scheduler.addProcess: new process " + pcb.getPid()
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.addProcess: new process " + pcb.getPid()
                          + " added, readylist length: " + readylist.size() + "\n" );
   }
   
@@ -132,18 +147,13 @@ public class Scheduler implements SchedulerIF {
    */
   public void unblock(Event event) {
 
-    SysLogger.writeLog( 0, "Scheduler.unblock: received event " + event.toString() );
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.unblock: received event " + event.toString() );
     
-    for( int i = 0; i < blocklist.size(); i++ ) {
-      EventPCB blocked = blocklist.get(i);
-      int type = blocked.getEvent().getType();
-      int id = blocked.getEvent().getID();
-      if( type == event.getType() && id == event.getID() ) {
-        // Wecke den Prozess auf
-        readylist.add( blocked.getPCB() );
-        blocklist.remove(i);
-        SysLogger.writeLog( 0, "Scheduler.unblock: process " + blocked.getPCB().getPid() + " is returning from sleeping");
-      }
+    for( Iterator<EventPCB> it = blocklist.wakeUp(event.getType(), event.getID()).iterator(); it.hasNext(); ) {
+      EventPCB blocked = it.next();
+      // Wecke den Prozess auf
+      readylist.add( blocked.getPCB() );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.unblock: process " + blocked.getPCB().getPid() + " is returning from sleeping");
     }
   }
   
@@ -160,23 +170,37 @@ public class Scheduler implements SchedulerIF {
    */
   public void block( Event event ) {
     int pid = running.getPid();
-    SysLogger.writeLog( 0, "Scheduler.block: process " + pid + " is waiting for event " + event.toString() );
+    SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.block: process " + pid + " is waiting for event " + event.toString() );
     cpu.saveRegisters( running.getRegisterSet() );
     EventPCB blocked = new EventPCB( event, running );
     blocklist.add( blocked );
     
     if( readylist.isEmpty() ) {  // dann muss zum Idle-Prozess geschaltet werden
       
-      SysLogger.writeLog( 0, "Scheduler.block: switching to idle process" );
+      SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.block: switching to idle process" );
       running = idleProcess;
       cpu.restoreRegisters( running.getRegisterSet() );
       
     } else { //es gibt rechenbereite Prozesse..
         running = readylist.get(0);
         readylist.remove(0);
-        SysLogger.writeLog( 0, "Scheduler.block: switching to process " + running.getPid() );
+        SysLogger.writeLog( SysLogger.SCHEDULER, SysLogger.INFO, "Scheduler.block: switching to process " + running.getPid() );
+        running.markRunning();
         cpu.restoreRegisters( running.getRegisterSet() );
     }
   }
   
+  /**
+   * Wie {@link #block(Event)}, aber nur, wenn der Prozess, auf den gewartet wird, noch lebt.
+   * @param event ein <code>wait</code>-Event
+   * @return true, wenn der Prozess blockiert wurde
+   */
+  public boolean waitFor( Event event ) {
+    if( !processManager.isAlive(event.getID()) ) {
+      return false;
+    }
+    block( event );
+    return true;
+  }
+  
 }
@@ -10,4 +10,29 @@ public interface SchedulerIF {
 	public void addProcess(PCB pcb);
 	public void unblock(Event e);
 	public void block (Event e);
+	
+	/**
+	 * Blockiert den laufenden Prozess, bis der Prozess mit der pid <code>e.getID()</code>
+	 * endet. Ist dieser schon beendet, wird nicht blockiert, denn niemand wuerde den
+	 * Aufrufer wieder wecken.
+	 * @param e ein <code>wait</code>-Event
+	 * @return true, wenn der Prozess blockiert wurde
+	 */
+	public boolean waitFor(Event e);
+	
+	/**
+	 * @return Anzahl der Befehle, die der laufende Prozess in seiner
+	 * naechsten Zeitscheibe ausfuehren darf
+	 */
+	public int getTimeslice();
+	
+	/**
+	 * @return Anzahl der rechenbereiten Prozesse, ohne den laufenden
+	 */
+	public int getReadyCount();
+	
+	/**
+	 * @return Anzahl der blockierten Prozesse
+	 */
+	public int getBlockedCount();
 }
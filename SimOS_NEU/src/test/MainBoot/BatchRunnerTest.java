@@ -0,0 +1,94 @@
+package test.MainBoot;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import MainBoot.BatchRunner;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class BatchRunnerTest {
+
+	private File dir;
+	
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("batch", "");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = dir.listFiles();
+		for (int i = 0; files != null && i < files.length; i++) {
+			files[i].delete();
+		}
+		dir.delete();
+	}
+	
+	
+	/**
+	 * Die Referenz-Workload muss vollstaendig durchlaufen.
+	 */
+	@Test(timeout = 60000)
+	public final void testReferenceWorkload() throws IOException {
+		//set up
+		BatchRunner runner = new BatchRunner(new File("workloads/nightly.workload"), dir);
+		
+		//exercise
+		BatchRunner.Report report = runner.run();
+		
+		//verify outcome
+		Assert.assertEquals(0, report.getUnfinishedCount());
+		Assert.assertEquals(36, report.getFinishedCount());	//9 Jobs, davon 3 fork-tree mit je 9 Kindern
+		Assert.assertTrue(report.getInstructions() > 2 * 80000);
+		Assert.assertTrue(report.getPageFaults() > 0);
+		Assert.assertTrue(report.getSwapReads() > 0);
+		Assert.assertTrue(report.getContextSwitches() > 2 * 50);	//jedes read blockiert
+	}
+	
+	
+	/**
+	 * Ein Prozess, der ohne Eingaben liest, wartet fuer immer. Der Lauf endet trotzdem.
+	 */
+	@Test(timeout = 60000)
+	public final void testStalledProcess() throws IOException {
+		//set up
+		File workload = new File(dir, "stall.workload");
+		FileWriter out = new FileWriter(workload);
+		out.write("0 " + new File("workloads/io-loop").getAbsolutePath() + "\n");
+		out.write("5 " + new File("workloads/cpu-loop").getAbsolutePath() + "\n");
+		out.close();
+		
+		//exercise
+		BatchRunner.Report report = new BatchRunner(workload, dir).run();
+		
+		//verify outcome
+		Assert.assertEquals(1, report.getUnfinishedCount());
+		Assert.assertEquals(1, report.getFinishedCount());
+	}
+	
+	
+	@Test(expected = IOException.class)
+	public final void testMissingProgram() throws IOException {
+		//set up
+		File workload = new File(dir, "missing.workload");
+		FileWriter out = new FileWriter(workload);
+		out.write("0 no-such-program\n");
+		out.close();
+		
+		//exercise
+		new BatchRunner(workload, dir);
+	}
+}
@@ -0,0 +1,88 @@
+package test.MainBoot;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MainBoot.LogRingBuffer;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class LogRingBufferTest {
+
+	@Test
+	public final void testOfferPoll() {
+		//set up
+		LogRingBuffer buffer = new LogRingBuffer(4);
+		
+		//exercise
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue(buffer.offer("m" + i));
+		}
+		boolean full = buffer.offer("m4");
+		
+		//verify outcome
+		Assert.assertFalse(full);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("m" + i, buffer.poll());
+		}
+		Assert.assertNull(buffer.poll());
+		Assert.assertTrue(buffer.isEmpty());
+	}
+	
+	
+	@Test
+	public final void testWrapAround() {
+		//set up
+		LogRingBuffer buffer = new LogRingBuffer(3);	//wird auf 4 aufgerundet
+		
+		//exercise + verify outcome
+		Assert.assertEquals(4, buffer.getCapacity());
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(buffer.offer(Integer.valueOf(i)));
+			Assert.assertTrue(buffer.offer(Integer.valueOf(i + 100)));
+			Assert.assertEquals(Integer.valueOf(i), buffer.poll());
+			Assert.assertEquals(Integer.valueOf(i + 100), buffer.poll());
+		}
+	}
+	
+	
+	@Test
+	public final void testConcurrentProducers() throws InterruptedException {
+		//set up
+		final LogRingBuffer buffer = new LogRingBuffer(64);
+		final int perThread = 1000;
+		Thread[] producers = new Thread[4];
+		for (int t = 0; t < producers.length; t++) {
+			producers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						while (!buffer.offer("x")) {
+							Thread.yield();
+						}
+					}
+				}
+			};
+		}
+		
+		//exercise
+		for (Thread producer : producers) {
+			producer.start();
+		}
+		int received = 0;
+		while (received < perThread * producers.length) {
+			if (buffer.poll() != null) {
+				received++;
+			}
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		
+		//verify outcome
+		Assert.assertNull(buffer.poll());
+	}
+}
@@ -0,0 +1,124 @@
+package test.MainBoot;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MainBoot.Histogram;
+import MainBoot.Metrics;
+import MainBoot.StripedCounter;
+
+/**
+ *
+ * @author Johann Mantler
+ *
+ */
+public class MetricsTest {
+
+	@Test
+	public final void testCounterConcurrent() throws InterruptedException {
+		//set up
+		final StripedCounter counter = new StripedCounter();
+		final int perThread = 10000;
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						counter.increment();
+					}
+				}
+			};
+		}
+
+		//exercise
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		counter.add(5);
+
+		//verify outcome
+		Assert.assertEquals(threads.length * perThread + 5, counter.get());
+		counter.reset();
+		Assert.assertEquals(0, counter.get());
+	}
+
+
+	@Test
+	public final void testHistogram() {
+		//set up
+		Histogram histogram = new Histogram();
+
+		//exercise
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		histogram.record(-3);		//zaehlt als 0
+
+		//verify outcome
+		Assert.assertEquals(101, histogram.getCount());
+		Assert.assertEquals(5050, histogram.getSum());
+		Assert.assertEquals(100, histogram.getMax());
+		Assert.assertEquals(63, histogram.getQuantile(0.5));	//50 liegt in der Klasse 32..63
+		Assert.assertEquals(100, histogram.getQuantile(0.99));	//Klasse 64..127, begrenzt durch max
+		Assert.assertEquals(0, histogram.getQuantile(0));
+		Assert.assertEquals(0, new Histogram().getQuantile(0.5));
+	}
+
+
+	@Test
+	public final void testRegistryAndJmx() throws Exception {
+		//set up
+		StripedCounter counter = Metrics.counter("metrics-test", "events");
+		counter.reset();
+		Metrics.histogram("metrics-test", "latency").record(7);
+		Metrics.gauge("metrics-test", "depth", new Metrics.Gauge() {
+			public long value() {
+				return 42;
+			}
+		});
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = Metrics.objectName("metrics-test");
+
+		//exercise
+		counter.add(3);
+		Metrics.publish();
+		try {
+
+			//verify outcome
+			Assert.assertSame(counter, Metrics.counter("metrics-test", "events"));
+			Assert.assertEquals(3, Metrics.getValue("metrics-test", "events"));
+			Assert.assertEquals(Long.valueOf(3), server.getAttribute(name, "events"));
+			Assert.assertEquals(Long.valueOf(42), server.getAttribute(name, "depth"));
+			Assert.assertEquals(Long.valueOf(7), server.getAttribute(name, "latency.max"));
+
+			server.invoke(name, "reset", new Object[0], new String[0]);
+			Assert.assertEquals(0, counter.get());
+			Assert.assertEquals(42, Metrics.getValue("metrics-test", "depth"));
+		} finally {
+			Metrics.unpublish();
+		}
+		Assert.assertFalse(server.isRegistered(name));
+
+		StringWriter dump = new StringWriter();
+		Metrics.dump(new PrintWriter(dump));
+		Assert.assertTrue(dump.toString().contains("metrics-test.depth 42\n")
+				|| dump.toString().contains("metrics-test.depth 42\r\n"));
+		try {
+			Metrics.histogram("metrics-test", "events");
+			Assert.fail("events is a counter");
+		} catch (IllegalArgumentException e) {
+			//erwartet
+		}
+	}
+}
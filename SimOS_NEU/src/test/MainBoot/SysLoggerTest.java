@@ -0,0 +1,70 @@
+package test.MainBoot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MainBoot.SysLogger;
+
+/**
+ *
+ * @author Johann Mantler
+ *
+ */
+public class SysLoggerTest {
+
+	/**
+	 * Meldungen, die waehrend closeLog ankommen, gehen nicht verloren: Sie landen
+	 * im Protokoll (und per Echo auf stdout) oder direkt auf stdout.
+	 */
+	@Test
+	public final void testNoMessageLostOnClose() throws Exception {
+		//set up
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		final int perThread = 2000;
+		Thread[] producers = new Thread[4];
+		for (int t = 0; t < producers.length; t++) {
+			final int id = t;
+			producers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < perThread; i++) {
+						SysLogger.writeLog(SysLogger.BOOT, SysLogger.INFO, "close-test " + id + "/" + i);
+					}
+				}
+			};
+		}
+
+		//exercise
+		System.setOut(new PrintStream(captured, true));
+		try {
+			SysLogger.openLog();
+			for (Thread producer : producers) {
+				producer.start();
+			}
+			Thread.sleep(1);
+			SysLogger.closeLog();
+			for (Thread producer : producers) {
+				producer.join();
+			}
+		} finally {
+			System.out.flush();
+			System.setOut(stdout);
+		}
+
+		//verify outcome
+		HashSet<String> lines = new HashSet<String>();
+		for (String line : captured.toString().split("\r?\n")) {
+			lines.add(line);
+		}
+		for (int t = 0; t < producers.length; t++) {
+			for (int i = 0; i < perThread; i++) {
+				Assert.assertTrue("lost: " + t + "/" + i, lines.contains("close-test " + t + "/" + i));
+			}
+		}
+	}
+}
@@ -90,4 +90,27 @@ public class ClockTest {
 		
 	}
 
+	
+	@Test
+	public final void testRemove() {
+		//set up
+		Clock clock = new Clock();
+		
+		PageTableEntry entry1 = new PageTableEntry();
+		clock.insert(1, 1, entry1, 1);
+		PageTableEntry entry2 = new PageTableEntry();
+		clock.insert(2, 2, entry2, 2);
+		PageTableEntry entry3 = new PageTableEntry();
+		clock.insert(1, 1, entry3, 3);
+		
+		//exercise
+		clock.remove(1);	//alle Seiten des Prozesses mit der Seitentabelle 1
+		
+		//verify outcome
+		int[] result = clock.execute();
+		Assert.assertTrue( result[0] == 2 );	//SeitenNr
+		Assert.assertTrue( result[3] == 2 );	//Addresse der Seitentabelle
+		Assert.assertNull(clock.execute());
+	}
+	
 }
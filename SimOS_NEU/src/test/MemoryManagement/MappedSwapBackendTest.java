@@ -0,0 +1,102 @@
+package test.MemoryManagement;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import MemoryManagement.MappedSwapBackend;
+import MemoryManagement.SwapFile;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class MappedSwapBackendTest {
+
+	private File file;
+	private MappedSwapBackend backend;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("swap", ".bin");
+		backend = new MappedSwapBackend(file, 8, 4, 32);
+	}
+
+	@After
+	public void tearDown() {
+		backend.close();
+	}
+	
+	
+	@Test
+	public final void testWriteRead() {
+		//set up
+		String[] page = new String[]{"load 1 #2.5", null, "", "\u20ac"};
+		
+		//exercise
+		backend.write(5, page);
+		backend.write(6, new String[]{"a", "b", "c", "d"});
+		String[] result = backend.read(5);
+		
+		//verify outcome
+		Assert.assertEquals("load 1 #2.5", result[0]);
+		Assert.assertNull(result[1]);
+		Assert.assertEquals("", result[2]);
+		Assert.assertEquals("\u20ac", result[3]);
+		Assert.assertEquals("d", backend.read(6)[3]);
+	}
+	
+	
+	/**
+	 * Eine Seite, die nicht auf ihren Platz passt, kommt in den Ueberlauf und wird
+	 * unveraendert wieder gelesen, auch mit einer Zelle, die allein laenger als der Platz ist.
+	 */
+	@Test
+	public final void testPageTooLarge() {
+		//set up
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			input.append('x');
+		}
+		SwapFile swap = new SwapFile(8, backend);
+		
+		//exercise
+		backend.write(7, new String[]{"create_process 20", "create_process 21", "", ""});
+		int addr = swap.setPage(new String[]{"read 3", input.toString(), null, "quit"});
+		String[] page = swap.readPage(addr);
+		
+		//verify outcome
+		Assert.assertEquals("create_process 21", backend.read(7)[1]);
+		Assert.assertEquals(input.toString(), page[1]);
+		Assert.assertNull(page[2]);
+		Assert.assertEquals(1, swap.getUsedCount());
+		Assert.assertEquals(2, backend.getOverflowCount());
+		
+		backend.write(7, new String[]{"a", "b", "c", "d"});		//passt wieder
+		swap.freePage(addr);
+		Assert.assertEquals("b", backend.read(7)[1]);
+		Assert.assertEquals(0, backend.getOverflowCount());
+		Assert.assertEquals(0, swap.getUsedCount());
+	}
+	
+	
+	@Test
+	public final void testSwapFile() {
+		//set up
+		SwapFile swap = new SwapFile(8, backend);
+		
+		//exercise
+		int addr = swap.setPage(new String[]{"10","12","13","14"});
+		String[] page = swap.getPage(addr);
+		
+		//verify outcome
+		Assert.assertTrue(addr == 0);
+		Assert.assertEquals("12", page[1]);
+	}
+}
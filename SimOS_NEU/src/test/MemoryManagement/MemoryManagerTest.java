@@ -10,11 +10,16 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import Hardware.Instruction;
+import Hardware.MMU;
 import Hardware.MainMemory;
 import MainBoot.SysLogger;
+import MemoryManagement.ARC;
 import MemoryManagement.Clock;
+import MemoryManagement.ClockPro;
 import MemoryManagement.MemoryManager;
 import MemoryManagement.PCB;
+import MemoryManagement.PageReplacementIF;
 import MemoryManagement.PageTableEntry;
 import MemoryManagement.SwapFile;
 
@@ -55,6 +60,74 @@ public class MemoryManagerTest {
 		Assert.assertNotNull(m);
 	} 
 
+	/**
+	 * Eine Seite, die gerade durch einen Seitenfehler geladen wurde, gilt noch nicht
+	 * als wieder benutzt. Sonst halten ARC und CLOCK-Pro einmalig durchlaufene Seiten
+	 * fuer heisz und verdraengen die haeufig benutzten.
+	 */
+	@Test
+	public final void testScanResistanceThroughMMU() throws Exception {
+		PageReplacementIF[] policies = { new ARC(frames), new ClockPro(frames) };
+		for (PageReplacementIF policy : policies) {
+			//set up
+			MainMemory memory = new MainMemory(frames, pageSize);
+			MemoryManager m = new MemoryManager(memory, new SwapFile(swapFileSize), pageSize, 64, policy);
+			MMU mmu = new MMU(memory, m);
+			PCB pcb = new PCB(1, 0, "fresh");
+			m.loadProgram("init", pcb);
+			mmu.setRegisterSet(pcb.getRegisterSet());
+			
+			//exercise: 4 haeufig benutzte Seiten, dazwischen ein Durchlauf durch 60 Seiten
+			int scan = 4;
+			PageTableEntry first = m.getPageTable(pcb.getRegisterSet().getPageTableAddr()).get(0);
+			mmu.getMemoryCell(mmu.getAddressFormat().make(0, 0));
+			boolean referencedAfterFault = first.isReferenced();
+			for (int round = 0; round < 30; round++) {
+				for (int hot = 0; hot < 3 * 4; hot++) {
+					mmu.getMemoryCell(mmu.getAddressFormat().make(hot % 4, 0));
+				}
+				for (int i = 0; i < 2; i++) {
+					mmu.getMemoryCell(mmu.getAddressFormat().make(scan++, 0));
+				}
+			}
+			
+			//verify outcome: jede Seite nur einmal (wie OPT)
+			Assert.assertFalse(policy.getClass().getSimpleName(), referencedAfterFault);
+			Assert.assertEquals(policy.getClass().getSimpleName(), 64, m.getPageFaultCount());
+		}
+	}
+	
+	/**
+	 * Die dekodierten Befehle einer Seite werden beim Verdraengen verworfen und nach dem
+	 * Einlagern erst beim Ausfuehren neu dekodiert, sie belegen also keinen Heap,
+	 * solange die Seite ausgelagert ist.
+	 */
+	@Test
+	public final void testDecodedInstructionsNotKeptWhenSwappedOut() throws Exception {
+		//set up
+		MainMemory memory = new MainMemory(2, pageSize);
+		MemoryManager m = new MemoryManager(memory, new SwapFile(swapFileSize), pageSize, addrSpace, new Clock());
+		MMU mmu = new MMU(memory, m);
+		PCB pcb = new PCB(1, 0, "fresh");
+		m.loadProgram("init", pcb);
+		mmu.setRegisterSet(pcb.getRegisterSet());
+		PageTableEntry first = m.getPageTable(pcb.getRegisterSet().getPageTableAddr()).get(0);
+		Assert.assertEquals(Instruction.CREATE_CONSOLE, mmu.getInstruction(mmu.getAddressFormat().make(0, 0)).getOpcode());
+		
+		//exercise: andere Seiten verdraengen Seite 0, dann wird sie wieder eingelagert
+		for (int page = 1; first.getFrameNr() != -1; page++) {
+			mmu.getMemoryCell(mmu.getAddressFormat().make(page, 0));
+		}
+		mmu.getMemoryCell(mmu.getAddressFormat().make(0, 1));
+		
+		//verify outcome
+		int frameAddr = first.getFrameNr() * pageSize;
+		Assert.assertNull(memory.getDecoded(frameAddr));
+		Assert.assertEquals(Instruction.CREATE_CONSOLE, mmu.getInstruction(mmu.getAddressFormat().make(0, 0)).getOpcode());
+		Assert.assertNotNull(memory.getDecoded(frameAddr));
+	}
+	
+	
 	@Test
 	public final void testLoadProgram() throws IOException {
 		//set up
@@ -97,19 +170,9 @@ public class MemoryManagerTest {
 		Assert.assertTrue(page3[2].equals("jmp 3"));
 		Assert.assertTrue(page3[3].equals("quit"));
 		
-		String[] page5 = swapFile.getPage(allocateTable.get(4));
-		
-		Assert.assertTrue(page5[0].equals(""));
-		Assert.assertTrue(page5[1].equals(""));
-		Assert.assertTrue(page5[2].equals(""));
-		Assert.assertTrue(page5[3].equals(""));
-		
-		String[] page32 = swapFile.getPage(allocateTable.get(31));
-		
-		Assert.assertTrue(page32[0].equals(""));
-		Assert.assertTrue(page32[1].equals(""));
-		Assert.assertTrue(page32[2].equals(""));
-		Assert.assertTrue(page32[3].equals(""));
+		//Seiten ohne Programmtext liegen nicht auf der Auslagerungsdatei
+		Assert.assertTrue(allocateTable.get(4) == MemoryManager.ZERO_PAGE);
+		Assert.assertTrue(allocateTable.get(31) == MemoryManager.ZERO_PAGE);
 	
 	
 	}
@@ -141,7 +204,7 @@ public class MemoryManagerTest {
 		Assert.assertTrue(memory.getContent(2).equals("write_nl"));
 		Assert.assertTrue(memory.getContent(3).equals("write_val >"));
 		Assert.assertTrue(m.getPageTable(pageTableAddr).get(pageNr).getFrameNr() == 0);
-		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) == -1);
+		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) >= 0);	//Kopie auf der Auslagerungsdatei bleibt gueltig
 		
 		
 		
@@ -155,7 +218,7 @@ public class MemoryManagerTest {
 		Assert.assertTrue(memory.getContent(6).equals("load 2 #exit"));
 		Assert.assertTrue(memory.getContent(7).equals("jeq 11"));
 		Assert.assertTrue(m.getPageTable(pageTableAddr).get(pageNr).getFrameNr() == 1);
-		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) == -1);
+		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) >= 0);	//Kopie auf der Auslagerungsdatei bleibt gueltig
 	
 		
 		
@@ -172,8 +235,94 @@ public class MemoryManagerTest {
 		Assert.assertTrue(memory.getContent(2).equals("jmp 3"));
 		Assert.assertTrue(memory.getContent(3).equals("quit"));
 		Assert.assertTrue(m.getPageTable(pageTableAddr).get(pageNr).getFrameNr() == 0);
-		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) == -1);
+		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(pageNr) >= 0);	//Kopie auf der Auslagerungsdatei bleibt gueltig
 
 	}
 
+	
+	@Test
+	public final void testReleaseProcess() {
+		//set up
+		MainMemory memory = new MainMemory(4*2);
+		SwapFile swapFile = new SwapFile(32);		//Platz fuer genau einen Prozess
+		MemoryManager m = new MemoryManager(memory, swapFile, 4, 32, new Clock());
+		
+		PCB pcb = new PCB( 1, 0, "fresh" );
+		m.loadProgram("init", pcb);
+		int pageTableAddr = pcb.getRegisterSet().getPageTableAddr();
+		m.pageFault(0, m.getPageTable(pageTableAddr).get(0), pcb.getRegisterSet().getAllocateTableAddr(), pageTableAddr);
+		
+		//exercise
+		m.releaseProcess(pcb);
+		
+		//verify outcome
+		Assert.assertTrue(m.getFreeFrameCount() == 2);
+		Assert.assertNull(m.getPageTable(pageTableAddr));
+		Assert.assertNull(m.getAllocateTable(pcb.getRegisterSet().getAllocateTableAddr()));
+		
+		Assert.assertTrue(swapFile.getUsedCount() == 0);	//der Swap-Platz ist wieder frei
+	}
+	
+	
+	@Test
+	public final void testZeroPage() {
+		//set up
+		MainMemory memory = new MainMemory(4*2);
+		SwapFile swapFile = new SwapFile(500);
+		MemoryManager m = new MemoryManager(memory, swapFile, 4, 32, new Clock());
+		
+		PCB pcb = new PCB( 1, 0, "fresh" );
+		m.loadProgram("init", pcb);
+		int pageTableAddr = pcb.getRegisterSet().getPageTableAddr();
+		int allocateTableAddr = pcb.getRegisterSet().getAllocateTableAddr();
+		int used = swapFile.getUsedCount();
+		
+		//exercise
+		int frameNr = m.pageFault(20, m.getPageTable(pageTableAddr).get(20), allocateTableAddr, pageTableAddr);
+		
+		//verify outcome
+		Assert.assertTrue(used < 32);							//nur die Seiten mit Programmtext
+		Assert.assertTrue(swapFile.getUsedCount() == used);
+		Assert.assertTrue(memory.getContent(frameNr * 4).equals(""));
+		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(20) == MemoryManager.ZERO_PAGE);
+	}
+	
+	
+	/**
+	 * Unveraenderte Seiten werden beim Verdraengen nicht geschrieben,
+	 * veraenderte auf ihren bisherigen Platz.
+	 */
+	@Test
+	public final void testWriteBack() {
+		//set up
+		MainMemory memory = new MainMemory(4*1);
+		SwapFile swapFile = new SwapFile(500);
+		MemoryManager m = new MemoryManager(memory, swapFile, 4, 32, new Clock());
+		
+		PCB pcb = new PCB( 1, 0, "fresh" );
+		m.loadProgram("init", pcb);
+		int pageTableAddr = pcb.getRegisterSet().getPageTableAddr();
+		int allocateTableAddr = pcb.getRegisterSet().getAllocateTableAddr();
+		int addr = m.getAllocateTable(allocateTableAddr).get(0);
+		int used = swapFile.getUsedCount();
+		PageTableEntry entry = m.getPageTable(pageTableAddr).get(0);
+		
+		//exercise + verify outcome
+		m.pageFault(0, entry, allocateTableAddr, pageTableAddr);
+		m.pageFault(1, m.getPageTable(pageTableAddr).get(1), allocateTableAddr, pageTableAddr);
+		Assert.assertTrue(m.getWriteBackCount() == 0);
+		Assert.assertTrue(m.getCleanEvictionCount() == 1);
+		Assert.assertTrue(swapFile.getUsedCount() == used);
+		
+		m.pageFault(0, entry, allocateTableAddr, pageTableAddr);
+		memory.setContent(0, "quit");
+		entry.setModified(true);
+		m.pageFault(1, m.getPageTable(pageTableAddr).get(1), allocateTableAddr, pageTableAddr);
+		
+		Assert.assertTrue(m.getWriteBackCount() == 1);
+		Assert.assertTrue(m.getAllocateTable(allocateTableAddr).get(0) == addr);
+		Assert.assertTrue(swapFile.readPage(addr)[0].equals("quit"));
+		Assert.assertTrue(swapFile.getUsedCount() == used);
+	}
+	
 }
@@ -0,0 +1,193 @@
+package test.MemoryManagement;
+
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MainBoot.BootLoader;
+import MemoryManagement.ARC;
+import MemoryManagement.Aging;
+import MemoryManagement.ClockPro;
+import MemoryManagement.EnhancedClock;
+import MemoryManagement.FIFO;
+import MemoryManagement.LRUK;
+import MemoryManagement.PageReplacementIF;
+import MemoryManagement.PageTableEntry;
+import MemoryManagement.WSClock;
+
+/**
+ * Testet die Seitenersetzungsalgorithmen neben Clock.
+ * @author Johann Mantler
+ *
+ */
+public class PageReplacementTest {
+
+	@Test
+	public final void testFIFO() {
+		//set up
+		FIFO fifo = new FIFO();
+		insert(fifo, 1, 1, true, false);
+		insert(fifo, 1, 2, false, false);
+		
+		//exercise + verify outcome
+		Assert.assertEquals(1, fifo.execute()[0]);	//R-Bit spielt keine Rolle
+		Assert.assertEquals(2, fifo.execute()[0]);
+		Assert.assertNull(fifo.execute());
+	}
+	
+	
+	@Test
+	public final void testEnhancedClock() {
+		//set up
+		EnhancedClock clock = new EnhancedClock();
+		insert(clock, 1, 1, false, true);
+		PageTableEntry entry2 = insert(clock, 1, 2, true, false);
+		insert(clock, 1, 3, false, false);
+		
+		//exercise + verify outcome
+		Assert.assertEquals(3, clock.execute()[0]);	//(0,0) zuerst
+		Assert.assertEquals(1, clock.execute()[0]);	//dann (0,1)
+		Assert.assertEquals(2, clock.execute()[0]);	//nach dem Loeschen des R-Bits
+		Assert.assertFalse(entry2.isReferenced());
+	}
+	
+	
+	@Test
+	public final void testWSClock() {
+		//set up
+		WSClock clock = new WSClock(1);
+		insert(clock, 1, 1, false, true);
+		insert(clock, 1, 2, false, false);
+		PageTableEntry entry3 = insert(clock, 1, 3, true, false);
+		insert(clock, 1, 4, false, false);
+		
+		//exercise + verify outcome
+		Assert.assertEquals(2, clock.execute()[0]);	//alt und unveraendert
+		Assert.assertEquals(1, clock.execute()[0]);	//sonst alt und veraendert
+		Assert.assertFalse(entry3.isReferenced());
+	}
+	
+	
+	@Test
+	public final void testAging() {
+		//set up
+		Aging aging = new Aging(8);
+		insert(aging, 1, 1, true, false);
+		insert(aging, 1, 2, false, false);
+		
+		//exercise + verify outcome
+		Assert.assertEquals(2, aging.execute()[0]);
+		Assert.assertEquals(1, aging.execute()[0]);
+	}
+	
+	
+	@Test
+	public final void testLRUK() {
+		//set up
+		LRUK lruk = new LRUK(2, 4);
+		PageTableEntry entry1 = insert(lruk, 1, 1, false, false);
+		insert(lruk, 1, 2, false, false);
+		PageTableEntry entry3 = insert(lruk, 1, 3, false, false);
+		entry1.setReferenced(true);			//Seite 1 hat jetzt 2 Zugriffe
+		entry3.setReferenced(true);
+		
+		//exercise + verify outcome
+		Assert.assertEquals(2, lruk.execute()[0]);	//weniger als k Zugriffe, am laengsten her
+		Assert.assertEquals(3, lruk.execute()[0]);
+		Assert.assertEquals(1, lruk.execute()[0]);
+	}
+	
+	
+	@Test
+	public final void testClockPro() {
+		//set up
+		ClockPro clockPro = new ClockPro(3);
+		insert(clockPro, 1, 1, false, false);
+		insert(clockPro, 1, 2, false, false);
+		insert(clockPro, 1, 3, false, false);
+		
+		//exercise
+		Assert.assertEquals(1, clockPro.execute()[0]);
+		insert(clockPro, 1, 1, false, false);	//in der Testphase wieder gebraucht -> heisz
+		
+		//verify outcome
+		Assert.assertEquals(2, clockPro.execute()[0]);
+		Assert.assertEquals(3, clockPro.execute()[0]);
+	}
+	
+	
+	@Test
+	public final void testARC() {
+		//set up
+		ARC arc = new ARC(2);
+		insert(arc, 1, 1, false, false);
+		insert(arc, 1, 2, false, false);
+		
+		//exercise
+		Assert.assertEquals(1, arc.execute()[0]);
+		insert(arc, 1, 1, false, false);		//Treffer in B1 -> T2
+		
+		//verify outcome
+		Assert.assertEquals(2, arc.execute()[0]);
+		Assert.assertEquals(1, arc.execute()[0]);
+		Assert.assertNull(arc.execute());
+	}
+	
+	
+	/**
+	 * Ohne Seiten gibt es nichts zu verdraengen.
+	 */
+	@Test
+	public final void testExecuteEmpty() {
+		for(String name : BootLoader.pageReplacementNames) {
+			Assert.assertNull(name, BootLoader.createPageReplacement(name, 4).execute());
+		}
+	}
+	
+	
+	/**
+	 * Nach remove() werden nur noch Seiten des anderen Prozesses verdraengt.
+	 */
+	@Test
+	public final void testRemove() {
+		for(String name : BootLoader.pageReplacementNames) {
+			//set up
+			PageReplacementIF replacement = BootLoader.createPageReplacement(name, 4);
+			insert(replacement, 1, 0, false, false);
+			insert(replacement, 2, 1, false, false);
+			insert(replacement, 1, 2, false, false);
+			insert(replacement, 2, 3, false, false);
+			
+			//exercise
+			replacement.remove(1);
+			
+			//verify outcome
+			int[] first = replacement.execute();
+			int[] second = replacement.execute();
+			Assert.assertEquals(name, 2, first[3]);
+			Assert.assertEquals(name, 2, second[3]);
+			Assert.assertEquals(name, 4, first[0] + second[0]);
+			Assert.assertNull(name, replacement.execute());
+		}
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public final void testUnknownName() {
+		BootLoader.createPageReplacement("lru", 4);
+	}
+	
+	
+	/**
+	 * Hilfsmethode fuer das Einfuegen einer Seite.
+	 */
+	private static PageTableEntry insert(PageReplacementIF replacement, int pageTableAddr,
+			int pageNr, boolean referenced, boolean modified) {
+		PageTableEntry entry = new PageTableEntry();
+		entry.setReferenced(referenced);
+		entry.setModified(modified);
+		replacement.insert(pageTableAddr, pageTableAddr, entry, pageNr);
+		return entry;
+	}
+}
@@ -75,4 +75,44 @@ public class SwapFileTest {
 		
 	}
 
+	@Test
+	public final void testFullAndReuse() {
+		//set up
+		SwapFile swap = new SwapFile(2);
+		String[] page = new String[]{"10","12","13","14"};
+		
+		//exercise 
+		int addr1 = swap.setPage(page);
+		int addr2 = swap.setPage(page);
+		int full = swap.setPage(page);
+		swap.freePage(addr2);
+		swap.freePage(addr2);		//doppelte Freigabe wird ignoriert
+		int reused = swap.setPage(page);
+		
+		//verify outcome
+		Assert.assertTrue(addr1 == 0);
+		Assert.assertTrue(addr2 == 1);
+		Assert.assertTrue(full == -1);
+		Assert.assertTrue(reused == 1);
+		Assert.assertTrue(swap.getUsedCount() == 2);
+		Assert.assertTrue(swap.setPage(page) == -1);
+	}
+
+	@Test
+	public final void testReadAndUpdatePage() {
+		//set up
+		SwapFile swap = new SwapFile(2);
+		int addr = swap.setPage(new String[]{"10","12","13","14"});
+		
+		//exercise 
+		String[] read = swap.readPage(addr);
+		swap.updatePage(addr, new String[]{"20","22","23","24"});
+		
+		//verify outcome
+		Assert.assertTrue(read[0].equals("10"));
+		Assert.assertTrue(swap.getUsedCount() == 1);		//readPage gibt den Platz nicht frei
+		Assert.assertTrue(swap.getPage(addr)[0].equals("20"));
+		Assert.assertTrue(swap.getUsedCount() == 0);
+	}
+
 }
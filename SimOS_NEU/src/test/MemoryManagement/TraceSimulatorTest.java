@@ -0,0 +1,90 @@
+package test.MemoryManagement;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MemoryManagement.FIFO;
+import MemoryManagement.ReferenceTrace;
+import MemoryManagement.TraceSimulator;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class TraceSimulatorTest {
+
+	/**
+	 * Die klassische Folge aus Beladys Anomalie.
+	 */
+	private static final int[] BELADY = { 1, 2, 3, 4, 1, 2, 5, 1, 2, 3, 4, 5 };
+	
+	
+	@Test
+	public final void testWriteAndRead() throws IOException {
+		//set up
+		File file = File.createTempFile("simos", ".trace");
+		file.deleteOnExit();
+		ReferenceTrace.Writer writer = new ReferenceTrace.Writer(file);
+		
+		//exercise
+		writer.record(7, 3, true, false);
+		writer.record(8, 31, false, true);
+		writer.close();
+		ReferenceTrace trace = ReferenceTrace.read(file);
+		
+		//verify outcome
+		Assert.assertEquals(2, trace.size());
+		Assert.assertEquals(7, trace.getPageTableAddr(0));
+		Assert.assertEquals(3, trace.getPageNr(0));
+		Assert.assertTrue(trace.isWrite(0));
+		Assert.assertFalse(trace.isFault(0));
+		Assert.assertEquals(8, trace.getPageTableAddr(1));
+		Assert.assertEquals(31, trace.getPageNr(1));
+		Assert.assertFalse(trace.isWrite(1));
+		Assert.assertTrue(trace.isFault(1));
+	}
+	
+	
+	/**
+	 * FIFO hat mit 4 Rahmen mehr Seitenfehler als mit 3, OPT nicht.
+	 */
+	@Test
+	public final void testBelady() {
+		//set up
+		ReferenceTrace trace = new ReferenceTrace();
+		for(int i = 0; i < BELADY.length; i++) {
+			trace.add(1, BELADY[i], false, false);
+		}
+		
+		//exercise + verify outcome
+		Assert.assertEquals(9, TraceSimulator.simulate(trace, new FIFO(), 3).getFaults());
+		Assert.assertEquals(10, TraceSimulator.simulate(trace, new FIFO(), 4).getFaults());
+		Assert.assertEquals(7, TraceSimulator.simulateOPT(trace, 3).getFaults());
+		Assert.assertEquals(6, TraceSimulator.simulateOPT(trace, 4).getFaults());
+	}
+	
+	
+	@Test
+	public final void testWriteBacks() {
+		//set up
+		ReferenceTrace trace = new ReferenceTrace();
+		trace.add(1, 0, true, false);
+		trace.add(1, 1, false, false);
+		trace.add(1, 2, false, false);		//verdraengt Seite 0 (veraendert)
+		trace.add(1, 3, false, false);		//verdraengt Seite 1 (unveraendert)
+		
+		//exercise
+		TraceSimulator.Result result = TraceSimulator.simulate(trace, new FIFO(), 2);
+		
+		//verify outcome
+		Assert.assertEquals(4, result.getFaults());
+		Assert.assertEquals(1, result.getWriteBacks());
+		Assert.assertEquals(1.0, result.getFaultRate(), 0.0);
+	}
+}
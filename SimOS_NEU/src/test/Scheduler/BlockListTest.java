@@ -0,0 +1,50 @@
+package test.Scheduler;
+
+
+import java.util.LinkedList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import MemoryManagement.PCB;
+import Scheduler.BlockList;
+import Scheduler.Event;
+import Scheduler.EventPCB;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class BlockListTest {
+
+	/**
+	 * Alle Prozesse, die auf dasselbe Event warten, werden aufgeweckt,
+	 * und zwar in der Reihenfolge, in der sie blockiert wurden.
+	 */
+	@Test
+	public final void testWakeUpAll() {
+		//set up
+		BlockList list = new BlockList();
+		for(int pid = 2; pid <= 5; pid++) {
+			list.add(new EventPCB(new Event(Event.wait, 1), new PCB(pid, 0, "blocked")));
+		}
+		list.add(new EventPCB(new Event(Event.wait, 2), new PCB(6, 0, "blocked")));
+		list.add(new EventPCB(new Event(Event.read, 1), new PCB(1, 0, "blocked")));
+		
+		//exercise
+		LinkedList<EventPCB> woken = list.wakeUp(Event.wait, 1);
+		
+		//verify outcome
+		Assert.assertEquals(4, woken.size());
+		for(int i = 0; i < 4; i++) {
+			Assert.assertEquals(i + 2, woken.get(i).getPCB().getPid());
+		}
+		Assert.assertEquals(2, list.size());
+		Assert.assertEquals(2, list.getProcesses().size());
+		Assert.assertTrue(list.wakeUp(Event.wait, 1).isEmpty());
+		Assert.assertEquals(1, list.wakeUp(Event.read, 1).size());
+		Assert.assertEquals(1, list.size());
+	}
+}
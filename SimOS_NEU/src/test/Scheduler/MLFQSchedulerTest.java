@@ -0,0 +1,137 @@
+package test.Scheduler;
+
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import Hardware.CPU;
+import Hardware.MMU;
+import Hardware.MainMemory;
+import MainBoot.SysLogger;
+import MemoryManagement.Clock;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import MemoryManagement.SwapFile;
+import Scheduler.Event;
+import Scheduler.MLFQScheduler;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class MLFQSchedulerTest {
+
+	private CPU cpu;
+	private ProcessManager processManager;
+	
+	
+	@Before
+	public void setUp() throws Exception {
+		SysLogger.openLog();
+		MainMemory memory = new MainMemory(4*8);
+		MemoryManager manager = new MemoryManager(memory, new SwapFile(500), 4, 32, new Clock());
+		processManager = new ProcessManager(manager, 4, 32);
+		cpu = new CPU(new MMU(memory, manager));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SysLogger.closeLog();
+	}
+	
+	
+	/**
+	 * Wer seine Zeitscheibe verbraucht, rutscht eine Stufe nach unten und
+	 * bekommt eine doppelt so lange Zeitscheibe.
+	 */
+	@Test
+	public final void testDemotion() {
+		//set up
+		MLFQScheduler scheduler = new MLFQScheduler(cpu, processManager, 3, 9, 100);
+		PCB pcb1 = new PCB(1, 0, "fresh");
+		PCB pcb2 = new PCB(2, 0, "fresh");
+		scheduler.addProcess(pcb1);
+		scheduler.addProcess(pcb2);
+		
+		//exercise + verify outcome
+		scheduler.timesliceOver();						//idle -> 1
+		Assert.assertEquals(1, scheduler.getRunningPid());
+		Assert.assertEquals(9, scheduler.getTimeslice());
+		
+		scheduler.timesliceOver();						//1 rutscht ab, 2 ist in Stufe 0
+		Assert.assertEquals(2, scheduler.getRunningPid());
+		Assert.assertEquals(1, pcb1.getPriority());
+		
+		scheduler.timesliceOver();						//beide in Stufe 1: reihum
+		Assert.assertEquals(1, scheduler.getRunningPid());
+		Assert.assertEquals(18, scheduler.getTimeslice());
+		
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();						//unterste Stufe ist erreicht
+		Assert.assertEquals(2, pcb1.getPriority());
+		Assert.assertEquals(2, pcb2.getPriority());
+		Assert.assertEquals(36, scheduler.getTimeslice());
+	}
+	
+	
+	/**
+	 * Ein Prozess, der blockiert, steigt auf und verdraengt danach
+	 * rechenintensive Prozesse aus den unteren Stufen.
+	 */
+	@Test
+	public final void testPromotionOnBlock() {
+		//set up
+		MLFQScheduler scheduler = new MLFQScheduler(cpu, processManager, 3, 9, 100);
+		PCB cpuBound = new PCB(1, 0, "fresh");
+		PCB interactive = new PCB(2, 0, "fresh");
+		scheduler.addProcess(cpuBound);
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();						//1 ist jetzt in Stufe 2
+		scheduler.addProcess(interactive);
+		scheduler.timesliceOver();						//-> 2
+		scheduler.timesliceOver();						//2 in Stufe 1, 1 in Stufe 2: 2 laeuft weiter
+		Assert.assertEquals(2, scheduler.getRunningPid());
+		
+		//exercise
+		scheduler.block(new Event(Event.read, 2));
+		
+		//verify outcome
+		Assert.assertEquals(0, interactive.getPriority());
+		Assert.assertEquals(1, scheduler.getRunningPid());
+		
+		scheduler.unblock(new Event(Event.read, 2));
+		scheduler.timesliceOver();
+		Assert.assertEquals(2, scheduler.getRunningPid());
+	}
+	
+	
+	@Test
+	public final void testBoost() {
+		//set up
+		MLFQScheduler scheduler = new MLFQScheduler(cpu, processManager, 3, 9, 4);
+		PCB pcb1 = new PCB(1, 0, "fresh");
+		PCB pcb2 = new PCB(2, 0, "fresh");
+		scheduler.addProcess(pcb1);
+		scheduler.addProcess(pcb2);
+		
+		//exercise
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();
+		scheduler.timesliceOver();
+		Assert.assertEquals(1, pcb1.getPriority());
+		scheduler.timesliceOver();						//4. Zeitscheibe: alle nach Stufe 0
+		
+		//verify outcome
+		Assert.assertEquals(0, pcb1.getPriority());
+		Assert.assertEquals(0, pcb2.getPriority());
+		Assert.assertEquals(1, scheduler.getReadyCount(0));
+		Assert.assertEquals(0, scheduler.getReadyCount(1));
+	}
+}
@@ -0,0 +1,148 @@
+package test.Scheduler;
+
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import Hardware.CPU;
+import Hardware.IO;
+import Hardware.MMU;
+import Hardware.MainMemory;
+import MainBoot.SysLogger;
+import MemoryManagement.Clock;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import MemoryManagement.SwapFile;
+import Scheduler.Event;
+import Scheduler.SMPScheduler;
+import Scheduler.SchedulerIF;
+
+/**
+ * Die Tests laufen auf dem Test-Thread, die Sichten der CPUs werden direkt aufgerufen.
+ * @author Johann Mantler
+ *
+ */
+public class SMPSchedulerTest {
+
+	private SMPScheduler scheduler;
+	private ProcessManager processManager;
+	private SchedulerIF cpu0;
+	private SchedulerIF cpu1;
+	
+	
+	@Before
+	public void setUp() throws Exception {
+		SysLogger.openLog();
+		MainMemory memory = new MainMemory(4*8);
+		MemoryManager manager = new MemoryManager(memory, new SwapFile(500), 4, 32, new Clock());
+		manager.enableConcurrentAccess();
+		processManager = new ProcessManager(manager, 4, 32);
+		IO io = new IO();
+		CPU[] cpus = { new CPU(new MMU(memory, manager), io), new CPU(new MMU(memory, manager), io) };
+		scheduler = new SMPScheduler(cpus, processManager);
+		processManager.setScheduler(scheduler);
+		cpu0 = scheduler.getScheduler(0);
+		cpu1 = scheduler.getScheduler(1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SysLogger.closeLog();
+	}
+	
+	
+	/**
+	 * Eine CPU ohne Arbeit stiehlt den zuletzt eingereihten Prozess einer anderen CPU.
+	 */
+	@Test
+	public final void testWorkStealing() {
+		//set up
+		scheduler.addProcess(new PCB(1, 0, "fresh"));		//nicht auf einer CPU -> Warteschlange von CPU 0
+		scheduler.addProcess(new PCB(2, 0, "fresh"));
+		
+		//exercise
+		cpu1.timesliceOver();
+		cpu0.timesliceOver();
+		
+		//verify outcome
+		Assert.assertEquals(2, cpu1.getRunningPid());
+		Assert.assertEquals(1, cpu0.getRunningPid());
+		Assert.assertEquals(1, scheduler.getStealCount());
+	}
+	
+	
+	/**
+	 * Eine CPU, die einen Prozess ausfuehrt, stiehlt nicht.
+	 */
+	@Test
+	public final void testBusyCpuDoesNotSteal() {
+		//set up
+		scheduler.addProcess(new PCB(1, 0, "fresh"));
+		cpu1.timesliceOver();
+		scheduler.addProcess(new PCB(2, 0, "fresh"));
+		
+		//exercise
+		cpu1.timesliceOver();
+		
+		//verify outcome
+		Assert.assertEquals(1, cpu1.getRunningPid());
+		Assert.assertEquals(1, scheduler.getReadyCount(0));
+		Assert.assertEquals(0, cpu0.getRunningPid());
+	}
+	
+	
+	/**
+	 * Ein Prozess, der auf CPU 0 blockiert, kann von CPU 1 aufgeweckt werden und
+	 * kommt dann in deren Warteschlange.
+	 */
+	@Test
+	public final void testUnblockOnOtherCpu() {
+		//set up
+		scheduler.addProcess(new PCB(1, 0, "fresh"));
+		cpu0.timesliceOver();
+		Event event = new Event(Event.read, 1, 0);
+		
+		//exercise
+		cpu0.block(event);
+		cpu1.unblock(event);
+		
+		//verify outcome
+		Assert.assertEquals(0, cpu0.getRunningPid());
+		Assert.assertEquals(0, scheduler.getReadyCount(0));
+		Assert.assertEquals(1, scheduler.getReadyCount(1));
+		cpu0.timesliceOver();							//die leere CPU 0 holt ihn sich zurueck
+		Assert.assertEquals(1, cpu0.getRunningPid());
+	}
+	
+	
+	/**
+	 * wait blockiert nur, solange der Prozess lebt, und sein Ende weckt den Wartenden
+	 * auch auf einer anderen CPU.
+	 */
+	@Test
+	public final void testWaitForProcessOnOtherCpu() {
+		//set up
+		int child = processManager.createProcess("init");
+		int parent = processManager.createProcess("init");
+		cpu0.timesliceOver();
+		cpu1.timesliceOver();								//stiehlt den Vater
+		Assert.assertEquals(child, cpu0.getRunningPid());
+		Assert.assertEquals(parent, cpu1.getRunningPid());
+		
+		//exercise
+		boolean blocked = cpu1.waitFor(new Event(Event.wait, child));
+		cpu0.endProcess();
+		
+		//verify outcome
+		Assert.assertTrue(blocked);
+		Assert.assertEquals(parent, cpu0.getRunningPid());
+		Assert.assertEquals(0, scheduler.getBlockedCount());
+		Assert.assertFalse(cpu0.waitFor(new Event(Event.wait, child)));	//schon beendet
+		Assert.assertEquals(parent, cpu0.getRunningPid());
+		Assert.assertEquals(0, scheduler.getBlockedCount());
+	}
+}
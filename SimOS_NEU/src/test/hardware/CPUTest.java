@@ -9,7 +9,10 @@ import org.junit.Test;
 
 import Hardware.CPU;
 import Hardware.MMU;
+import Hardware.Instruction;
 import Hardware.MainMemory;
+import Hardware.RegisterSet;
+import Hardware.VirtualAddressFormat;
 import MainBoot.SysLogger;
 import MemoryManagement.Clock;
 import MemoryManagement.MemoryManager;
@@ -40,24 +43,55 @@ public class CPUTest {
 		CPU cpu = new CPU(mmu);
 		cpu.setProcessManager(processManager);
 		
+		VirtualAddressFormat format = mmu.getAddressFormat();
+		
 		//exercise
-		String virtualAddr = "90";								
-		String result = cpu.incVirtualAddress(virtualAddr);
-        SysLogger.writeLog(0, "->" + result);
+		int virtualAddr = format.make(9, 0);	//"90"
+		int result = cpu.incVirtualAddress(virtualAddr);
+        SysLogger.writeLog(0, "->" + format.toString(result));
         
 		result = cpu.incVirtualAddress(result);
-		SysLogger.writeLog(0, "->" + result);
+		SysLogger.writeLog(0, "->" + format.toString(result));
 		
 		result = cpu.incVirtualAddress(result);
-		SysLogger.writeLog(0, "->" + result);
+		SysLogger.writeLog(0, "->" + format.toString(result));
 		
 		result = cpu.incVirtualAddress(result);
-		SysLogger.writeLog(0, "->" + result);
+		SysLogger.writeLog(0, "->" + format.toString(result));
 		
 		result = cpu.incVirtualAddress(result);
-		SysLogger.writeLog(0, "->" + result);
+		SysLogger.writeLog(0, "->" + format.toString(result));
+		//verify outcome
+		Assert.assertTrue(format.getPageNr(result) == 10);
+		Assert.assertTrue(format.getOffset(result) == 1);
+		Assert.assertTrue("101".equals(format.toString(result)));
+	}
+	
+	
+	/**
+	 * Zwei ganzzahlige Register werden ohne Umweg ueber double addiert, auch
+	 * oberhalb von 2^53.
+	 */
+	@Test
+	public final void testLongRegisterArithmetic() throws Exception {
+		//set up
+		MainMemory memory = new MainMemory(4*8);
+		MemoryManager manager = new MemoryManager(memory, new SwapFile(500), new Clock() );
+		CPU cpu = new CPU(new MMU(memory, manager));
+		RegisterSet regSet = new RegisterSet();
+		regSet.setProgramCounter(0);
+		regSet.setLong(1, 2);
+		regSet.setLong(2, 9007199254740993L);		//2^53 + 1, als double nicht darstellbar
+		cpu.restoreRegisters(regSet);
+		
+		//exercise
+		cpu.executeCommand(Instruction.decode("add 1 2"));
+		
 		//verify outcome
-		Assert.assertTrue("101".equals(result));
+		RegisterSet result = new RegisterSet();
+		cpu.saveRegisters(result);
+		Assert.assertEquals(RegisterSet.LONG, result.getTag(1));
+		Assert.assertEquals(9007199254740995L, result.getLong(1));
 	}
 
 }
@@ -0,0 +1,135 @@
+package test.hardware;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import Hardware.ConsoleIF;
+import Hardware.HeadlessIO;
+import Hardware.InterruptController;
+import Scheduler.Event;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class HeadlessIOTest {
+
+	private File dir;
+	private HeadlessIO io;
+	private InterruptController interrupts;
+	
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("consoles", "");
+		dir.delete();
+		io = new HeadlessIO(dir);
+		interrupts = new InterruptController();
+	}
+
+	@After
+	public void tearDown() {
+		io.close();
+		File[] files = dir.listFiles();
+		for (int i = 0; files != null && i < files.length; i++) {
+			files[i].delete();
+		}
+		dir.delete();
+	}
+	
+	
+	/**
+	 * Eine Eingabe, die vor dem read-Befehl kommt, wird aufgehoben.
+	 */
+	@Test
+	public final void testInputBeforeRead() {
+		//set up
+		ConsoleIF console = io.createConsole("init");
+		io.addInput("42");
+		Event event = new Event(Event.read, 1);
+		event.setConsole(console);
+		
+		//exercise
+		io.read(event, interrupts);
+		
+		//verify outcome
+		Assert.assertSame(event, interrupts.poll());
+		Assert.assertEquals("42", event.getContent());
+		Assert.assertNull(interrupts.poll());
+	}
+	
+	
+	@Test
+	public final void testInputForOtherConsole() {
+		//set up
+		io.createConsole("init");
+		ConsoleIF second = io.createConsole("child");
+		Event event = new Event(Event.read, 2);
+		event.setConsole(second);
+		io.read(event, interrupts);
+		
+		//exercise
+		io.addInput("for console 1");
+		Assert.assertNull(interrupts.poll());
+		io.addInput("2:hello");
+		
+		//verify outcome
+		Assert.assertSame(event, interrupts.poll());
+		Assert.assertEquals("hello", event.getContent());
+	}
+	
+	
+	/**
+	 * Ein read-Befehl ohne Konsole wartet weiter, die Eingabe geht an die Konsole.
+	 */
+	@Test
+	public final void testReadWithoutConsole() {
+		//set up
+		ConsoleIF console = io.createConsole("init");
+		Event event = new Event(Event.read, 1);
+		event.setConsole(console);
+		io.read(event, interrupts);
+		Event withoutConsole = new Event(Event.read, 2);
+		io.read(withoutConsole, interrupts);
+		
+		//exercise
+		io.addInput("hello");
+		
+		//verify outcome
+		Assert.assertSame(event, interrupts.poll());
+		Assert.assertEquals("hello", event.getContent());
+		Assert.assertNull(interrupts.poll());
+	}
+	
+	
+	@Test
+	public final void testOutputFile() throws IOException {
+		//set up
+		ConsoleIF console = io.createConsole("init");
+		
+		//exercise
+		console.write("10");
+		console.write("\n");
+		console.write("done");
+		console.dispose();
+		console.write("lost");
+		
+		//verify outcome
+		BufferedReader in = new BufferedReader(new FileReader(new File(dir, "console-" + console.getId() + ".txt")));
+		try {
+			Assert.assertEquals("10", in.readLine());
+			Assert.assertEquals("done", in.readLine());
+			Assert.assertNull(in.readLine());
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package test.hardware;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import Hardware.Instruction;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class InstructionTest {
+
+	@Test
+	public final void testDecode() {
+		//exercise
+		Instruction add = Instruction.decode("add 1 #2");
+		Instruction jmp = Instruction.decode("jmp 7");
+		Instruction writeVal = Instruction.decode("write_val >");
+		
+		//verify outcome
+		Assert.assertEquals(Instruction.ADD, add.getOpcode());
+		Assert.assertEquals(Instruction.JMP, jmp.getOpcode());
+		Assert.assertEquals(7, jmp.getCommandNr());
+		Assert.assertEquals(Instruction.WRITE_VAL, writeVal.getOpcode());
+	}
+	
+	
+	/**
+	 * Den Befehlstext fuer das Protokoll setzt toString aus den Operanden zusammen.
+	 */
+	@Test
+	public final void testToString() {
+		//exercise + verify outcome
+		String[] lines = { "add 1 #2", "mul 2 #0.5", "sub 1 2", "load 1 #exit", "load 2 20", "store #7 12",
+				"store 1 12", "rand 1 6", "jeq 11", "create_process [20]", "wait #3", "wait 1",
+				"write_mem 013", "write_val >", "write_nl", "quit" };
+		for (String line : lines) {
+			Assert.assertEquals(line, Instruction.decode(line).toString());
+		}
+		Assert.assertEquals("invalid", Instruction.decode("foo 1").toString());
+		Assert.assertEquals("nop", Instruction.decode("  ").toString());
+	}
+	
+	
+	/**
+	 * Unbekannte Befehle und fehlende oder nicht numerische Operanden ergeben INVALID,
+	 * ohne Exception.
+	 */
+	@Test
+	public final void testInvalid() {
+		//exercise + verify outcome
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode(null).getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("").getOpcode());		//leere Datenzelle
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("foo 1").getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("jmp").getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("jmp x").getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("add 1 #x").getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("rand 1").getOpcode());
+		Assert.assertEquals(Instruction.INVALID, Instruction.decode("create_process [a]").getOpcode());
+	}
+	
+	
+	@Test
+	public final void testBlankLineIsNop() {
+		//exercise + verify outcome
+		Assert.assertEquals(Instruction.NOP, Instruction.decode("   ").getOpcode());
+		Assert.assertEquals(Instruction.NOP, Instruction.decode("\t").getOpcode());
+	}
+	
+	
+	@Test
+	public final void testCreateProcess() {
+		//exercise
+		Instruction direct = Instruction.decode("create_process 12");
+		Instruction indirect = Instruction.decode("create_process [12]");
+		
+		//verify outcome
+		Assert.assertEquals(Instruction.CREATE_PROCESS, direct.getOpcode());
+		Assert.assertFalse(direct.isIndirect());
+		Assert.assertEquals(12, direct.getCommandNr());
+		Assert.assertEquals(Instruction.CREATE_PROCESS, indirect.getOpcode());
+		Assert.assertTrue(indirect.isIndirect());
+		Assert.assertEquals(12, indirect.getCommandNr());
+	}
+}
@@ -0,0 +1,151 @@
+package test.hardware;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import Hardware.InterruptController;
+import Scheduler.Event;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class InterruptControllerTest {
+
+	@Test
+	public final void testPriorityOrder() {
+		//set up
+		InterruptController controller = new InterruptController();
+		
+		//exercise
+		controller.post(InterruptController.LOW, new Event(Event.read, 1));
+		controller.post(InterruptController.NORMAL, new Event(Event.read, 2));
+		controller.post(InterruptController.HIGH, new Event(Event.read, 3));
+		controller.post(InterruptController.NORMAL, new Event(Event.read, 4));
+		
+		//verify outcome
+		Assert.assertTrue(controller.hasPending());
+		Assert.assertEquals(3, controller.poll().getID());
+		Assert.assertEquals(2, controller.poll().getID());	//innerhalb einer Prioritaet in Meldereihenfolge
+		Assert.assertEquals(4, controller.poll().getID());
+		Assert.assertEquals(1, controller.poll().getID());
+		Assert.assertNull(controller.poll());
+		Assert.assertFalse(controller.hasPending());
+	}
+	
+	
+	/**
+	 * Ein Interrupt von einem anderen Thread beendet das Warten sofort.
+	 */
+	@Test(timeout = 5000)
+	public final void testAwaitWakesOnPost() throws InterruptedException {
+		//set up
+		final InterruptController controller = new InterruptController();
+		Thread device = new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					return;
+				}
+				controller.post(InterruptController.NORMAL, new Event(Event.read, 7));
+			}
+		};
+		device.start();
+		
+		//exercise
+		while (!controller.hasPending()) {
+			controller.await(60000);
+		}
+		
+		//verify outcome
+		Assert.assertEquals(7, controller.poll().getID());
+		device.join();
+	}
+	
+	
+	/**
+	 * Ein Weckruf, waehrend die CPU gerade nicht wartet, beendet ihr naechstes Warten
+	 * sofort, aber nur dieses eine.
+	 */
+	@Test(timeout = 5000)
+	public final void testWakeUpBeforeAwait() {
+		//set up
+		InterruptController controller = new InterruptController();
+		
+		//exercise
+		controller.wakeUp();
+		long start = System.nanoTime();
+		controller.await(60000);
+		long woken = System.nanoTime() - start;
+		start = System.nanoTime();
+		controller.await(200);
+		long waited = System.nanoTime() - start;
+		
+		//verify outcome
+		Assert.assertTrue(woken < 1000000000L);
+		Assert.assertTrue(waited >= 100000000L);
+	}
+	
+	
+	@Test(timeout = 5000)
+	public final void testAwaitTimeout() {
+		//set up
+		InterruptController controller = new InterruptController();
+		
+		//exercise
+		controller.await(10);
+		
+		//verify outcome
+		Assert.assertFalse(controller.hasPending());
+		Assert.assertNull(controller.poll());
+	}
+	
+	
+	/**
+	 * Mehrere Erzeuger gleichzeitig: Kein Interrupt geht verloren, und die Interrupts
+	 * eines Erzeugers kommen in seiner Reihenfolge an.
+	 */
+	@Test(timeout = 30000)
+	public final void testConcurrentProducers() throws InterruptedException {
+		//set up
+		final InterruptController controller = new InterruptController();
+		final int producers = 3;
+		final int count = 2000;
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread() {
+				public void run() {
+					for (int i = 0; i < count; i++) {
+						controller.post(InterruptController.NORMAL, new Event(producer, i));
+					}
+				}
+			};
+		}
+		
+		//exercise
+		for (int p = 0; p < producers; p++) {
+			threads[p].start();
+		}
+		int[] next = new int[producers];
+		int received = 0;
+		while (received < producers * count) {
+			Event event = controller.poll();
+			if (event == null) {
+				controller.await(10);
+				continue;
+			}
+			//verify outcome
+			Assert.assertEquals(next[event.getType()], event.getID());
+			next[event.getType()]++;
+			received++;
+		}
+		for (int p = 0; p < producers; p++) {
+			threads[p].join();
+		}
+		Assert.assertFalse(controller.hasPending());
+	}
+}
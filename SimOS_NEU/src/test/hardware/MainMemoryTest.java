@@ -0,0 +1,85 @@
+package test.hardware;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import Hardware.Instruction;
+import Hardware.MainMemory;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class MainMemoryTest {
+
+	@Test
+	public final void testEmptyMemory() {
+		//set up
+		MainMemory memory = new MainMemory(3, 4);
+		
+		//exercise + verify outcome
+		Assert.assertTrue(memory.getSize() == 12);
+		Assert.assertTrue(memory.getFrameCount() == 3);
+		Assert.assertEquals("", memory.getContent(11));
+		Assert.assertNull(memory.getDecoded(11));
+	}
+	
+	
+	@Test
+	public final void testLoadFrame() {
+		//set up
+		MainMemory memory = new MainMemory(3, 4);
+		String[] page = {"", "inc 1", "jmp 0", ""};
+		
+		//exercise
+		memory.loadFrame(2, page, null);
+		page[1] = "dec 1";	//der Rahmen ist eine Kopie
+		
+		//verify outcome
+		Assert.assertEquals("", memory.getContent(8));
+		Assert.assertEquals("inc 1", memory.getContent(9));
+		Assert.assertEquals("jmp 0", memory.getFrame(2)[2]);
+		Assert.assertTrue(memory.getInstruction(9).getOpcode() == Instruction.INC);
+	}
+	
+	
+	@Test
+	public final void testSetContentInvalidates() {
+		//set up
+		MainMemory memory = new MainMemory(2, 4);
+		memory.setContent(5, "inc 1");
+		memory.getInstruction(5);
+		
+		//exercise
+		memory.setContent(5, "dec 2");
+		Instruction cached = memory.getDecoded(5);
+		memory.clearFrame(1);
+		
+		//verify outcome
+		Assert.assertNull(cached);
+		Assert.assertEquals("", memory.getContent(5));
+	}
+	
+	
+	/**
+	 * Ueberschreibt store eine schon dekodierte Befehlszelle, wird beim naechsten
+	 * Ausfuehren der neue Befehl dekodiert.
+	 */
+	@Test
+	public final void testOverwrittenCodeIsDecodedAgain() {
+		//set up
+		MainMemory memory = new MainMemory(2, 4);
+		memory.loadFrame(0, new String[] {"inc 1", "jmp 0", "", ""}, null);
+		Assert.assertTrue(memory.getInstruction(0).getOpcode() == Instruction.INC);
+		
+		//exercise
+		memory.setContent(0, "dec 1");
+		
+		//verify outcome
+		Assert.assertTrue(memory.getInstruction(0).getOpcode() == Instruction.DEC);
+		Assert.assertSame(memory.getInstruction(0), memory.getDecoded(0));	//wieder gemerkt
+		Assert.assertTrue(memory.getInstruction(1).getOpcode() == Instruction.JMP);
+	}
+}
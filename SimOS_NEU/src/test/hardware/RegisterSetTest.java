@@ -0,0 +1,84 @@
+package test.hardware;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import Hardware.RegisterSet;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class RegisterSetTest {
+
+	@Test
+	public final void testSetString() {
+		//set up
+		RegisterSet regSet = new RegisterSet();
+		
+		//exercise
+		regSet.setString(1, "42");
+		regSet.setString(2, "bsp");
+		
+		//verify outcome
+		Assert.assertTrue(regSet.getTag(1) == RegisterSet.LONG);
+		Assert.assertTrue(regSet.getLong(1) == 42);
+		Assert.assertTrue(regSet.getTag(2) == RegisterSet.STRING);
+		Assert.assertEquals("bsp", regSet.getString(2));
+	}
+	
+	
+	@Test
+	public final void testSetDouble() {
+		//set up
+		RegisterSet regSet = new RegisterSet();
+		
+		//exercise
+		regSet.setDouble(1, 3.0);
+		regSet.setDouble(2, 2.5);
+		
+		//verify outcome
+		Assert.assertTrue(regSet.getTag(1) == RegisterSet.LONG);
+		Assert.assertEquals("3", regSet.getString(1));
+		Assert.assertTrue(regSet.getTag(2) == RegisterSet.DOUBLE);
+		Assert.assertEquals("2.5", regSet.getString(2));
+	}
+	
+	
+	@Test
+	public final void testRegistersEqual() {
+		//set up
+		RegisterSet regSet = new RegisterSet();
+		
+		//exercise
+		regSet.setString(1, "1");
+		regSet.setString(2, "1.0");
+		boolean numbers = regSet.registersEqual();
+		regSet.setString(2, "bsp");
+		boolean mixed = regSet.registersEqual();
+		
+		//verify outcome
+		Assert.assertTrue(numbers);
+		Assert.assertFalse(mixed);
+	}
+	
+	
+	@Test
+	public final void testCopyRegisters() {
+		//set up
+		RegisterSet regSet = new RegisterSet();
+		RegisterSet copy = new RegisterSet();
+		regSet.setLong(1, 7);
+		regSet.setString(2, "init");
+		
+		//exercise
+		copy.copyRegisters(regSet);
+		regSet.setLong(1, 8);
+		
+		//verify outcome
+		Assert.assertTrue(copy.getLong(1) == 7);
+		Assert.assertEquals("init", copy.getString(2));
+	}
+}
@@ -0,0 +1,73 @@
+package test.hardware;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import Hardware.TLB;
+import MemoryManagement.PageTableEntry;
+
+/**
+ * 
+ * @author Johann Mantler
+ *
+ */
+public class TLBTest {
+
+	@Test
+	public final void testLookupInsert() {
+		//set up
+		TLB tlb = new TLB(4, 4);
+		PageTableEntry entry = new PageTableEntry();
+		
+		//exercise
+		PageTableEntry miss = tlb.lookup(1, 3);
+		tlb.insert(1, 3, entry);
+		PageTableEntry hit = tlb.lookup(1, 3);
+		PageTableEntry otherProcess = tlb.lookup(2, 3);	//gleiche Seite, anderer Prozess
+		
+		//verify outcome
+		Assert.assertNull(miss);
+		Assert.assertTrue(hit == entry);
+		Assert.assertNull(otherProcess);
+		Assert.assertTrue(tlb.getHits() == 1);
+		Assert.assertTrue(tlb.getMisses() == 2);
+	}
+	
+	
+	@Test
+	public final void testInvalidate() {
+		//set up
+		TLB tlb = new TLB(4, 4);
+		tlb.insert(1, 3, new PageTableEntry());
+		tlb.insert(1, 4, new PageTableEntry());
+		
+		//exercise
+		tlb.invalidate(1, 3);
+		
+		//verify outcome
+		Assert.assertNull(tlb.lookup(1, 3));
+		Assert.assertNotNull(tlb.lookup(1, 4));
+	}
+	
+	
+	@Test
+	public final void testReplaceLeastRecentlyUsed() {
+		//set up
+		TLB tlb = new TLB(2, 2);	//voll assoziativ mit 2 Eintraegen
+		PageTableEntry entry1 = new PageTableEntry();
+		PageTableEntry entry2 = new PageTableEntry();
+		tlb.insert(1, 1, entry1);
+		tlb.insert(1, 2, entry2);
+		tlb.lookup(1, 1);			//Seite 1 wurde zuletzt benutzt
+		
+		//exercise
+		tlb.insert(1, 3, new PageTableEntry());
+		
+		//verify outcome
+		Assert.assertTrue(tlb.lookup(1, 1) == entry1);
+		Assert.assertNull(tlb.lookup(1, 2));
+		Assert.assertNotNull(tlb.lookup(1, 3));
+	}
+
+}
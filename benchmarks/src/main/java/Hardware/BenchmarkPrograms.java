@@ -0,0 +1,46 @@
+package Hardware;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Hilfsmethoden fuer die Benchmarks im Paket Hardware.
+ * @author Johann Mantler
+ *
+ */
+final class BenchmarkPrograms {
+
+  private BenchmarkPrograms() {
+  }
+
+  /**
+   * Schaltet das Protokoll ab, sonst misst der Benchmark vor allem den SysLogger.
+   */
+  static void quiet() {
+    SysLogger.setTraceLevels( "all=off" );
+  }
+
+  /**
+   * Schreibt ein Programm mit <code>cells</code> Zellen in eine temporaere Datei,
+   * die beim Beenden der JVM geloescht wird.
+   * @return der Dateiname fuer <code>MemoryManager.loadProgram</code>
+   */
+  static String write( int cells ) throws IOException {
+    File file = File.createTempFile( "simos-bench", ".prog" );
+    file.deleteOnExit();
+    Writer out = new FileWriter( file );
+    try {
+      out.write( cells + "\n" );
+      for( int i = 0; i < cells; i++ ) {
+        out.write( "load 1 #" + i + "\n" );
+      }
+    } finally {
+      out.close();
+    }
+    return file.getPath();
+  }
+}
@@ -0,0 +1,78 @@
+package Hardware;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MainBoot.BootLoader;
+import MemoryManagement.Clock;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import MemoryManagement.SwapFile;
+import Scheduler.Scheduler;
+
+/**
+ * <b>Aufgabe:</b> Misst <code>CPU.executeCommand</code> fuer einzelne Befehle.
+ * <p>
+ * Der Befehl wird einmal dekodiert und dann immer wieder ausgefuehrt. Der Prozess liegt
+ * ganz im Hauptspeicher, Speicherzugriffe (<code>load 1 5</code>, <code>store 1 5</code>)
+ * treffen also den TLB. Beide Register enthalten am Anfang 1, damit <code>mul</code> und
+ * <code>div</code> ihren Wert behalten. Befehle, die blockieren, einen Prozess erzeugen
+ * oder eine Konsole brauchen, fehlen.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CPUBenchmark {
+
+  @Param({ "inc 1", "add 1 #1", "add 1 2", "mul 1 2", "div 1 2", "load 1 #7", "load 1 5",
+           "store 1 5", "jmp 0", "jeq 0", "jlt 0", "rand 1 9", "get_pid 1" })
+  public String command;
+
+  private CPU cpu;
+  private Instruction instruction;
+
+  @Setup
+  public void setUp() throws IOException {
+    BenchmarkPrograms.quiet();
+    MainMemory memory = new MainMemory( 32, 4 );
+    MemoryManager manager = new MemoryManager( memory, new SwapFile(32), 4, 32, new Clock() );
+    ProcessManager processManager = new ProcessManager( manager, 4, 32 );
+    cpu = new CPU( new MMU(memory, manager) );
+    Scheduler scheduler = new Scheduler( cpu, processManager );
+    processManager.setScheduler( scheduler );
+    cpu.setProcessManager( processManager );
+    cpu.setScheduler( scheduler );
+
+    PCB pcb = new PCB( 1, 0, "fresh" );
+    manager.loadProgram( BenchmarkPrograms.write(128), pcb );
+    pcb.getRegisterSet().setLong( 1, 1 );
+    pcb.getRegisterSet().setLong( 2, 1 );
+    scheduler.addProcess( pcb );
+    scheduler.timesliceOver();                      //idle -> Prozess 1
+    instruction = Instruction.decode( command );
+  }
+
+  @Benchmark
+  public int execute() throws BootLoader.ShutdownException {
+    return cpu.executeCommand( instruction );
+  }
+}
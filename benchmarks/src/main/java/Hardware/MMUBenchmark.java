@@ -0,0 +1,106 @@
+package Hardware;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Hardware.MMU.AccessViolation;
+import MemoryManagement.Clock;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.SwapFile;
+
+/**
+ * <b>Aufgabe:</b> Misst <code>MMU.resolveAddress</code> auf seinen drei Pfaden.
+ * <ul>
+ * <li><code>tlbHit</code>: immer dieselbe Adresse, der Eintrag steht im TLB.</li>
+ * <li><code>pageTableHit</code>: alle 32 Seiten reihum, alle im Hauptspeicher. Der TLB
+ * (16 Eintraege) reicht nicht, die MMU muss in die Seitentabelle schauen.</li>
+ * <li><code>pageFault</code>: alle 32 Seiten reihum bei nur 2 Rahmen, jeder Zugriff ist
+ * ein Seitenfehler mit Seitenersetzung (Clock) und Lesen aus der Auslagerungsdatei.</li>
+ * </ul>
+ * @author Johann Mantler
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MMUBenchmark {
+
+  private static final int PAGE_SIZE = 4;
+  private static final int ADDRESS_SPACE = 32;
+
+  /**
+   * Ein Prozess, der den ganzen Adressraum belegt, und eine MMU mit <code>frames</code> Rahmen.
+   */
+  public abstract static class Process {
+    MMU mmu;
+    VirtualAddressFormat format;
+    int page;
+
+    void setUp( int frames ) throws IOException, AccessViolation {
+      BenchmarkPrograms.quiet();
+      MainMemory memory = new MainMemory( frames, PAGE_SIZE );
+      MemoryManager manager = new MemoryManager( memory, new SwapFile(ADDRESS_SPACE), PAGE_SIZE, ADDRESS_SPACE, new Clock() );
+      mmu = new MMU( memory, manager );
+      format = mmu.getAddressFormat();
+      PCB pcb = new PCB( 1, 0, "fresh" );
+      manager.loadProgram( BenchmarkPrograms.write(PAGE_SIZE * ADDRESS_SPACE), pcb );
+      mmu.setRegisterSet( pcb.getRegisterSet() );
+      for( int i = 0; i < ADDRESS_SPACE; i++ ) {
+        mmu.resolveAddress( format.make(i, 0) );     //alles einmal laden
+      }
+    }
+
+    /**
+     * @return die erste Adresse der naechsten Seite, reihum
+     */
+    int nextPage() {
+      page = (page + 1) % ADDRESS_SPACE;
+      return format.make( page, 0 );
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Resident extends Process {
+    @Setup
+    public void setUp() throws IOException, AccessViolation {
+      setUp( ADDRESS_SPACE );
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Thrashing extends Process {
+    @Setup
+    public void setUp() throws IOException, AccessViolation {
+      setUp( 2 );
+    }
+  }
+
+  @Benchmark
+  public int tlbHit( Resident state ) throws AccessViolation {
+    return state.mmu.resolveAddress( 1 );
+  }
+
+  @Benchmark
+  public int pageTableHit( Resident state ) throws AccessViolation {
+    return state.mmu.resolveAddress( state.nextPage() );
+  }
+
+  @Benchmark
+  public int pageFault( Thrashing state ) throws AccessViolation {
+    return state.mmu.resolveAddress( state.nextPage() );
+  }
+}
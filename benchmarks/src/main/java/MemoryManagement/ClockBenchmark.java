@@ -0,0 +1,117 @@
+package MemoryManagement;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MainBoot.BootLoader;
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Misst die Seitenersetzung (<code>execute</code> und <code>insert</code>)
+ * unter verschiedenen Zugriffsmustern.
+ * <p>
+ * Jeder Aufruf ist ein Seitenzugriff wie in der MMU: Liegt die Seite im Speicher, wird nur
+ * das R-Bit gesetzt, sonst waehlt der Algorithmus ein Opfer. Die Zugriffe werden vorher
+ * erzeugt:
+ * <ul>
+ * <li><code>loop</code>: reihum ueber doppelt so viele Seiten wie Rahmen, jeder Zugriff
+ * ist ein Seitenfehler und alle R-Bits sind gesetzt (schlechtester Fall fuer Clock).</li>
+ * <li><code>uniform</code>: gleichverteilt ueber viermal so viele Seiten wie Rahmen.</li>
+ * <li><code>hotset</code>: 90% der Zugriffe auf halb so viele Seiten wie Rahmen, der Rest
+ * gleichverteilt ueber achtmal so viele.</li>
+ * </ul>
+ * Mit <code>-p policy=...</code> laesst sich jeder Algorithmus aus
+ * <code>BootLoader.pageReplacementNames</code> messen.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClockBenchmark {
+
+  private static final int REFERENCES = 1 << 16;
+
+  @Param({ "clock" })
+  public String policy;
+
+  @Param({ "64", "1024" })
+  public int frames;
+
+  @Param({ "loop", "uniform", "hotset" })
+  public String pattern;
+
+  private PageReplacementIF replacement;
+  private PageTableEntry[] entries;   //Index = Seitennummer
+  private int[] references;
+  private int position;
+  private int usedFrames;
+
+  @Setup
+  public void setUp() {
+    SysLogger.setTraceLevels( "all=off" );
+    replacement = BootLoader.createPageReplacement( policy, frames );
+    Random random = new Random( 42 );
+    references = new int[REFERENCES];
+    int pages;
+    if( "loop".equals(pattern) ) {
+      pages = 2 * frames;
+      for( int i = 0; i < REFERENCES; i++ ) {
+        references[i] = i % pages;
+      }
+    } else if( "uniform".equals(pattern) ) {
+      pages = 4 * frames;
+      for( int i = 0; i < REFERENCES; i++ ) {
+        references[i] = random.nextInt( pages );
+      }
+    } else if( "hotset".equals(pattern) ) {
+      pages = 8 * frames;
+      for( int i = 0; i < REFERENCES; i++ ) {
+        references[i] = random.nextInt(10) < 9 ? random.nextInt( frames / 2 ) : random.nextInt( pages );
+      }
+    } else {
+      throw new IllegalArgumentException( "unknown pattern: " + pattern );
+    }
+    entries = new PageTableEntry[pages];
+    for( int i = 0; i < pages; i++ ) {
+      entries[i] = new PageTableEntry();
+    }
+  }
+
+  @Benchmark
+  public PageTableEntry reference() {
+    int pageNr = references[position];
+    position = (position + 1) & (REFERENCES - 1);
+    PageTableEntry entry = entries[pageNr];
+    if( entry.getFrameNr() == -1 ) {
+      int frameNr;
+      if( usedFrames < frames ) {
+        frameNr = usedFrames++;
+      } else {
+        int[] victim = replacement.execute();
+        entries[victim[0]].setFrameNr( -1 );
+        frameNr = victim[1];
+      }
+      entry.setFrameNr( frameNr );
+      replacement.insert( 1, 1, entry, pageNr );
+    }
+    entry.setReferenced( true );
+    return entry;
+  }
+}
@@ -0,0 +1,89 @@
+package MemoryManagement;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MainBoot.SysLogger;
+
+/**
+ * <b>Aufgabe:</b> Misst <code>SwapFile.setPage</code> gefolgt von <code>getPage</code>
+ * und <code>freePage</code> bei verschiedenen Fuellstaenden der Auslagerungsdatei.
+ * <p>
+ * Die drei Aufrufe lassen den Fuellstand unveraendert. Vor der Messung wird die Datei zu
+ * <code>fill</code> Prozent belegt und jeder zweite belegte Platz wieder freigegeben,
+ * damit auch die Liste der freigegebenen Plaetze gefuellt ist.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwapFileBenchmark {
+
+  private static final int SIZE = 4096;
+  private static final int PAGE_SIZE = 4;
+
+  @Param({ "heap", "mmap" })
+  public String backend;
+
+  @Param({ "0", "50", "90", "99" })
+  public int fill;
+
+  private SwapFile swapFile;
+  private File file;
+  private String[] page = { "load 1 #0", "inc 1", "store 1 20", "jmp 0" };
+
+  @Setup
+  public void setUp() throws IOException {
+    SysLogger.setTraceLevels( "all=off" );
+    if( "mmap".equals(backend) ) {
+      file = File.createTempFile( "simos-bench", ".swap" );
+      swapFile = new SwapFile( SIZE, new MappedSwapBackend(file, SIZE, PAGE_SIZE, 64 * PAGE_SIZE) );
+    } else {
+      swapFile = new SwapFile( SIZE );
+    }
+    int used = SIZE * fill / 100;
+    int[] addrs = new int[2 * used];
+    int count = 0;
+    for( ; count < addrs.length && count < SIZE; count++ ) {
+      addrs[count] = swapFile.setPage( page );
+    }
+    for( int i = 0; i < count && swapFile.getUsedCount() > used; i += 2 ) {
+      swapFile.freePage( addrs[i] );
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    swapFile.close();
+    if( file != null ) {
+      file.delete();
+    }
+  }
+
+  @Benchmark
+  public String[] setAndGetPage() {
+    int addr = swapFile.setPage( page );
+    String[] content = swapFile.getPage( addr );
+    swapFile.freePage( addr );
+    return content;
+  }
+}
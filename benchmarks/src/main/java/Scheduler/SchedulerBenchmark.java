@@ -0,0 +1,77 @@
+package Scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Hardware.CPU;
+import Hardware.MMU;
+import Hardware.MainMemory;
+import MainBoot.SysLogger;
+import MemoryManagement.Clock;
+import MemoryManagement.MemoryManager;
+import MemoryManagement.PCB;
+import MemoryManagement.ProcessManager;
+import MemoryManagement.SwapFile;
+
+/**
+ * <b>Aufgabe:</b> Misst <code>Scheduler.block</code> und <code>unblock</code>, waehrend
+ * schon <code>blocked</code> andere Prozesse auf verschiedene Ereignisse warten.
+ * <p>
+ * Ein Aufruf blockiert den laufenden Prozess, weckt ihn wieder auf und schaltet mit
+ * <code>timesliceOver</code> zurueck zu ihm.
+ * </p>
+ * @author Johann Mantler
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+  @Param({ "10", "1000", "100000" })
+  public int blocked;
+
+  private Scheduler scheduler;
+  private Event event;
+
+  @Setup
+  public void setUp() {
+    SysLogger.setTraceLevels( "all=off" );
+    MainMemory memory = new MainMemory( 8, 4 );
+    MemoryManager manager = new MemoryManager( memory, new SwapFile(32), 4, 32, new Clock() );
+    ProcessManager processManager = new ProcessManager( manager, 4, 32 );
+    scheduler = new Scheduler( new CPU(new MMU(memory, manager)), processManager );
+    processManager.setScheduler( scheduler );
+
+    for( int pid = 2; pid < blocked + 2; pid++ ) {
+      scheduler.addProcess( new PCB(pid, 0, "fresh") );
+      scheduler.timesliceOver();
+      scheduler.block( new Event(Event.wait, 1000000 + pid) );   //niemand weckt sie auf
+    }
+    scheduler.addProcess( new PCB(1, 0, "fresh") );
+    scheduler.timesliceOver();
+    event = new Event( Event.read, 1 );
+  }
+
+  @Benchmark
+  public int blockAndUnblock() {
+    scheduler.block( event );
+    scheduler.unblock( event );
+    scheduler.timesliceOver();
+    return scheduler.getRunningPid();
+  }
+}